@@ -0,0 +1,76 @@
+package com.example.ai_companion.service;
+
+import com.example.ai_companion.model.Message;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chat history assembly: the cached window snapshot, trimmed to the messages after the
+ * conversation summary, plus formatting; and formatting alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatHistoryBenchmark {
+
+    @Param({"10", "30"})
+    public int windowSize;
+
+    @Param({"80", "1000"})
+    public int messageChars;
+
+    private ChatContextBuilder chatContextBuilder;
+    private List<Message> messages;
+    private Instant summarizedThrough;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        Instant start = Instant.parse("2025-06-01T09:00:00Z");
+        messages = new ArrayList<>(windowSize);
+        for (int i = 0; i < windowSize; i++) {
+            StringBuilder text = new StringBuilder(messageChars);
+            while (text.length() < messageChars) {
+                text.append((char) ('a' + random.nextInt(26)));
+                if (random.nextInt(6) == 0) text.append(' ');
+            }
+            messages.add(new Message("bench-user", text.toString(), i % 2 == 0, start.plusSeconds(i * 30L)));
+        }
+
+        // The loader returns the window in storage order, as the repository projection does
+        List<Message> newestFirst = new ArrayList<>(messages);
+        Collections.reverse(newestFirst);
+        RecentMessageCache<Message> cache = new RecentMessageCache<>(windowSize, Long.MAX_VALUE,
+                userId -> new ArrayList<>(newestFirst), Message::getTimestamp, Message::getId);
+        cache.recent("bench-user");
+
+        ConversationSummarizer summarizer = new ConversationSummarizer();
+        ReflectionTestUtils.setField(summarizer, "enabled", true);
+        ReflectionTestUtils.setField(summarizer, "verbatimMessages", 4);
+        summarizedThrough = messages.get(windowSize / 2).getTimestamp();
+
+        chatContextBuilder = new ChatContextBuilder();
+        ReflectionTestUtils.setField(chatContextBuilder, "chatHistoryCache", cache);
+        ReflectionTestUtils.setField(chatContextBuilder, "conversationSummarizer", summarizer);
+    }
+
+    @Benchmark
+    public String buildChatHistory() {
+        return chatContextBuilder.buildChatHistory("bench-user", summarizedThrough);
+    }
+
+    @Benchmark
+    public String formatHistory() {
+        return ChatContextBuilder.formatHistory(messages);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.ai_companion.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formatting of the main chat prompt and the memory query rewrite prompt, with core info
+ * ranging from a short introduction to a long accumulated profile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromptBuildingBenchmark {
+
+    private static final String PROFILE_LINE =
+            "Margaret is 79, a retired nurse in Christchurch who gardens, knits for charity and walks her dog Bella daily. ";
+
+    @Param({"500", "8000", "32000"})
+    public int coreInfoChars;
+
+    private LLMService llmService;
+    private MemoryQueryRewriter memoryQueryRewriter;
+    private String coreInfo;
+    private String memoryContext;
+    private String summary;
+    private String chatHistory;
+    private String reminders;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        llmService = new LLMService();
+        memoryQueryRewriter = new MemoryQueryRewriter();
+
+        coreInfo = PROFILE_LINE.repeat(coreInfoChars / PROFILE_LINE.length() + 1).substring(0, coreInfoChars);
+        memoryContext = "['Went to the garden centre on Saturday', 'Felt lonely during the rain on Monday']";
+
+        summary = "Margaret talked about her morning walk with Bella and planting lavender in the front garden. "
+                + "The assistant offered to remind her to water the plants later in the week.";
+
+        StringBuilder history = new StringBuilder();
+        for (int i = 0; i < 4; i++) {
+            history.append(i % 2 == 0 ? "User: " : "Assistant: ")
+                    .append("Message number ").append(i).append(" about the garden and the weather.\n");
+        }
+        chatHistory = history.toString().trim();
+        reminders = "Title: Take medication\nDescription: One tablet\nDue: 2025-06-03T08:00:00Z";
+    }
+
+    @Benchmark
+    public String buildLLMPrompt() {
+        return llmService.buildLLMPrompt("2025-06-02", coreInfo, memoryContext, summary, chatHistory, reminders,
+                "What should I plant this weekend?");
+    }
+
+    @Benchmark
+    public String buildRewritePrompt() {
+        return memoryQueryRewriter.buildPrompt("What should I plant this weekend?", chatHistory, coreInfo);
+    }
+}
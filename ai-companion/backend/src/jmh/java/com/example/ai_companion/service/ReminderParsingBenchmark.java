@@ -0,0 +1,89 @@
+package com.example.ai_companion.service;
+
+import com.example.ai_companion.repository.ReminderRepository;
+import com.example.ai_companion.utils.AsyncLogAppender;
+import com.example.ai_companion.utils.logger;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the LLM's reminder extraction output.
+ *
+ * {@code parseDateToInstant} is measured for each date shape the LLM returns, since every
+ * shape after ISO-8601 first fails one or more parses by exception. Saving is stubbed out,
+ * so {@code parseAndStoreReminders} measures only the line scan and date parsing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReminderParsingBenchmark {
+
+    private static final String RESPONSE = """
+            Task: Take blood pressure medication
+            Date: 2025-06-03 08:00
+            Description: One tablet with breakfast
+            Tag: medication
+
+            Task: Doctor's appointment
+            Date: 2025-06-05
+            Description: Annual check-up with Dr. Patel
+            Tag: appointment
+
+            Task: Call Lucy
+            Date: 2025-06-07T18:30:00Z
+            Description: Her birthday
+            Tag: event
+            """;
+
+    @Param({"iso", "date-time", "date", "invalid"})
+    public String dateFormat;
+
+    private ReminderService reminderService;
+    private AsyncLogAppender appender;
+    private String date;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        appender = new AsyncLogAppender(Files.createTempDirectory("jmh-logs").toString(), 8192,
+                AsyncLogAppender.OverflowPolicy.DROP, 64, 10 * 1024 * 1024, 24 * 60 * 60 * 1000L);
+        logger.install(appender);
+
+        ReminderRepository repository = (ReminderRepository) Proxy.newProxyInstance(
+                ReminderRepository.class.getClassLoader(), new Class<?>[] {ReminderRepository.class},
+                (proxy, method, args) -> "save".equals(method.getName()) ? args[0] : null);
+
+        reminderService = new ReminderService();
+        ReflectionTestUtils.setField(reminderService, "reminderRepository", repository);
+        ReflectionTestUtils.setField(reminderService, "reminderScheduler", new ReminderScheduler());
+
+        date = switch (dateFormat) {
+            case "iso" -> "2025-06-07T18:30:00Z";
+            case "date-time" -> "2025-06-03 08:00";
+            case "date" -> "2025-06-05";
+            default -> "next Tuesday";
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        appender.close();
+    }
+
+    @Benchmark
+    public Instant parseDateToInstant() {
+        return reminderService.parseDateToInstant(date, "bench-user");
+    }
+
+    @Benchmark
+    public void parseAndStoreReminders() {
+        reminderService.parseAndStoreReminders(RESPONSE, "bench-user");
+    }
+}
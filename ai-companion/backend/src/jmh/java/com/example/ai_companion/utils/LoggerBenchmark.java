@@ -0,0 +1,51 @@
+package com.example.ai_companion.utils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caller-side cost of {@link logger#logToFile}, from a single thread and from four threads
+ * contending for the ring buffer. The writer thread drains in the background; entries it
+ * cannot keep up with are dropped, which is reported at the end of each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggerBenchmark {
+
+    @Param({"64", "4096"})
+    public int contentChars;
+
+    private AsyncLogAppender appender;
+    private String content;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        appender = new AsyncLogAppender(Files.createTempDirectory("jmh-logs").toString(), 8192,
+                AsyncLogAppender.OverflowPolicy.DROP, 64, 10 * 1024 * 1024, 24 * 60 * 60 * 1000L);
+        logger.install(appender);
+        content = "x".repeat(contentChars);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.println("Dropped log entries: " + appender.droppedCount());
+        appender.close();
+    }
+
+    @Benchmark
+    public void logToFile() {
+        logger.logToFile("bench-user", content);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void logToFileContended() {
+        logger.logToFile("bench-user", content);
+    }
+}
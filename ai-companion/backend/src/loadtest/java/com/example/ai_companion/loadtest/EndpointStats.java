@@ -0,0 +1,56 @@
+package com.example.ai_companion.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latencies and error count for one endpoint.
+ */
+public class EndpointStats {
+
+    private final String name;
+    private final AtomicLong errors = new AtomicLong();
+    private long[] latenciesNanos = new long[1024];
+    private int count;
+
+    public EndpointStats(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public synchronized void record(long nanos) {
+        if (count == latenciesNanos.length) {
+            latenciesNanos = Arrays.copyOf(latenciesNanos, count * 2);
+        }
+        latenciesNanos[count++] = nanos;
+    }
+
+    public void recordError() {
+        errors.incrementAndGet();
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    public long errors() {
+        return errors.get();
+    }
+
+    /** A snapshot of the recorded latencies, sorted ascending. */
+    public synchronized long[] sorted() {
+        long[] snapshot = Arrays.copyOf(latenciesNanos, count);
+        Arrays.sort(snapshot);
+        return snapshot;
+    }
+
+    /** Nearest-rank percentile of a sorted sample, in milliseconds. */
+    public static double percentileMs(long[] sorted, double percentile) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))] / 1_000_000.0;
+    }
+}
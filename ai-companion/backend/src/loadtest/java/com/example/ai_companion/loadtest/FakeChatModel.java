@@ -0,0 +1,69 @@
+package com.example.ai_companion.loadtest;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.TokenUsage;
+
+/**
+ * Stand-in for the OpenAI chat model. Answers after a sampled latency with a scripted or
+ * replayed response, or forwards to a real model and records the exchange.
+ */
+public class FakeChatModel implements ChatLanguageModel {
+
+    private final ScriptedResponder responder;
+    private final LatencyDistribution latency;
+    private final ChatLanguageModel recordingDelegate;
+
+    /**
+     * @param responder         chooses the response
+     * @param latency           time taken to answer
+     * @param recordingDelegate the real model used in RECORD mode, otherwise null
+     */
+    public FakeChatModel(ScriptedResponder responder, LatencyDistribution latency, ChatLanguageModel recordingDelegate) {
+        this.responder = responder;
+        this.latency = latency;
+        this.recordingDelegate = recordingDelegate;
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest chatRequest) {
+        String prompt = promptOf(chatRequest);
+        if (recordingDelegate != null) {
+            ChatResponse response = recordingDelegate.chat(chatRequest);
+            responder.record(prompt, response.aiMessage().text());
+            return response;
+        }
+
+        latency.pause();
+        return response(prompt, responder.respond(prompt));
+    }
+
+    /** Builds a response with a rough token usage of four characters per token, so token metrics move. */
+    static ChatResponse response(String prompt, String text) {
+        return ChatResponse.builder()
+                .aiMessage(AiMessage.from(text))
+                .tokenUsage(new TokenUsage(prompt.length() / 4, text.length() / 4))
+                .build();
+    }
+
+    @Override
+    public String chat(String userMessage) {
+        return chat(ChatRequest.builder().messages(UserMessage.from(userMessage)).build()).aiMessage().text();
+    }
+
+    /** Joins the text of every user message in the request. */
+    static String promptOf(ChatRequest chatRequest) {
+        StringBuilder prompt = new StringBuilder();
+        for (ChatMessage message : chatRequest.messages()) {
+            if (message instanceof UserMessage userMessage && userMessage.hasSingleText()) {
+                if (!prompt.isEmpty()) prompt.append("\n");
+                prompt.append(userMessage.singleText());
+            }
+        }
+        return prompt.toString();
+    }
+}
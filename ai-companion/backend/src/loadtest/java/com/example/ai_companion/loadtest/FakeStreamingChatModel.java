@@ -0,0 +1,90 @@
+package com.example.ai_companion.loadtest;
+
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Streaming stand-in for the OpenAI chat model. Sends the first token after a sampled delay,
+ * then one word per token interval, on its own virtual thread as the real client would.
+ */
+public class FakeStreamingChatModel implements StreamingChatLanguageModel {
+
+    private static final Pattern TOKEN = Pattern.compile("\\S+\\s*|\\s+");
+
+    private final ScriptedResponder responder;
+    private final LatencyDistribution firstTokenLatency;
+    private final long tokenIntervalMs;
+    private final StreamingChatLanguageModel recordingDelegate;
+
+    /**
+     * @param responder         chooses the response
+     * @param firstTokenLatency time to the first token
+     * @param tokenIntervalMs   delay between subsequent tokens
+     * @param recordingDelegate the real model used in RECORD mode, otherwise null
+     */
+    public FakeStreamingChatModel(ScriptedResponder responder, LatencyDistribution firstTokenLatency,
+                                  long tokenIntervalMs, StreamingChatLanguageModel recordingDelegate) {
+        this.responder = responder;
+        this.firstTokenLatency = firstTokenLatency;
+        this.tokenIntervalMs = tokenIntervalMs;
+        this.recordingDelegate = recordingDelegate;
+    }
+
+    @Override
+    public void chat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+        String prompt = FakeChatModel.promptOf(chatRequest);
+        if (recordingDelegate != null) {
+            recordingDelegate.chat(chatRequest, recording(prompt, handler));
+            return;
+        }
+
+        String response = responder.respond(prompt);
+        Thread.ofVirtual().name("fake-llm-stream").start(() -> {
+            try {
+                firstTokenLatency.pause();
+                Matcher tokens = TOKEN.matcher(response);
+                boolean first = true;
+                while (tokens.find()) {
+                    if (!first) LatencyDistribution.sleep(tokenIntervalMs);
+                    handler.onPartialResponse(tokens.group());
+                    first = false;
+                }
+                handler.onCompleteResponse(FakeChatModel.response(prompt, response));
+            } catch (Exception e) {
+                handler.onError(e);
+            }
+        });
+    }
+
+    @Override
+    public void chat(String userMessage, StreamingChatResponseHandler handler) {
+        chat(ChatRequest.builder().messages(UserMessage.from(userMessage)).build(), handler);
+    }
+
+    /** Passes the real model's stream through and records the completed response. */
+    private StreamingChatResponseHandler recording(String prompt, StreamingChatResponseHandler handler) {
+        return new StreamingChatResponseHandler() {
+            @Override
+            public void onPartialResponse(String partialResponse) {
+                handler.onPartialResponse(partialResponse);
+            }
+
+            @Override
+            public void onCompleteResponse(ChatResponse completeResponse) {
+                responder.record(prompt, completeResponse.aiMessage().text());
+                handler.onCompleteResponse(completeResponse);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                handler.onError(error);
+            }
+        };
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.ai_companion.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A simulated latency, parsed from a short spec:
+ * - {@code fixed:200} always 200ms
+ * - {@code uniform:100-400} uniformly between 100 and 400ms
+ * - {@code lognormal:300/1200} log-normal with a 300ms median and a 1200ms p99
+ */
+public final class LatencyDistribution {
+
+    /** z-score of the 99th percentile of the standard normal distribution. */
+    private static final double Z_99 = 2.326;
+
+    private enum Kind { FIXED, UNIFORM, LOGNORMAL }
+
+    private final Kind kind;
+    private final double a;
+    private final double b;
+
+    private LatencyDistribution(Kind kind, double a, double b) {
+        this.kind = kind;
+        this.a = a;
+        this.b = b;
+    }
+
+    public static LatencyDistribution parse(String spec) {
+        String[] parts = spec.trim().split(":", 2);
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Invalid latency spec: " + spec);
+        }
+        try {
+            switch (parts[0].toLowerCase()) {
+                case "fixed":
+                    return new LatencyDistribution(Kind.FIXED, Double.parseDouble(parts[1]), 0);
+                case "uniform": {
+                    String[] range = parts[1].split("-");
+                    return new LatencyDistribution(Kind.UNIFORM, Double.parseDouble(range[0]), Double.parseDouble(range[1]));
+                }
+                case "lognormal": {
+                    String[] shape = parts[1].split("/");
+                    double median = Double.parseDouble(shape[0]);
+                    double p99 = Double.parseDouble(shape[1]);
+                    return new LatencyDistribution(Kind.LOGNORMAL, Math.log(median), (Math.log(p99) - Math.log(median)) / Z_99);
+                }
+                default:
+                    throw new IllegalArgumentException("Unknown latency distribution: " + parts[0]);
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid latency spec: " + spec, e);
+        }
+    }
+
+    /** Draws a latency in milliseconds. */
+    public long sampleMs() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double ms = switch (kind) {
+            case FIXED -> a;
+            case UNIFORM -> a + random.nextDouble() * (b - a);
+            case LOGNORMAL -> Math.exp(a + b * random.nextGaussian());
+        };
+        return Math.max(0, Math.round(ms));
+    }
+
+    /** Sleeps for a sampled latency. */
+    public void pause() {
+        sleep(sampleMs());
+    }
+
+    static void sleep(long ms) {
+        if (ms <= 0) return;
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.ai_companion.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * Replays concurrent simulated users against the running controllers.
+ *
+ * Each user runs on its own virtual thread, starting at an even spacing across the ramp-up,
+ * and repeatedly picks an endpoint from the weighted mix, calls it and pauses for a jittered
+ * think time until the test duration has passed. Latency is recorded per endpoint; the
+ * streaming endpoint also records the time to its first token event.
+ */
+public class LoadDriver {
+
+    /** The endpoints a simulated user can call. */
+    public enum Endpoint {
+        ASK("POST /memory/ask"),
+        ASK_STREAM("POST /memory/ask/stream"),
+        CHATS("GET /memory/chats"),
+        CHATS_CURSOR("GET /memory/chats/cursor"),
+        COGNITIVE_ASK("POST /cognitive/ask");
+
+        private final String label;
+
+        Endpoint(String label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * @param users         number of concurrent simulated users
+     * @param duration      how long the test runs once the first user has started
+     * @param rampUp        time over which the users are started
+     * @param thinkTimeMs   mean pause between a user's requests
+     * @param mix           relative weight of each endpoint
+     * @param timeout       per-request timeout
+     */
+    public record Settings(int users, Duration duration, Duration rampUp, long thinkTimeMs,
+                           Map<Endpoint, Integer> mix, Duration timeout) {}
+
+    private static final List<String> QUESTIONS = List.of(
+            "Good morning! How are you today?",
+            "What should I plant in the garden this weekend?",
+            "I went to the doctor yesterday and my blood pressure was a bit high.",
+            "Remind me to take my tablets tomorrow at 9am.",
+            "Can you remind me to call Lucy on Friday?",
+            "I'm feeling a bit lonely with all this rain.",
+            "Bella and I walked around the park this morning.",
+            "What did I tell you about my knitting for the charity shop?",
+            "Thanks, that's lovely.",
+            "Do you remember what Simon does for work?");
+
+    private static final List<String> GAME_PROMPTS = List.of(
+            "Let's play a word game.",
+            "Can you give me a memory puzzle?",
+            "I'd like a trivia question about gardening.",
+            "Next one please.");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+    private final Settings settings;
+    private final HttpClient httpClient;
+    private final Map<String, EndpointStats> stats = new LinkedHashMap<>();
+    private final List<Endpoint> weighted = new ArrayList<>();
+
+    public LoadDriver(String baseUrl, Settings settings) {
+        this.baseUrl = baseUrl;
+        this.settings = settings;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint.label, new EndpointStats(endpoint.label));
+            for (int i = 0; i < settings.mix().getOrDefault(endpoint, 0); i++) {
+                weighted.add(endpoint);
+            }
+        }
+        stats.put(Endpoint.ASK_STREAM.label + " (first token)", new EndpointStats(Endpoint.ASK_STREAM.label + " (first token)"));
+        if (weighted.isEmpty()) {
+            throw new IllegalArgumentException("The endpoint mix has no weight");
+        }
+    }
+
+    /**
+     * Runs the test to completion.
+     *
+     * @param userIds the seeded users; simulated users are assigned to them round robin
+     * @return the report
+     */
+    public Report run(List<String> userIds) throws InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + settings.rampUp().toNanos() + settings.duration().toNanos();
+
+        List<Thread> threads = new ArrayList<>(settings.users());
+        for (int i = 0; i < settings.users(); i++) {
+            String userId = userIds.get(i % userIds.size());
+            long startDelayMs = settings.users() > 1 ? settings.rampUp().toMillis() * i / settings.users() : 0;
+            threads.add(Thread.ofVirtual().name("load-user-" + i).start(() -> simulateUser(userId, startDelayMs, deadline)));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        return new Report(Duration.ofNanos(System.nanoTime() - start), List.copyOf(stats.values()));
+    }
+
+    private void simulateUser(String userId, long startDelayMs, long deadline) {
+        LatencyDistribution.sleep(startDelayMs);
+        String cursor = null;
+        while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+            Endpoint endpoint = weighted.get(ThreadLocalRandom.current().nextInt(weighted.size()));
+            EndpointStats endpointStats = stats.get(endpoint.label);
+            long begin = System.nanoTime();
+            try {
+                switch (endpoint) {
+                    case ASK -> post("/memory/ask", userId, pick(QUESTIONS));
+                    case ASK_STREAM -> stream(userId, pick(QUESTIONS), begin);
+                    case CHATS -> get("/memory/chats?userId=" + encode(userId));
+                    case CHATS_CURSOR -> cursor = nextCursor(userId, cursor);
+                    case COGNITIVE_ASK -> post("/cognitive/ask", userId, pick(GAME_PROMPTS));
+                }
+                endpointStats.record(System.nanoTime() - begin);
+            } catch (Exception e) {
+                endpointStats.recordError();
+            }
+
+            long thinkMs = (long) (settings.thinkTimeMs() * (0.5 + ThreadLocalRandom.current().nextDouble()));
+            LatencyDistribution.sleep(thinkMs);
+        }
+    }
+
+    private String post(String path, String userId, String body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path + "?userId=" + encode(userId)))
+                .timeout(settings.timeout())
+                .header("Content-Type", "text/plain")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return checked(httpClient.send(request, HttpResponse.BodyHandlers.ofString()));
+    }
+
+    private String get(String pathAndQuery) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + pathAndQuery))
+                .timeout(settings.timeout())
+                .GET()
+                .build();
+        return checked(httpClient.send(request, HttpResponse.BodyHandlers.ofString()));
+    }
+
+    /** Reads the event stream to the end, recording when the first token event arrives. */
+    private void stream(String userId, String question, long begin) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/memory/ask/stream?userId=" + encode(userId)))
+                .timeout(settings.timeout())
+                .header("Content-Type", "text/plain")
+                .header("Accept", "text/event-stream")
+                .POST(HttpRequest.BodyPublishers.ofString(question))
+                .build();
+        HttpResponse<Stream<String>> response = httpClient.send(request, HttpResponse.BodyHandlers.ofLines());
+        if (response.statusCode() / 100 != 2) {
+            response.body().close();
+            throw new IOException("HTTP " + response.statusCode());
+        }
+
+        boolean firstToken = true;
+        boolean failed = false;
+        try (Stream<String> lines = response.body()) {
+            for (Iterator<String> it = lines.iterator(); it.hasNext(); ) {
+                String line = it.next().replace(" ", "");
+                if (firstToken && line.equals("event:token")) {
+                    stats.get(Endpoint.ASK_STREAM.label + " (first token)").record(System.nanoTime() - begin);
+                    firstToken = false;
+                } else if (line.equals("event:error")) {
+                    failed = true;
+                }
+            }
+        }
+        if (failed) throw new IOException("error event");
+    }
+
+    /** Fetches the next older page of history, starting again from the newest once the history runs out. */
+    private String nextCursor(String userId, String cursor) throws IOException, InterruptedException {
+        String query = "/memory/chats/cursor?userId=" + encode(userId) + (cursor != null ? "&before=" + encode(cursor) : "");
+        JsonNode page = objectMapper.readTree(get(query));
+        JsonNode next = page.get("nextCursor");
+        return next == null || next.isNull() ? null : next.asText();
+    }
+
+    private static String checked(HttpResponse<String> response) throws IOException {
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("HTTP " + response.statusCode());
+        }
+        return response.body();
+    }
+
+    private static String pick(List<String> options) {
+        return options.get(ThreadLocalRandom.current().nextInt(options.size()));
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    /** Results of a run: wall-clock time and per-endpoint latencies. */
+    public record Report(Duration elapsed, List<EndpointStats> endpoints) {
+
+        /** Formats the report as a table of throughput and latency percentiles per endpoint. */
+        public String format() {
+            double seconds = elapsed.toNanos() / 1e9;
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("Elapsed: %.1fs%n", seconds));
+            sb.append(String.format("%-40s %8s %7s %9s %9s %9s %9s %9s%n",
+                    "endpoint", "count", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+
+            long total = 0;
+            long errors = 0;
+            for (EndpointStats endpoint : endpoints) {
+                long[] sorted = endpoint.sorted();
+                sb.append(String.format("%-40s %8d %7d %9.2f %9.1f %9.1f %9.1f %9.1f%n",
+                        endpoint.name(), sorted.length, endpoint.errors(), sorted.length / seconds,
+                        EndpointStats.percentileMs(sorted, 50), EndpointStats.percentileMs(sorted, 95),
+                        EndpointStats.percentileMs(sorted, 99), EndpointStats.percentileMs(sorted, 100)));
+                if (!endpoint.name().endsWith("(first token)")) {
+                    total += sorted.length;
+                    errors += endpoint.errors();
+                }
+            }
+            sb.append(String.format("Total: %d requests, %d errors, %.2f req/s%n", total, errors, total / seconds));
+            return sb.toString();
+        }
+    }
+}
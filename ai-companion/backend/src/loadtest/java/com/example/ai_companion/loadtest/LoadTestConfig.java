@@ -0,0 +1,111 @@
+package com.example.ai_companion.loadtest;
+
+import com.example.ai_companion.service.ModelProfile;
+import com.example.ai_companion.service.ModelRouter;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.openai.OpenAiChatModel;
+import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Replaces the OpenAI models with fakes for the "loadtest" profile. Every configured model
+ * profile gets its own fakes, so routing and per-profile metrics are exercised as in production;
+ * in record mode each fake wraps a real client built from its profile's settings.
+ */
+@Configuration
+@Profile("loadtest")
+public class LoadTestConfig {
+
+    @Value("${loadtest.llm.mode:script}")
+    private String mode;
+
+    @Value("${loadtest.llm.script:classpath:loadtest/llm-script.json}")
+    private Resource script;
+
+    @Value("${loadtest.llm.transcript:target/loadtest-transcript.jsonl}")
+    private String transcript;
+
+    @Value("${loadtest.llm.latency:lognormal:800/3000}")
+    private String latency;
+
+    @Value("${loadtest.llm.first-token-latency:lognormal:300/1200}")
+    private String firstTokenLatency;
+
+    @Value("${loadtest.llm.token-interval-ms:15}")
+    private long tokenIntervalMs;
+
+    @Value("${loadtest.llm.record.api-key:}")
+    private String recordApiKey;
+
+    @Bean
+    public ScriptedResponder scriptedResponder() throws IOException {
+        try (InputStream in = script.getInputStream()) {
+            return new ScriptedResponder(ScriptedResponder.Mode.valueOf(mode.toUpperCase(Locale.ROOT)), in, Path.of(transcript));
+        }
+    }
+
+    @Bean
+    public ModelRouter modelRouter(Environment environment, ScriptedResponder scriptedResponder) {
+        return new ModelRouter(environment, recordApiKey, (name, settings) -> new ModelProfile(name, settings,
+                chatLanguageModel(scriptedResponder, settings), streamingChatLanguageModel(scriptedResponder, settings)));
+    }
+
+    private ChatLanguageModel chatLanguageModel(ScriptedResponder scriptedResponder, ModelProfile.Settings settings) {
+        ChatLanguageModel delegate = null;
+        if (scriptedResponder.mode() == ScriptedResponder.Mode.RECORD) {
+            delegate = OpenAiChatModel.builder()
+                    .baseUrl(settings.baseUrl())
+                    .apiKey(requireApiKey(settings))
+                    .defaultRequestParameters(parameters(settings))
+                    .timeout(settings.timeout())
+                    .supportedCapabilities(settings.jsonSchema() ? Set.of(Capability.RESPONSE_FORMAT_JSON_SCHEMA) : Set.of())
+                    .strictJsonSchema(settings.strictJsonSchema())
+                    .build();
+        }
+        return new FakeChatModel(scriptedResponder, LatencyDistribution.parse(latency), delegate);
+    }
+
+    private StreamingChatLanguageModel streamingChatLanguageModel(ScriptedResponder scriptedResponder,
+                                                                  ModelProfile.Settings settings) {
+        StreamingChatLanguageModel delegate = null;
+        if (scriptedResponder.mode() == ScriptedResponder.Mode.RECORD) {
+            delegate = OpenAiStreamingChatModel.builder()
+                    .baseUrl(settings.baseUrl())
+                    .apiKey(requireApiKey(settings))
+                    .defaultRequestParameters(parameters(settings))
+                    .timeout(settings.timeout())
+                    .build();
+        }
+        return new FakeStreamingChatModel(scriptedResponder, LatencyDistribution.parse(firstTokenLatency),
+                tokenIntervalMs, delegate);
+    }
+
+    private static ChatRequestParameters parameters(ModelProfile.Settings settings) {
+        return ChatRequestParameters.builder()
+                .modelName(settings.model())
+                .temperature(settings.temperature())
+                .maxOutputTokens(settings.maxTokens())
+                .build();
+    }
+
+    private static String requireApiKey(ModelProfile.Settings settings) {
+        if (settings.apiKey() == null || settings.apiKey().isBlank()) {
+            throw new IllegalStateException("loadtest.llm.record.api-key is required in record mode");
+        }
+        return settings.apiKey();
+    }
+}
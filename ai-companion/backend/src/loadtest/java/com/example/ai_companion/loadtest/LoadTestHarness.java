@@ -0,0 +1,107 @@
+package com.example.ai_companion.loadtest;
+
+import com.example.ai_companion.AiCompanionApplication;
+import com.example.ai_companion.model.User;
+import com.example.ai_companion.repository.UserRepository;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Runs the backend fully offline and load-tests it.
+ *
+ * Starts an in-memory Mongo server and the stub memory service, boots the application with
+ * the "loadtest" profile (fake LLMs, random port), seeds users, then drives the configured
+ * number of simulated users and prints throughput and latency percentiles per endpoint.
+ *
+ * Settings are read from {@code application-loadtest.properties} and may be overridden with
+ * system properties or arguments, e.g. {@code -Dloadtest.users=200}. Add the "reactive"
+ * profile with {@code -Dspring.profiles.include=reactive} to measure the WebFlux pipeline.
+ */
+public class LoadTestHarness {
+
+    private static final String CORE_INFO = "Margaret Thompson is 79 and lives alone in Christchurch with her golden retriever Bella. "
+            + "She is a retired nurse with two children, Simon, an engineer in Wellington, and Lucy, a teacher in Dunedin. "
+            + "She loves gardening and knits for local charities, and takes medication for arthritis and high blood pressure.";
+
+    public static void main(String[] args) throws Exception {
+        MongoServer mongo = new MongoServer(new MemoryBackend());
+        InetSocketAddress mongoAddress = mongo.bind();
+
+        try (StubMemoryService memoryService = new StubMemoryService()) {
+            List<String> arguments = new ArrayList<>(List.of(
+                    "--spring.data.mongodb.uri=mongodb://127.0.0.1:" + mongoAddress.getPort() + "/loadtest",
+                    "--companion.memory-service.url=" + memoryService.url()));
+            arguments.addAll(List.of(args));
+
+            SpringApplication application = new SpringApplication(AiCompanionApplication.class);
+            application.setAdditionalProfiles("loadtest");
+
+            try (ConfigurableApplicationContext context = application.run(arguments.toArray(String[]::new))) {
+                Environment env = context.getEnvironment();
+                memoryService.setLatency(
+                        LatencyDistribution.parse(env.getProperty("loadtest.memory.recall-latency", "lognormal:40/150")),
+                        LatencyDistribution.parse(env.getProperty("loadtest.memory.remember-latency", "lognormal:60/250")));
+
+                List<String> userIds = seedUsers(context.getBean(UserRepository.class),
+                        env.getProperty("loadtest.seed-users", Integer.class, 50));
+
+                LoadDriver.Settings settings = settings(env);
+                String baseUrl = "http://127.0.0.1:" + env.getProperty("local.server.port");
+                System.out.println("Load test: " + settings.users() + " users for " + settings.duration()
+                        + " after a " + settings.rampUp() + " ramp-up against " + baseUrl);
+
+                LoadDriver.Report report = new LoadDriver(baseUrl, settings).run(userIds);
+
+                ScriptedResponder responder = context.getBean(ScriptedResponder.class);
+                System.out.println();
+                System.out.print(report.format());
+                System.out.println("LLM calls by rule: " + responder.callsByRule());
+                if (responder.mode() == ScriptedResponder.Mode.REPLAY) {
+                    System.out.println("Transcript replay: " + responder.replayHits() + " hit(s), "
+                            + responder.replayMisses() + " miss(es)");
+                }
+                System.out.println("Memory service: " + memoryService.recallCount() + " recall(s), "
+                        + memoryService.rememberCount() + " remember request(s)");
+            }
+        } finally {
+            mongo.shutdownNow();
+        }
+    }
+
+    private static List<String> seedUsers(UserRepository userRepository, int count) {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            User user = new User();
+            user.setUsername("loadtest-user-" + i);
+            user.setPassword("loadtest");
+            user.setCoreInformation(CORE_INFO);
+            ids.add(userRepository.save(user).getId());
+        }
+        return ids;
+    }
+
+    private static LoadDriver.Settings settings(Environment env) {
+        Map<LoadDriver.Endpoint, Integer> mix = new EnumMap<>(LoadDriver.Endpoint.class);
+        Stream.of(LoadDriver.Endpoint.values()).forEach(endpoint -> mix.put(endpoint,
+                env.getProperty("loadtest.mix." + endpoint.name().toLowerCase().replace('_', '-'), Integer.class, 0)));
+
+        return new LoadDriver.Settings(
+                env.getProperty("loadtest.users", Integer.class, 50),
+                env.getProperty("loadtest.duration", Duration.class, Duration.ofSeconds(60)),
+                env.getProperty("loadtest.ramp-up", Duration.class, Duration.ofSeconds(10)),
+                env.getProperty("loadtest.think-time-ms", Long.class, 500L),
+                mix,
+                env.getProperty("loadtest.request-timeout", Duration.class, Duration.ofSeconds(60)));
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.ai_companion.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Chooses the fake LLM's response to a prompt.
+ *
+ * In SCRIPT mode the first rule whose marker appears in the prompt answers, cycling through
+ * its responses. In REPLAY mode a recorded transcript is consulted first, keyed by the prompt
+ * with dates and timestamps stripped, and the script answers anything the transcript missed.
+ * In RECORD mode a real model answers and every prompt and response is appended to the transcript.
+ */
+public class ScriptedResponder {
+
+    public enum Mode { SCRIPT, REPLAY, RECORD }
+
+    private static final Pattern TODAY_LINE = Pattern.compile("(?m)^\\s*Today is \\d{4}-\\d{2}-\\d{2}\\.\\s*$");
+    private static final Pattern TIMESTAMP = Pattern.compile("\\d{4}-\\d{2}-\\d{2}T[0-9:.]+Z");
+
+    /** A scripted answer for every prompt that contains the marker. */
+    private record Rule(String name, String marker, List<String> responses, AtomicInteger next) {}
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Mode mode;
+    private final Path transcriptPath;
+    private final List<Rule> rules = new ArrayList<>();
+    private final Map<String, String> transcript = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> callsByRule = new ConcurrentHashMap<>();
+    private final AtomicLong replayHits = new AtomicLong();
+    private final AtomicLong replayMisses = new AtomicLong();
+    private String defaultResponse = "none";
+
+    /**
+     * @param mode           how responses are chosen
+     * @param script         the JSON script: {@code {"rules": [{"name", "match", "responses"}], "default"}}
+     * @param transcriptPath the JSONL transcript read in REPLAY mode and appended to in RECORD mode
+     */
+    public ScriptedResponder(Mode mode, InputStream script, Path transcriptPath) throws IOException {
+        this.mode = mode;
+        this.transcriptPath = transcriptPath;
+
+        JsonNode root = objectMapper.readTree(script);
+        for (JsonNode rule : root.path("rules")) {
+            List<String> responses = new ArrayList<>();
+            rule.path("responses").forEach(response -> responses.add(response.asText()));
+            rules.add(new Rule(rule.path("name").asText(), rule.path("match").asText(), responses, new AtomicInteger()));
+        }
+        if (root.hasNonNull("default")) {
+            defaultResponse = root.get("default").asText();
+        }
+
+        if (mode == Mode.REPLAY) {
+            if (!Files.exists(transcriptPath)) {
+                throw new IllegalStateException("No transcript to replay at " + transcriptPath);
+            }
+            for (String line : Files.readAllLines(transcriptPath, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) continue;
+                JsonNode entry = objectMapper.readTree(line);
+                transcript.put(key(entry.path("prompt").asText()), entry.path("response").asText());
+            }
+        }
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    /**
+     * Returns the scripted or replayed response for a prompt. Not used in RECORD mode.
+     */
+    public String respond(String prompt) {
+        if (mode == Mode.REPLAY) {
+            String recorded = transcript.get(key(prompt));
+            if (recorded != null) {
+                replayHits.incrementAndGet();
+                count("replay");
+                return recorded;
+            }
+            replayMisses.incrementAndGet();
+        }
+
+        for (Rule rule : rules) {
+            if (prompt.contains(rule.marker()) && !rule.responses().isEmpty()) {
+                count(rule.name());
+                return rule.responses().get(Math.floorMod(rule.next().getAndIncrement(), rule.responses().size()));
+            }
+        }
+        count("default");
+        return defaultResponse;
+    }
+
+    /** Appends a real model's response to the transcript. */
+    public synchronized void record(String prompt, String response) {
+        count("recorded");
+        ObjectNode entry = objectMapper.createObjectNode().put("prompt", prompt).put("response", response);
+        try {
+            Files.writeString(transcriptPath, objectMapper.writeValueAsString(entry) + "\n", StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Number of calls answered by each rule, "replay", "recorded" or "default". */
+    public Map<String, AtomicLong> callsByRule() {
+        return callsByRule;
+    }
+
+    public long replayHits() {
+        return replayHits.get();
+    }
+
+    public long replayMisses() {
+        return replayMisses.get();
+    }
+
+    private void count(String rule) {
+        callsByRule.computeIfAbsent(rule, name -> new AtomicLong()).incrementAndGet();
+    }
+
+    /** Hashes a prompt with its date line and timestamps removed, so a transcript replays on any day. */
+    static String key(String prompt) {
+        String normalized = TIMESTAMP.matcher(TODAY_LINE.matcher(prompt).replaceAll("")).replaceAll("<ts>").strip();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(normalized.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
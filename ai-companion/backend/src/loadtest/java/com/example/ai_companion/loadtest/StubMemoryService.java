@@ -0,0 +1,89 @@
+package com.example.ai_companion.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embedded stand-in for the Python embed service. Serves /recall, /remember and
+ * /remember_batch on a loopback port with simulated latency and canned memories.
+ */
+public class StubMemoryService implements AutoCloseable {
+
+    private static final byte[] RECALL_BODY = """
+            {"related_memories": ["Walked Bella around the park on Sunday morning.", \
+            "Felt lonely during the rain on Tuesday.", \
+            "Planted lavender and rosemary in the front garden."]}""".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] OK_BODY = "{\"status\": \"ok\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicLong recalls = new AtomicLong();
+    private final AtomicLong remembers = new AtomicLong();
+
+    private volatile LatencyDistribution recallLatency = LatencyDistribution.parse("fixed:0");
+    private volatile LatencyDistribution rememberLatency = LatencyDistribution.parse("fixed:0");
+
+    public StubMemoryService() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/recall", exchange -> {
+            recalls.incrementAndGet();
+            respond(exchange, recallLatency, RECALL_BODY);
+        });
+        server.createContext("/remember", exchange -> {
+            remembers.incrementAndGet();
+            respond(exchange, rememberLatency, OK_BODY);
+        });
+        server.createContext("/remember_batch", exchange -> {
+            remembers.incrementAndGet();
+            respond(exchange, rememberLatency, OK_BODY);
+        });
+        server.start();
+    }
+
+    /** Base URL to point {@code companion.memory-service.url} at. */
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public void setLatency(LatencyDistribution recallLatency, LatencyDistribution rememberLatency) {
+        this.recallLatency = recallLatency;
+        this.rememberLatency = rememberLatency;
+    }
+
+    public long recallCount() {
+        return recalls.get();
+    }
+
+    /** Number of /remember and /remember_batch requests. */
+    public long rememberCount() {
+        return remembers.get();
+    }
+
+    private static void respond(HttpExchange exchange, LatencyDistribution latency, byte[] body) throws IOException {
+        try (InputStream request = exchange.getRequestBody(); OutputStream response = exchange.getResponseBody()) {
+            request.readAllBytes();
+            latency.pause();
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            response.write(body);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.ai_companion.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors used for concurrent work inside a single chat turn, plus scheduling for periodic background jobs.
+ */
+@Configuration
+@EnableScheduling
+public class AsyncConfig {
+
+    /**
+     * Pool used to fan out the context-assembly stages of a chat turn.
+     * When saturated, new stages are rejected so the turn falls back to "none" for them
+     * instead of running them on the request thread, where their deadlines cannot apply.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService contextExecutor(
+            @Value("${companion.context.pool-size:16}") int poolSize,
+            @Value("${companion.context.queue-capacity:256}") int queueCapacity) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "context-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Pool that builds streaming prompts off the servlet thread, so the SSE response is
+     * committed before context assembly starts. Kept apart from the context pool, whose
+     * stages these tasks wait on.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService promptExecutor(
+            @Value("${companion.prompt.pool-size:16}") int poolSize,
+            @Value("${companion.prompt.queue-capacity:256}") int queueCapacity) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "prompt-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
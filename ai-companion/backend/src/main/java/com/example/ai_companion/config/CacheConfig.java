@@ -0,0 +1,67 @@
+package com.example.ai_companion.config;
+
+import com.example.ai_companion.model.CognitiveMessage;
+import com.example.ai_companion.model.Message;
+import com.example.ai_companion.repository.CognitiveMessageRepository;
+import com.example.ai_companion.repository.MessageRepository;
+import com.example.ai_companion.service.RecentMessageCache;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+
+/**
+ * In-memory caches of each user's recent chat and cognitive messages.
+ */
+@Configuration
+public class CacheConfig {
+
+    @Value("${companion.history.window-size:10}")
+    private int windowSize;
+
+    @Value("${companion.history.idle-timeout:30m}")
+    private Duration idleTimeout;
+
+    private RecentMessageCache<Message> chatHistoryCache;
+    private RecentMessageCache<CognitiveMessage> cognitiveHistoryCache;
+
+    @Bean
+    public RecentMessageCache<Message> chatHistoryCache(MessageRepository messageRepository, MeterRegistry meterRegistry) {
+        chatHistoryCache = new RecentMessageCache<>(windowSize, idleTimeout.toMillis(),
+                userId -> messageRepository.findHistoryByUserId(userId, newestFirst()),
+                Message::getTimestamp, Message::getId);
+        Gauge.builder("companion.history.cached.users", chatHistoryCache, RecentMessageCache::size)
+                .tag("history", "chat")
+                .register(meterRegistry);
+        return chatHistoryCache;
+    }
+
+    @Bean
+    public RecentMessageCache<CognitiveMessage> cognitiveHistoryCache(CognitiveMessageRepository cognitiveMessageRepository,
+                                                                      MeterRegistry meterRegistry) {
+        cognitiveHistoryCache = new RecentMessageCache<>(windowSize, idleTimeout.toMillis(),
+                userId -> cognitiveMessageRepository.findHistoryByUserId(userId, newestFirst()),
+                CognitiveMessage::getTimestamp, CognitiveMessage::getId);
+        Gauge.builder("companion.history.cached.users", cognitiveHistoryCache, RecentMessageCache::size)
+                .tag("history", "cognitive")
+                .register(meterRegistry);
+        return cognitiveHistoryCache;
+    }
+
+    /** Periodically drops the cached history of inactive users. */
+    @Scheduled(fixedDelayString = "${companion.history.eviction-interval-ms:60000}")
+    public void evictIdleHistory() {
+        if (chatHistoryCache != null) chatHistoryCache.evictIdle();
+        if (cognitiveHistoryCache != null) cognitiveHistoryCache.evictIdle();
+    }
+
+    private PageRequest newestFirst() {
+        return PageRequest.of(0, windowSize, Sort.by(Sort.Direction.DESC, "timestamp"));
+    }
+}
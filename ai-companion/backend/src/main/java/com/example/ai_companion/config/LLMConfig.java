@@ -1,13 +1,21 @@
 package com.example.ai_companion.config;
 
-import dev.langchain4j.model.chat.ChatLanguageModel;
+import com.example.ai_companion.service.ModelProfile;
+import com.example.ai_companion.service.ModelRouter;
+import dev.langchain4j.model.chat.Capability;
 import dev.langchain4j.model.openai.OpenAiChatModel;
+import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
 import dev.langchain4j.model.chat.request.ChatRequestParameters;
 import io.github.cdimascio.dotenv.Dotenv;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+
+import java.util.Set;
 
 @Configuration
+@Profile("!loadtest")
 public class LLMConfig {
 
     private final String openAiApiKey;
@@ -18,14 +26,39 @@ public class LLMConfig {
         this.openAiApiKey = dotenv.get("OPENAI_API_KEY", "default-fallback-key");
     }
 
+    /**
+     * Builds an OpenAI-compatible client pair for every configured model profile.
+     */
     @Bean
-    public ChatLanguageModel chatLanguageModel() {
-        return OpenAiChatModel.builder()
-                .apiKey(openAiApiKey)
-                .defaultRequestParameters(ChatRequestParameters.builder()
-                        .modelName("gpt-4o-mini")
-                        .temperature(0.7)
-                        .build())
+    public ModelRouter modelRouter(Environment environment) {
+        return new ModelRouter(environment, openAiApiKey, (name, settings) -> new ModelProfile(name, settings,
+                OpenAiChatModel.builder()
+                        .baseUrl(settings.baseUrl())
+                        .apiKey(settings.apiKey())
+                        .defaultRequestParameters(parameters(settings))
+                        .timeout(settings.timeout())
+                        .supportedCapabilities(capabilities(settings))
+                        .strictJsonSchema(settings.strictJsonSchema())
+                        // LLMGateway owns retries, so a rate limit pauses its queue instead of being retried blindly here
+                        .maxRetries(0)
+                        .build(),
+                OpenAiStreamingChatModel.builder()
+                        .baseUrl(settings.baseUrl())
+                        .apiKey(settings.apiKey())
+                        .defaultRequestParameters(parameters(settings))
+                        .timeout(settings.timeout())
+                        .build()));
+    }
+
+    private static Set<Capability> capabilities(ModelProfile.Settings settings) {
+        return settings.jsonSchema() ? Set.of(Capability.RESPONSE_FORMAT_JSON_SCHEMA) : Set.of();
+    }
+
+    private static ChatRequestParameters parameters(ModelProfile.Settings settings) {
+        return ChatRequestParameters.builder()
+                .modelName(settings.model())
+                .temperature(settings.temperature())
+                .maxOutputTokens(settings.maxTokens())
                 .build();
     }
 }
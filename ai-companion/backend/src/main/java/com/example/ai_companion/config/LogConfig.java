@@ -0,0 +1,42 @@
+package com.example.ai_companion.config;
+
+import com.example.ai_companion.utils.AsyncLogAppender;
+import com.example.ai_companion.utils.logger;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Configures the asynchronous per-user log appender used by {@link logger}.
+ */
+@Configuration
+public class LogConfig {
+
+    @Bean(destroyMethod = "close")
+    public AsyncLogAppender logAppender(
+            @Value("${companion.log.dir:logs/}") String dir,
+            @Value("${companion.log.buffer-capacity:8192}") int bufferCapacity,
+            @Value("${companion.log.overflow-policy:DROP}") AsyncLogAppender.OverflowPolicy overflowPolicy,
+            @Value("${companion.log.max-open-files:64}") int maxOpenFiles,
+            @Value("${companion.log.max-file-size:10MB}") DataSize maxFileSize,
+            @Value("${companion.log.roll-interval:24h}") Duration rollInterval,
+            MeterRegistry meterRegistry) {
+        AsyncLogAppender appender = new AsyncLogAppender(dir, bufferCapacity, overflowPolicy,
+                maxOpenFiles, maxFileSize.toBytes(), rollInterval.toMillis());
+        logger.install(appender);
+
+        Gauge.builder("companion.log.pending", appender, AsyncLogAppender::pendingCount)
+                .description("Log entries waiting for the writer thread")
+                .register(meterRegistry);
+        FunctionCounter.builder("companion.log.dropped", appender, AsyncLogAppender::droppedCount)
+                .description("Log entries dropped because the buffer was full")
+                .register(meterRegistry);
+        return appender;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.ai_companion.config;
+
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.embedding.onnx.allminilml6v2.AllMiniLmL6V2EmbeddingModel;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Beans for the in-process memory store, enabled with {@code companion.memory-store=local}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "companion.memory-store", havingValue = "local")
+public class MemoryStoreConfig {
+
+    /** The same all-MiniLM-L6-v2 model the Python embed service uses, run in-process via ONNX. */
+    @Bean
+    public EmbeddingModel embeddingModel() {
+        return new AllMiniLmL6V2EmbeddingModel();
+    }
+}
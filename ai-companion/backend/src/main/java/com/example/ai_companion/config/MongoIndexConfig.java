@@ -0,0 +1,171 @@
+package com.example.ai_companion.config;
+
+import com.example.ai_companion.model.*;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Creates the indexes declared on the Mongo models at startup, drops the ones they replaced,
+ * then checks with explain that each hot query is answered by an index scan, in index order,
+ * rather than a collection scan or an in-memory sort.
+ *
+ * A query that would scan its collection or sort in memory is logged, or fails startup when
+ * {@code companion.mongo.require-index-scans} is set.
+ *
+ * A unique index is only created once its collection holds no duplicate keys. Otherwise it is
+ * skipped and the duplicates are logged, since building it would fail startup.
+ */
+@Configuration
+public class MongoIndexConfig {
+
+    private static final List<Class<?>> INDEXED_MODELS = List.of(
+            Message.class, CognitiveMessage.class, Reminder.class, User.class, PendingMemory.class, Game.class);
+
+    /** Indexes superseded by a wider one, by collection. */
+    private static final Map<String, List<String>> RETIRED_INDEXES = Map.of(
+            "messages", List.of("userId_timestamp"),
+            "cognitive_messages", List.of("userId_timestamp"));
+
+    @Autowired private MongoTemplate mongoTemplate;
+    @Autowired private MongoMappingContext mappingContext;
+
+    @Value("${companion.mongo.verify-indexes:true}")
+    private boolean verifyIndexes;
+
+    @Value("${companion.mongo.require-index-scans:false}")
+    private boolean requireIndexScans;
+
+    /** How many duplicate keys to name when a unique index is skipped. */
+    private static final int DUPLICATES_REPORTED = 5;
+
+    /** A hot query shape to verify: collection, filter, sort and limit. */
+    private record HotQuery(String name, String collection, Document filter, Document sort, int limit) {}
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void ensureIndexes() {
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        for (Class<?> model : INDEXED_MODELS) {
+            IndexOperations indexOps = mongoTemplate.indexOps(model);
+            String collection = mongoTemplate.getCollectionName(model);
+            Set<String> existing = indexOps.getIndexInfo().stream()
+                    .map(IndexInfo::getName)
+                    .collect(Collectors.toSet());
+            for (IndexDefinition index : resolver.resolveIndexFor(model)) {
+                if (isUnique(index) && !existing.contains(index.getIndexOptions().getString("name"))) {
+                    List<Document> duplicates = findDuplicates(collection, index.getIndexKeys());
+                    if (!duplicates.isEmpty()) {
+                        System.err.println("Skipping unique index " + index.getIndexKeys().toJson() + " on " + collection
+                                + ": duplicate keys exist, e.g. " + duplicates
+                                + ". Remove or rename the duplicates and restart to create it.");
+                        continue;
+                    }
+                }
+                indexOps.ensureIndex(index);
+            }
+        }
+        RETIRED_INDEXES.forEach((collection, names) -> {
+            IndexOperations indexOps = mongoTemplate.indexOps(collection);
+            indexOps.getIndexInfo().stream()
+                    .filter(index -> names.contains(index.getName()))
+                    .forEach(index -> indexOps.dropIndex(index.getName()));
+        });
+
+        if (verifyIndexes) {
+            verifyHotQueries();
+        }
+    }
+
+    private static boolean isUnique(IndexDefinition index) {
+        return Boolean.TRUE.equals(index.getIndexOptions().getBoolean("unique"));
+    }
+
+    /** Returns up to a few key values that occur more than once in the collection, with their counts. */
+    private List<Document> findDuplicates(String collection, Document keys) {
+        Document groupKey = new Document();
+        for (String key : keys.keySet()) {
+            groupKey.append(key.replace('.', '_'), "$" + key);
+        }
+        List<Document> pipeline = List.of(
+                new Document("$group", new Document("_id", groupKey).append("count", new Document("$sum", 1))),
+                new Document("$match", new Document("count", new Document("$gt", 1))),
+                new Document("$limit", DUPLICATES_REPORTED));
+        return mongoTemplate.getCollection(collection).aggregate(pipeline).allowDiskUse(true).into(new ArrayList<>());
+    }
+
+    /** Explains each hot query and reports any whose winning plan contains a collection scan or a blocking sort. */
+    private void verifyHotQueries() {
+        Document byUser = new Document("userId", "index-check");
+        Document newestFirst = new Document("timestamp", -1);
+        Document newestFirstById = new Document("timestamp", -1).append("_id", -1);
+        Instant cursorTime = Instant.now();
+        Document beforeCursor = new Document("userId", "index-check").append("$or", List.of(
+                new Document("timestamp", new Document("$lt", cursorTime)),
+                new Document("timestamp", cursorTime).append("_id", new Document("$lt", new ObjectId()))));
+        List<HotQuery> queries = List.of(
+                new HotQuery("recent messages", "messages", byUser, newestFirst, 10),
+                new HotQuery("message page", "messages", byUser, newestFirstById, 31),
+                new HotQuery("message page after cursor", "messages", beforeCursor, newestFirstById, 31),
+                new HotQuery("recent cognitive messages", "cognitive_messages", byUser, newestFirst, 10),
+                new HotQuery("cognitive page after cursor", "cognitive_messages", beforeCursor, newestFirstById, 31),
+                new HotQuery("played games", "cognitive_messages",
+                        new Document("userId", "index-check").append("gameId", new Document("$exists", true)), null, 0),
+                new HotQuery("upcoming reminders", "reminders",
+                        new Document("userId", "index-check").append("timestamp", new Document("$gt", Instant.now())),
+                        new Document("timestamp", 1), 10),
+                new HotQuery("user by username", "users", new Document("username", "index-check"), null, 1));
+
+        List<String> scans = new ArrayList<>();
+        for (HotQuery query : queries) {
+            var find = mongoTemplate.getCollection(query.collection()).find(query.filter()).limit(query.limit());
+            if (query.sort() != null) find = find.sort(query.sort());
+
+            Document plan = find.explain().get("queryPlanner", Document.class).get("winningPlan", Document.class);
+            if (containsStage(plan, "COLLSCAN")) {
+                scans.add(query.name() + " (" + query.collection() + ")");
+            } else if (containsStage(plan, "SORT")) {
+                scans.add(query.name() + " (" + query.collection() + ", sorted in memory)");
+            }
+        }
+
+        if (scans.isEmpty()) return;
+        String message = "Hot Mongo queries are not fully served by an index: " + String.join(", ", scans);
+        if (requireIndexScans) {
+            throw new IllegalStateException(message);
+        }
+        System.err.println(message);
+    }
+
+    /** Walks a plan tree looking for the given stage. */
+    private static boolean containsStage(Object node, String stage) {
+        if (node instanceof Document document) {
+            if (stage.equals(document.getString("stage"))) return true;
+            for (Object child : document.values()) {
+                if (containsStage(child, stage)) return true;
+            }
+        } else if (node instanceof List<?> children) {
+            for (Object child : children) {
+                if (containsStage(child, stage)) return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.ai_companion.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.web.reactive.config.BlockingExecutionConfigurer;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+/**
+ * WebFlux setup for the "reactive" profile.
+ *
+ * Controllers that still have blocking signatures (auth, reminders, introductions) are run on
+ * bounded virtual threads instead of the event loop.
+ */
+@Configuration
+@Profile("reactive")
+@EnableWebFluxSecurity
+public class ReactiveConfig implements WebFluxConfigurer {
+
+    @Value("${companion.reactive.blocking-concurrency:256}")
+    private int blockingConcurrency;
+
+    @Override
+    public void configureBlockingExecution(BlockingExecutionConfigurer configurer) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("blocking-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(blockingConcurrency);
+        configurer.setExecutor(executor);
+    }
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+        return http
+            .csrf(csrf -> csrf.disable())
+            .authorizeExchange(auth -> auth.anyExchange().permitAll())
+            .build();
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.ai_companion.config;
+
+import com.example.ai_companion.model.Reminder;
+import com.example.ai_companion.service.ReminderNotifier;
+import com.example.ai_companion.utils.logger;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Default reminder notification wiring.
+ */
+@Configuration
+public class ReminderConfig {
+
+    /** Logs reminder events to the user's log when no other notifier is configured. */
+    @Bean
+    @ConditionalOnMissingBean
+    public ReminderNotifier reminderNotifier() {
+        return new ReminderNotifier() {
+            @Override
+            public void onDue(Reminder reminder) {
+                logger.logToFile(reminder.getUserId(), "Reminder due: " + reminder.getMessage() + " at " + reminder.getTimestamp());
+            }
+
+            @Override
+            public void onMissed(Reminder reminder) {
+                logger.logToFile(reminder.getUserId(), "Reminder missed: " + reminder.getMessage() + " at " + reminder.getTimestamp());
+            }
+        };
+    }
+}
@@ -1,18 +1,27 @@
 package com.example.ai_companion.controller;
 
+import com.example.ai_companion.model.HistoryPage;
 import com.example.ai_companion.model.Message;
 import com.example.ai_companion.repository.MessageRepository;
+import com.example.ai_companion.service.ConversationSummarizer;
+import com.example.ai_companion.service.HistoryPager;
 import com.example.ai_companion.service.LLMService;
 import com.example.ai_companion.service.MemoryService;
+import com.example.ai_companion.service.RecentMessageCache;
 import com.example.ai_companion.utils.logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Controller for handling chat-related actions, including asking questions,
@@ -20,6 +29,7 @@ import java.util.List;
  */
 @RestController
 @RequestMapping("/memory")
+@Profile("!reactive")
 public class ChatController {
 
     @Autowired
@@ -31,6 +41,18 @@ public class ChatController {
     @Autowired
     private MessageRepository messageRepository;
 
+    @Autowired
+    private RecentMessageCache<Message> chatHistoryCache;
+
+    @Autowired
+    private HistoryPager historyPager;
+
+    @Autowired
+    private ExecutorService promptExecutor;
+
+    @Autowired
+    private ConversationSummarizer conversationSummarizer;
+
     /**
      * Handles a new user question and returns the assistant's response.
      *
@@ -44,6 +66,22 @@ public class ChatController {
         return llmService.generateAndTrack(userId, question);
     }
 
+    /**
+     * Handles a new user question and streams the assistant's response as Server-Sent Events.
+     * Emits a "token" event for each partial response followed by a single "done" event.
+     * The emitter is returned at once; the prompt is built on the prompt executor.
+     *
+     * @param userId   The ID of the user sending the question.
+     * @param question The user's message.
+     * @return An emitter that streams the response as it is generated.
+     */
+    @PostMapping(value = "/ask/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter askStream(@RequestParam String userId, @RequestBody String question) {
+        logger.logToFile(userId, "new question");
+        return SseResponseHandler.streamAsync(promptExecutor,
+                handler -> llmService.streamAndTrack(userId, question, handler));
+    }
+
     /**
      * Stores introductory information provided by the user to personalise future responses.
      *
@@ -55,7 +93,7 @@ public class ChatController {
     public ResponseEntity<String> introduce(@RequestParam String userId, @RequestBody String introText) {
         try {
             String fakeAssistantResponse = "Thanks for introducing yourself. I'll remember that.";
-            boolean success = memoryService.extractAndStoreInsights(userId, introText, fakeAssistantResponse);
+            boolean success = memoryService.storeIntroduction(userId, introText, fakeAssistantResponse);
 
             if (success) {
                 return ResponseEntity.ok("Introduction stored.");
@@ -88,6 +126,25 @@ public class ChatController {
         return ResponseEntity.ok(recentMessages);
     }
 
+    /**
+     * Retrieves the 30 messages just older than the given cursor, using keyset pagination.
+     *
+     * @param userId The ID of the user.
+     * @param before The cursor returned with the previous page; omit it for the newest messages.
+     * @return The messages ordered from oldest to newest, and the cursor for the next older page,
+     *         or HTTP 400 if the cursor is malformed.
+     */
+    @GetMapping("/chats/cursor")
+    public ResponseEntity<HistoryPage<Message>> getChatsBefore(
+            @RequestParam String userId,
+            @RequestParam(required = false) String before) {
+        try {
+            return ResponseEntity.ok(historyPager.before(Message.class, userId, before, Message::getTimestamp, Message::getId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * Deletes a message by its ID.
      *
@@ -96,10 +153,13 @@ public class ChatController {
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteMessage(@PathVariable String id) {
-        if (!messageRepository.existsById(id)) {
+        Optional<Message> message = messageRepository.findById(id);
+        if (message.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
         messageRepository.deleteById(id);
+        chatHistoryCache.invalidate(message.get().getUserId());
+        conversationSummarizer.forget(message.get().getUserId(), message.get().getTimestamp());
         return ResponseEntity.noContent().build();
     }
 }
\ No newline at end of file
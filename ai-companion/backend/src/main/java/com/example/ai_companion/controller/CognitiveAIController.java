@@ -1,22 +1,31 @@
 package com.example.ai_companion.controller;
 
 import com.example.ai_companion.model.CognitiveMessage;
+import com.example.ai_companion.model.HistoryPage;
 import com.example.ai_companion.repository.CognitiveMessageRepository;
 import com.example.ai_companion.service.CognitiveAIService;
+import com.example.ai_companion.service.HistoryPager;
+import com.example.ai_companion.service.RecentMessageCache;
 import com.example.ai_companion.utils.logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Controller for handling cognitive AI interactions focused on game generation and engagement.
  */
 @RestController
 @RequestMapping("/cognitive")
+@Profile("!reactive")
 public class CognitiveAIController {
 
     @Autowired
@@ -25,6 +34,15 @@ public class CognitiveAIController {
     @Autowired
     private CognitiveMessageRepository cognitiveMessageRepository;
 
+    @Autowired
+    private RecentMessageCache<CognitiveMessage> cognitiveHistoryCache;
+
+    @Autowired
+    private HistoryPager historyPager;
+
+    @Autowired
+    private ExecutorService promptExecutor;
+
     /**
      * Handles a user prompt related to cognitive games and returns an AI-generated response.
      *
@@ -37,6 +55,21 @@ public class CognitiveAIController {
         return cognitiveAIService.generateGamePrompt(userId, prompt);
     }
 
+    /**
+     * Handles a cognitive game prompt and streams the AI response as Server-Sent Events.
+     * Emits a "token" event for each partial response followed by a single "done" event.
+     * The emitter is returned at once; the game or prompt is prepared on the prompt executor.
+     *
+     * @param userId  The ID of the user.
+     * @param prompt  The user's input.
+     * @return An emitter that streams the response as it is generated.
+     */
+    @PostMapping(value = "/ask/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter askStream(@RequestParam String userId, @RequestBody String prompt) {
+        return SseResponseHandler.streamAsync(promptExecutor,
+                handler -> cognitiveAIService.streamGamePrompt(userId, prompt, handler));
+    }
+
     /**
      * Retrieves paginated cognitive message history.
      *
@@ -56,6 +89,25 @@ public class CognitiveAIController {
         return ResponseEntity.ok(messages);
     }
 
+    /**
+     * Retrieves the 30 cognitive messages just older than the given cursor, using keyset pagination.
+     *
+     * @param userId The ID of the user.
+     * @param before The cursor returned with the previous page; omit it for the newest messages.
+     * @return Messages in chronological order and the cursor for the next older page, or 400 if the cursor is malformed.
+     */
+    @GetMapping("/chats/cursor")
+    public ResponseEntity<HistoryPage<CognitiveMessage>> getChatsBefore(
+            @RequestParam String userId,
+            @RequestParam(required = false) String before) {
+        try {
+            return ResponseEntity.ok(historyPager.before(CognitiveMessage.class, userId, before,
+                    CognitiveMessage::getTimestamp, CognitiveMessage::getId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * Deletes a specific cognitive message by ID.
      *
@@ -64,10 +116,12 @@ public class CognitiveAIController {
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteMessage(@PathVariable String id) {
-        if (!cognitiveMessageRepository.existsById(id)) {
+        Optional<CognitiveMessage> message = cognitiveMessageRepository.findById(id);
+        if (message.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
         cognitiveMessageRepository.deleteById(id);
+        cognitiveHistoryCache.invalidate(message.get().getUserId());
         return ResponseEntity.noContent().build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,164 @@
+package com.example.ai_companion.controller;
+
+import com.example.ai_companion.model.HistoryPage;
+import com.example.ai_companion.model.Message;
+import com.example.ai_companion.repository.reactive.ReactiveMessageRepository;
+import com.example.ai_companion.service.ConversationSummarizer;
+import com.example.ai_companion.service.HistoryPager;
+import com.example.ai_companion.service.MemoryService;
+import com.example.ai_companion.service.ReactiveChatService;
+import com.example.ai_companion.service.RecentMessageCache;
+import com.example.ai_companion.utils.logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * WebFlux version of {@link ChatController}, active with the "reactive" profile.
+ * Serves the same endpoints; the chat endpoints never block a request thread.
+ */
+@RestController
+@RequestMapping("/memory")
+@Profile("reactive")
+public class ReactiveChatController {
+
+    @Autowired
+    private ReactiveChatService reactiveChatService;
+
+    @Autowired
+    private MemoryService memoryService;
+
+    @Autowired
+    private ReactiveMessageRepository messageRepository;
+
+    @Autowired
+    private RecentMessageCache<Message> chatHistoryCache;
+
+    @Autowired
+    private HistoryPager historyPager;
+
+    @Autowired
+    private ConversationSummarizer conversationSummarizer;
+
+    /**
+     * Handles a new user question and returns the assistant's response.
+     *
+     * @param userId   The ID of the user sending the question.
+     * @param question The user's message.
+     * @return The assistant's response as a plain string.
+     */
+    @PostMapping("/ask")
+    public Mono<String> ask(@RequestParam String userId, @RequestBody String question) {
+        logger.logToFile(userId, "new question");
+        return reactiveChatService.generateAndTrack(userId, question);
+    }
+
+    /**
+     * Streams the assistant's response as Server-Sent Events: a "token" event for each partial
+     * response followed by a single "done" event, or an "error" event on failure.
+     *
+     * @param userId   The ID of the user sending the question.
+     * @param question The user's message.
+     * @return The event stream.
+     */
+    @PostMapping(value = "/ask/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> askStream(@RequestParam String userId, @RequestBody String question) {
+        logger.logToFile(userId, "new question");
+        return ReactiveEvents.stream(reactiveChatService.streamAndTrack(userId, question));
+    }
+
+    /**
+     * Stores introductory information provided by the user to personalise future responses.
+     * Runs on the blocking executor.
+     *
+     * @param userId    The ID of the user.
+     * @param introText The introduction text provided by the user.
+     * @return A confirmation message or an error status.
+     */
+    @PostMapping("/introduce")
+    public ResponseEntity<String> introduce(@RequestParam String userId, @RequestBody String introText) {
+        try {
+            String fakeAssistantResponse = "Thanks for introducing yourself. I'll remember that.";
+            boolean success = memoryService.storeIntroduction(userId, introText, fakeAssistantResponse);
+
+            if (success) {
+                return ResponseEntity.ok("Introduction stored.");
+            } else {
+                return ResponseEntity.status(404).body("User not found. Introduction not saved.");
+            }
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Internal error during introduction: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves the 30 most recent messages for the given user, with pagination support.
+     *
+     * @param userId The ID of the user.
+     * @param page   The page number to retrieve (default is 0).
+     * @return A list of the user's recent messages, ordered from oldest to newest.
+     */
+    @GetMapping("/chats")
+    public Mono<List<Message>> getChats(
+            @RequestParam String userId,
+            @RequestParam(required = false, defaultValue = "0") int page) {
+
+        PageRequest pageRequest = PageRequest.of(page, 30, Sort.by(Sort.Direction.DESC, "timestamp"));
+        return messageRepository.findByUserId(userId, pageRequest)
+                .collectList()
+                .map(messages -> {
+                    List<Message> chronological = new ArrayList<>(messages);
+                    Collections.reverse(chronological);
+                    return chronological;
+                });
+    }
+
+    /**
+     * Retrieves the 30 messages just older than the given cursor, using keyset pagination.
+     * Runs on the blocking executor.
+     *
+     * @param userId The ID of the user.
+     * @param before The cursor returned with the previous page; omit it for the newest messages.
+     * @return The messages ordered from oldest to newest, and the cursor for the next older page,
+     *         or HTTP 400 if the cursor is malformed.
+     */
+    @GetMapping("/chats/cursor")
+    public ResponseEntity<HistoryPage<Message>> getChatsBefore(
+            @RequestParam String userId,
+            @RequestParam(required = false) String before) {
+        try {
+            return ResponseEntity.ok(historyPager.before(Message.class, userId, before, Message::getTimestamp, Message::getId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Deletes a message by its ID.
+     *
+     * @param id The ID of the message to delete.
+     * @return HTTP 204 if successful, or HTTP 404 if the message does not exist.
+     */
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteMessage(@PathVariable String id) {
+        return messageRepository.findById(id)
+                .flatMap(message -> messageRepository.deleteById(id)
+                        .then(Mono.fromRunnable(() -> chatHistoryCache.invalidate(message.getUserId())))
+                        .then(Mono.fromRunnable(() -> conversationSummarizer.forget(message.getUserId(), message.getTimestamp()))
+                                .subscribeOn(Schedulers.boundedElastic()))
+                        .thenReturn(ResponseEntity.noContent().<Void>build()))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.ai_companion.controller;
+
+import com.example.ai_companion.model.CognitiveMessage;
+import com.example.ai_companion.model.HistoryPage;
+import com.example.ai_companion.repository.reactive.ReactiveCognitiveMessageRepository;
+import com.example.ai_companion.service.HistoryPager;
+import com.example.ai_companion.service.ReactiveCognitiveAIService;
+import com.example.ai_companion.service.RecentMessageCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * WebFlux version of {@link CognitiveAIController}, active with the "reactive" profile.
+ */
+@RestController
+@RequestMapping("/cognitive")
+@Profile("reactive")
+public class ReactiveCognitiveAIController {
+
+    @Autowired
+    private ReactiveCognitiveAIService cognitiveAIService;
+
+    @Autowired
+    private ReactiveCognitiveMessageRepository cognitiveMessageRepository;
+
+    @Autowired
+    private RecentMessageCache<CognitiveMessage> cognitiveHistoryCache;
+
+    @Autowired
+    private HistoryPager historyPager;
+
+    /**
+     * Handles a user prompt related to cognitive games and returns an AI-generated response.
+     *
+     * @param userId  The ID of the user.
+     * @param prompt  The user's input.
+     * @return AI-generated response.
+     */
+    @PostMapping("/ask")
+    public Mono<String> ask(@RequestParam String userId, @RequestBody String prompt) {
+        return cognitiveAIService.generateGamePrompt(userId, prompt);
+    }
+
+    /**
+     * Streams the AI response to a cognitive game prompt as Server-Sent Events.
+     *
+     * @param userId  The ID of the user.
+     * @param prompt  The user's input.
+     * @return The event stream.
+     */
+    @PostMapping(value = "/ask/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> askStream(@RequestParam String userId, @RequestBody String prompt) {
+        return ReactiveEvents.stream(cognitiveAIService.streamGamePrompt(userId, prompt));
+    }
+
+    /**
+     * Retrieves paginated cognitive message history.
+     *
+     * @param userId The ID of the user.
+     * @param page   The page number for pagination.
+     * @return List of cognitive interaction messages.
+     */
+    @GetMapping("/chats")
+    public Mono<List<CognitiveMessage>> getChats(
+            @RequestParam String userId,
+            @RequestParam(defaultValue = "0") int page) {
+
+        PageRequest pageRequest = PageRequest.of(page, 30, Sort.by(Sort.Direction.DESC, "timestamp"));
+        return cognitiveMessageRepository.findByUserId(userId, pageRequest)
+                .collectList()
+                .map(messages -> {
+                    List<CognitiveMessage> chronological = new ArrayList<>(messages);
+                    Collections.reverse(chronological);
+                    return chronological;
+                });
+    }
+
+    /**
+     * Retrieves the 30 cognitive messages just older than the given cursor, using keyset pagination.
+     * Runs on the blocking executor.
+     *
+     * @param userId The ID of the user.
+     * @param before The cursor returned with the previous page; omit it for the newest messages.
+     * @return Messages in chronological order and the cursor for the next older page, or 400 if the cursor is malformed.
+     */
+    @GetMapping("/chats/cursor")
+    public ResponseEntity<HistoryPage<CognitiveMessage>> getChatsBefore(
+            @RequestParam String userId,
+            @RequestParam(required = false) String before) {
+        try {
+            return ResponseEntity.ok(historyPager.before(CognitiveMessage.class, userId, before,
+                    CognitiveMessage::getTimestamp, CognitiveMessage::getId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Deletes a specific cognitive message by ID.
+     *
+     * @param id The message ID to delete.
+     * @return HTTP 204 if successful, 404 if not found.
+     */
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteMessage(@PathVariable String id) {
+        return cognitiveMessageRepository.findById(id)
+                .flatMap(message -> cognitiveMessageRepository.deleteById(id)
+                        .then(Mono.fromRunnable(() -> cognitiveHistoryCache.invalidate(message.getUserId())))
+                        .thenReturn(ResponseEntity.noContent().<Void>build()))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+}
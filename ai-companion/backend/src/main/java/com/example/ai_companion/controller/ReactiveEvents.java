@@ -0,0 +1,21 @@
+package com.example.ai_companion.controller;
+
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+
+/**
+ * Maps a token stream onto the same Server-Sent Events protocol as {@link SseResponseHandler}:
+ * a "token" event per partial response, then "done", or "error" on failure.
+ */
+final class ReactiveEvents {
+
+    private ReactiveEvents() {
+    }
+
+    static Flux<ServerSentEvent<String>> stream(Flux<String> tokens) {
+        return tokens
+                .map(token -> ServerSentEvent.builder(token).event("token").build())
+                .concatWith(Flux.just(ServerSentEvent.builder("").event("done").build()))
+                .onErrorResume(error -> Flux.just(ServerSentEvent.builder("Failed to generate a response.").event("error").build()));
+    }
+}
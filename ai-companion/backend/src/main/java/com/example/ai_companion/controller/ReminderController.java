@@ -2,6 +2,7 @@ package com.example.ai_companion.controller;
 
 import com.example.ai_companion.model.Reminder;
 import com.example.ai_companion.repository.ReminderRepository;
+import com.example.ai_companion.service.ReminderScheduler;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.*;
 import org.springframework.http.ResponseEntity;
@@ -20,6 +21,9 @@ public class ReminderController {
     @Autowired
     private ReminderRepository reminderRepository;
 
+    @Autowired
+    private ReminderScheduler reminderScheduler;
+
     /**
      * Create a new reminder.
      *
@@ -29,6 +33,7 @@ public class ReminderController {
     @PostMapping
     public ResponseEntity<Reminder> createReminder(@RequestBody Reminder reminder) {
         Reminder saved = reminderRepository.save(reminder);
+        reminderScheduler.onSaved(saved);
         return ResponseEntity.ok(saved);
     }
 
@@ -75,6 +80,7 @@ public class ReminderController {
         if (updates.getStatus() != null) existing.updateStatus(updates.getStatus());
 
         Reminder saved = reminderRepository.save(existing);
+        reminderScheduler.onSaved(saved);
         return ResponseEntity.ok(saved);
     }
 
@@ -90,6 +96,7 @@ public class ReminderController {
             return ResponseEntity.notFound().build();
         }
         reminderRepository.deleteById(id);
+        reminderScheduler.onDeleted(id);
         return ResponseEntity.noContent().build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+package com.example.ai_companion.controller;
+
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Relays a streaming LLM response to the client as Server-Sent Events.
+ * Sends a "token" event per partial response, then a "done" event, or an "error" event on failure.
+ * If the client disconnects mid-stream, remaining tokens are dropped but the response still completes server-side.
+ */
+class SseResponseHandler implements StreamingChatResponseHandler {
+
+    /** How long an SSE connection may stay open before the container times it out. */
+    static final long STREAM_TIMEOUT_MS = 120_000;
+
+    private final SseEmitter emitter;
+    private volatile boolean clientGone = false;
+
+    /**
+     * Opens an emitter and starts the stream on the executor, so the caller can return the
+     * emitter before any prompt is built. If starting the stream fails or the executor is
+     * saturated, the emitter completes with an "error" event.
+     *
+     * @param executor runs the prompt building and starts the stream
+     * @param stream   builds the prompt and streams the response to the handler
+     */
+    static SseEmitter streamAsync(Executor executor, Consumer<StreamingChatResponseHandler> stream) {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        SseResponseHandler handler = new SseResponseHandler(emitter);
+        try {
+            executor.execute(() -> {
+                try {
+                    stream.accept(handler);
+                } catch (Exception e) {
+                    System.err.println("Failed to start response stream: " + e.getMessage());
+                    handler.onError(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            System.err.println("Response stream rejected: prompt pool is saturated");
+            handler.onError(e);
+        }
+        return emitter;
+    }
+
+    SseResponseHandler(SseEmitter emitter) {
+        this.emitter = emitter;
+        emitter.onCompletion(() -> clientGone = true);
+        emitter.onTimeout(() -> clientGone = true);
+        emitter.onError(e -> clientGone = true);
+    }
+
+    @Override
+    public void onPartialResponse(String partialResponse) {
+        send("token", partialResponse);
+    }
+
+    @Override
+    public void onCompleteResponse(ChatResponse completeResponse) {
+        send("done", "");
+        emitter.complete();
+    }
+
+    @Override
+    public void onError(Throwable error) {
+        send("error", "Failed to generate a response.");
+        emitter.completeWithError(error);
+    }
+
+    private void send(String event, String data) {
+        if (clientGone) return;
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data));
+        } catch (IOException | IllegalStateException e) {
+            clientGone = true;
+        }
+    }
+}
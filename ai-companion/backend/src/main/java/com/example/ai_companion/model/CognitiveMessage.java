@@ -2,6 +2,7 @@ package com.example.ai_companion.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
@@ -11,6 +12,9 @@ import java.time.Instant;
  */
 @Data
 @Document(collection = "cognitive_messages")
+@CompoundIndex(name = "userId_timestamp_id", def = "{'userId': 1, 'timestamp': -1, '_id': -1}")
+@CompoundIndex(name = "userId_gameId", def = "{'userId': 1, 'gameId': 1}",
+        partialFilter = "{'gameId': {'$exists': true}}")
 public class CognitiveMessage {
 
     @Id
@@ -21,6 +25,9 @@ public class CognitiveMessage {
     private boolean fromUser;
     private Instant timestamp;
 
+    /** The game bank entry this reply served, or null for replies written by the LLM. */
+    private String gameId;
+
     public CognitiveMessage(String userId, String text, boolean fromUser, Instant timestamp) {
         this.userId = userId;
         this.text = text;
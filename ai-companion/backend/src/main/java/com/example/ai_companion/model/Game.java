@@ -0,0 +1,42 @@
+package com.example.ai_companion.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A ready-made cognitive activity, served from the game bank without an LLM call.
+ */
+@Data
+@Document(collection = "games")
+@CompoundIndex(name = "type_difficulty", def = "{'type': 1, 'difficulty': 1}")
+public class Game {
+
+    @Id
+    private String id;
+
+    private GameType type;
+    private GameDifficulty difficulty;
+
+    /** Interests the game is themed around, from {@code GameBank.INTERESTS}; empty for general games. */
+    private List<String> interests;
+
+    /** The opening message of the activity, as the assistant would say it. */
+    private String text;
+
+    private Instant createdAt = Instant.now();
+
+    public Game() {
+    }
+
+    public Game(GameType type, GameDifficulty difficulty, List<String> interests, String text) {
+        this.type = type;
+        this.difficulty = difficulty;
+        this.interests = interests;
+        this.text = text;
+    }
+}
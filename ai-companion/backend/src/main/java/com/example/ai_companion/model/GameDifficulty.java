@@ -0,0 +1,10 @@
+package com.example.ai_companion.model;
+
+/**
+ * How demanding a cognitive game is, from gentle warm-ups to proper puzzles.
+ */
+public enum GameDifficulty {
+    EASY,
+    MEDIUM,
+    HARD
+}
@@ -0,0 +1,13 @@
+package com.example.ai_companion.model;
+
+/**
+ * The kinds of activity held in the cognitive game bank.
+ */
+public enum GameType {
+    WORD,
+    MEMORY,
+    TRIVIA,
+    RIDDLE,
+    NUMBER,
+    REMINISCENCE
+}
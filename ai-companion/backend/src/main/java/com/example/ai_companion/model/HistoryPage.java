@@ -0,0 +1,12 @@
+package com.example.ai_companion.model;
+
+import java.util.List;
+
+/**
+ * One page of message history, oldest first, with the cursor for the next older page.
+ *
+ * @param messages   the messages in chronological order
+ * @param nextCursor token to pass as {@code before} for older messages, or null if there are none
+ */
+public record HistoryPage<T>(List<T> messages, String nextCursor) {
+}
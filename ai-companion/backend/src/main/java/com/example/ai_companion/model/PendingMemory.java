@@ -0,0 +1,40 @@
+package com.example.ai_companion.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * A memory waiting in the outbox to be written to the memory store.
+ */
+@Data
+@Document(collection = "memory_outbox")
+public class PendingMemory {
+
+    @Id
+    private String id;
+
+    private String userId;
+    private String text;
+    private Instant timestamp;
+    private int attempts;
+    /** When the memory is next due; null once it has been dead-lettered. */
+    @Indexed
+    private Instant nextAttemptAt;
+    /** When the outbox gave up on the memory after its last allowed attempt, or null. */
+    private Instant deadLetteredAt;
+
+    public PendingMemory() {
+    }
+
+    public PendingMemory(String userId, String text, Instant timestamp) {
+        this.userId = userId;
+        this.text = text;
+        this.timestamp = timestamp;
+        this.attempts = 0;
+        this.nextAttemptAt = timestamp;
+    }
+}
@@ -2,11 +2,13 @@ package com.example.ai_companion.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.Instant;
 
 @Data
 @Document(collection = "reminders")
+@CompoundIndex(name = "userId_timestamp", def = "{'userId': 1, 'timestamp': 1}")
 public class Reminder {
 
     @Id
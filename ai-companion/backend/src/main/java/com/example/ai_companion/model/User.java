@@ -2,8 +2,11 @@ package com.example.ai_companion.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.Instant;
+
 @Data
 @Document(collection = "users")
 public class User {
@@ -11,9 +14,14 @@ public class User {
     @Id
     private String id; 
 
+    @Indexed(unique = true)
     private String username;
     private String password;
 
     private String coreInformation;
 
+    /** Rolling summary of the conversation up to and including the message at {@code summarizedThrough}. */
+    private String conversationSummary;
+    private Instant summarizedThrough;
+
 }
@@ -3,6 +3,7 @@ package com.example.ai_companion.repository;
 import com.example.ai_companion.model.CognitiveMessage;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -16,4 +17,8 @@ public interface CognitiveMessageRepository extends MongoRepository<CognitiveMes
     List<CognitiveMessage> findByUserId(String userId);
     List<CognitiveMessage> findTop10ByUserIdOrderByTimestampDesc(String userId);
     List<CognitiveMessage> findByUserId(String userId, Pageable pageable);
+
+    /** Loads only the fields needed to render cognitive history. */
+    @Query(value = "{ 'userId': ?0 }", fields = "{ 'userId': 1, 'text': 1, 'fromUser': 1, 'timestamp': 1 }")
+    List<CognitiveMessage> findHistoryByUserId(String userId, Pageable pageable);
 }
\ No newline at end of file
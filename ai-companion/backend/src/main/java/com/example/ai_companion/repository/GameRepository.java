@@ -0,0 +1,12 @@
+package com.example.ai_companion.repository;
+
+import com.example.ai_companion.model.Game;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for the pre-generated cognitive games.
+ */
+@Repository
+public interface GameRepository extends MongoRepository<Game, String> {
+}
@@ -2,6 +2,7 @@ package com.example.ai_companion.repository;
 
 import com.example.ai_companion.model.Message;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
@@ -11,4 +12,8 @@ public interface MessageRepository extends MongoRepository<Message, String> {
     List<Message> findTop10ByUserIdOrderByTimestampDesc(String userId);  
     List<Message> findByUserId(String userId, Pageable pageable);
 
+    /** Loads only the fields needed to render chat history. */
+    @Query(value = "{ 'userId': ?0 }", fields = "{ 'userId': 1, 'text': 1, 'fromUser': 1, 'timestamp': 1 }")
+    List<Message> findHistoryByUserId(String userId, Pageable pageable);
+
 }
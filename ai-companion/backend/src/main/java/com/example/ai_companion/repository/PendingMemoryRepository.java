@@ -0,0 +1,21 @@
+package com.example.ai_companion.repository;
+
+import com.example.ai_companion.model.PendingMemory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Repository for the durable outbox of memories awaiting the memory store.
+ */
+@Repository
+public interface PendingMemoryRepository extends MongoRepository<PendingMemory, String> {
+    List<PendingMemory> findByNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(Instant now, Pageable pageable);
+
+    long countByDeadLetteredAtIsNull();
+
+    long countByDeadLetteredAtIsNotNull();
+}
@@ -4,6 +4,7 @@ import com.example.ai_companion.model.Reminder;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.domain.Pageable;
 
@@ -15,4 +16,10 @@ import java.util.List;
 public interface ReminderRepository extends MongoRepository<Reminder, String> {
     List<Reminder> findTop10ByUserIdAndTimestampGreaterThanOrderByTimestampAsc(String userId, Instant now);
     Page<Reminder> findByUserId(String userId, Pageable pageable);
+
+    /** Loads only the title, description and due time of a user's upcoming reminders. */
+    @Query(value = "{ 'userId': ?0, 'timestamp': { '$gt': ?1 } }",
+           fields = "{ 'userId': 1, 'message': 1, 'description': 1, 'timestamp': 1 }",
+           sort = "{ 'timestamp': 1 }")
+    List<Reminder> findUpcomingSummaries(String userId, Instant now, Pageable pageable);
 }
\ No newline at end of file
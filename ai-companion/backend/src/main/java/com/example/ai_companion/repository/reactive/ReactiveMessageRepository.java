@@ -0,0 +1,20 @@
+package com.example.ai_companion.repository.reactive;
+
+import com.example.ai_companion.model.Message;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+/**
+ * Non-blocking access to chat messages, used by the reactive profile.
+ */
+@Repository
+public interface ReactiveMessageRepository extends ReactiveMongoRepository<Message, String> {
+    Flux<Message> findByUserId(String userId, Pageable pageable);
+
+    /** Loads only the fields needed to render chat history. */
+    @Query(value = "{ 'userId': ?0 }", fields = "{ 'userId': 1, 'text': 1, 'fromUser': 1, 'timestamp': 1 }")
+    Flux<Message> findHistoryByUserId(String userId, Pageable pageable);
+}
@@ -0,0 +1,24 @@
+package com.example.ai_companion.repository.reactive;
+
+import com.example.ai_companion.model.Reminder;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.time.Instant;
+
+/**
+ * Non-blocking access to reminders, used by the reactive profile.
+ */
+@Repository
+public interface ReactiveReminderRepository extends ReactiveMongoRepository<Reminder, String> {
+    Flux<Reminder> findByUserId(String userId, Pageable pageable);
+
+    /** Loads only the title, description and due time of a user's upcoming reminders. */
+    @Query(value = "{ 'userId': ?0, 'timestamp': { '$gt': ?1 } }",
+           fields = "{ 'userId': 1, 'message': 1, 'description': 1, 'timestamp': 1 }",
+           sort = "{ 'timestamp': 1 }")
+    Flux<Reminder> findUpcomingSummaries(String userId, Instant now, Pageable pageable);
+}
@@ -0,0 +1,19 @@
+package com.example.ai_companion.service;
+
+/**
+ * Context gathered for a single chat turn before the main completion is requested.
+ *
+ * @param coreInfo      the user's long-term core information, or "none"
+ * @param summary       the rolling summary of earlier conversation, or "none"
+ * @param chatHistory   the recent conversation not yet summarised, oldest first
+ * @param reminderBlock the user's upcoming reminders, or "none"
+ * @param memoryQuery   the rewritten memory search query, or "none"
+ * @param memoryContext memories recalled for the query, or "none"
+ */
+public record ChatContext(String coreInfo,
+                          String summary,
+                          String chatHistory,
+                          String reminderBlock,
+                          String memoryQuery,
+                          String memoryContext) {
+}
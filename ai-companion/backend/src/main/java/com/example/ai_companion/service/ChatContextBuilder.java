@@ -0,0 +1,185 @@
+package com.example.ai_companion.service;
+
+import com.example.ai_companion.model.Message;
+import com.example.ai_companion.model.Reminder;
+import com.example.ai_companion.model.User;
+import com.example.ai_companion.repository.ReminderRepository;
+import com.example.ai_companion.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Assembles the context for a chat turn by running the independent stages concurrently:
+ * - User lookup and upcoming reminders are read in parallel
+ * - Chat history follows the user lookup, keeping only messages the conversation summary does not cover
+ * - The memory query rewrite starts once core info and history are available, followed by recall
+ * - Short or phatic messages skip the rewrite and recall entirely
+ *
+ * Every stage has its own deadline and falls back to "none", so a turn waits for the
+ * slowest stage rather than the sum of all of them.
+ */
+@Service
+public class ChatContextBuilder {
+
+    private static final String NONE = "none";
+
+    @Autowired private MemoryQueryRewriter memoryQueryRewriter;
+    @Autowired private UserRepository userRepository;
+    @Autowired private RecentMessageCache<Message> chatHistoryCache;
+    @Autowired private ReminderRepository reminderRepository;
+    @Autowired private MemoryStore memoryStore;
+    @Autowired private RecallCache recallCache;
+    @Autowired private ExecutorService contextExecutor;
+    @Autowired private PipelineMetrics pipelineMetrics;
+    @Autowired private ConversationSummarizer conversationSummarizer;
+
+    @Value("${companion.context.user-timeout-ms:1000}")
+    private long userTimeoutMs;
+
+    @Value("${companion.context.history-timeout-ms:1000}")
+    private long historyTimeoutMs;
+
+    @Value("${companion.context.reminders-timeout-ms:1000}")
+    private long remindersTimeoutMs;
+
+    @Value("${companion.context.query-timeout-ms:4000}")
+    private long queryTimeoutMs;
+
+    @Value("${companion.context.recall-timeout-ms:2000}")
+    private long recallTimeoutMs;
+
+    /**
+     * Builds the context for the given user's query.
+     *
+     * @param userId the user ID
+     * @param query  the user's message
+     * @return the assembled context, with "none" for any stage that failed or timed out
+     */
+    public ChatContext build(String userId, String query) {
+        CompletableFuture<Optional<User>> user = stage("user lookup", userTimeoutMs,
+                () -> userRepository.findById(userId), Optional.empty());
+        CompletableFuture<String> coreInfo = user.thenApply(found -> found
+                .map(u -> u.getCoreInformation() != null ? u.getCoreInformation() : NONE)
+                .orElse(NONE));
+        CompletableFuture<String> summary = user.thenApply(found -> found
+                .map(u -> u.getConversationSummary() != null ? u.getConversationSummary() : NONE)
+                .orElse(NONE));
+        CompletableFuture<String> chatHistory = user.thenCompose(found -> stage("chat history", historyTimeoutMs,
+                () -> buildChatHistory(userId, found.map(User::getSummarizedThrough).orElse(null))));
+        CompletableFuture<String> reminderBlock = stage("reminders", remindersTimeoutMs, () -> buildUpcomingRemindersBlock(userId));
+
+        CompletableFuture<String> memoryQuery = !memoryQueryRewriter.needsRecall(query)
+                ? CompletableFuture.completedFuture(NONE)
+                : coreInfo
+                        .thenCombine(chatHistory, (core, history) -> {
+                            // Hand the stage's remaining time on, so the gateway never queues or retries a rewrite nobody awaits
+                            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(queryTimeoutMs);
+                            return stage("query rewrite", queryTimeoutMs, () -> memoryQueryRewriter.rewrite(query, history, core,
+                                    Duration.ofNanos(deadline - System.nanoTime())));
+                        })
+                        .thenCompose(rewrite -> rewrite);
+
+        CompletableFuture<String> memoryContext = memoryQuery.thenCompose(search -> NONE.equalsIgnoreCase(search.trim())
+                ? CompletableFuture.completedFuture(NONE)
+                : stage("recall", recallTimeoutMs, () -> fetchMemoryContext(userId, search)));
+
+        return new ChatContext(
+                coreInfo.join(),
+                summary.join(),
+                chatHistory.join(),
+                reminderBlock.join(),
+                memoryQuery.join(),
+                memoryContext.join());
+    }
+
+    /**
+     * Runs a single stage on the context executor, bounded by its own deadline.
+     * Failures, timeouts, rejections by a saturated pool and null results all resolve to "none".
+     */
+    private CompletableFuture<String> stage(String name, long timeoutMs, Supplier<String> task) {
+        return stage(name, timeoutMs, task, NONE);
+    }
+
+    /** Runs a single stage as above, resolving failures, timeouts and null results to the fallback. */
+    private <T> CompletableFuture<T> stage(String name, long timeoutMs, Supplier<T> task, T fallback) {
+        String stageTag = name.replace(' ', '_');
+        CompletableFuture<T> future;
+        try {
+            future = CompletableFuture.supplyAsync(() -> pipelineMetrics.time(stageTag, task), contextExecutor);
+        } catch (RejectedExecutionException e) {
+            // Pool saturated: skip the stage rather than run it on the request thread past its deadline
+            System.err.println("Context stage '" + name + "' rejected: context pool is saturated");
+            return CompletableFuture.completedFuture(fallback);
+        }
+        return future
+                .completeOnTimeout(null, timeoutMs, TimeUnit.MILLISECONDS)
+                .handle((result, error) -> {
+                    if (error != null) {
+                        System.err.println("Context stage '" + name + "' failed: " + error.getMessage());
+                        return fallback;
+                    }
+                    if (result == null) {
+                        System.err.println("Context stage '" + name + "' timed out after " + timeoutMs + "ms");
+                        return fallback;
+                    }
+                    return result;
+                });
+    }
+
+    /** Builds the user's recent messages not yet covered by the conversation summary, in chronological order. */
+    String buildChatHistory(String userId, Instant summarizedThrough) {
+        return formatHistory(conversationSummarizer.unsummarized(chatHistoryCache.recent(userId), summarizedThrough));
+    }
+
+    /** Formats messages, oldest first, as "User:" and "Assistant:" lines. */
+    static String formatHistory(List<Message> messages) {
+        StringBuilder sb = new StringBuilder();
+        for (Message m : messages) {
+            sb.append(m.isFromUser() ? "User: " : "Assistant: ")
+              .append(m.getText()).append("\n");
+        }
+        return sb.toString().trim();
+    }
+
+    /** Builds a block summarising the user's next 10 reminders. */
+    private String buildUpcomingRemindersBlock(String userId) {
+        return formatReminders(reminderRepository.findUpcomingSummaries(userId, Instant.now(), PageRequest.of(0, 10)));
+    }
+
+    /** Formats reminders as title, description and due time blocks, or "none". */
+    static String formatReminders(List<Reminder> reminders) {
+        if (reminders.isEmpty()) return NONE;
+
+        StringBuilder sb = new StringBuilder();
+        for (Reminder r : reminders) {
+            sb.append("Title: ").append(r.getMessage()).append("\n")
+              .append("Description: ").append(r.getDescription()).append("\n")
+              .append("Due: ").append(r.getTimestamp()).append("\n\n");
+        }
+        return sb.toString().trim();
+    }
+
+    /** Fetches memory context, from the recall cache when possible, otherwise from the memory store. */
+    private String fetchMemoryContext(String userId, String query) {
+        long generation = recallCache.generation(userId);
+        String cached = recallCache.get(userId, generation, query);
+        if (cached != null) return cached;
+
+        String memories = memoryStore.recall(userId, query);
+        if (memories == null) return NONE;
+
+        recallCache.put(userId, generation, query, memories);
+        return memories;
+    }
+}
@@ -1,32 +1,54 @@
 package com.example.ai_companion.service;
 
 import com.example.ai_companion.model.CognitiveMessage;
+import com.example.ai_companion.model.Game;
 import com.example.ai_companion.model.User;
 import com.example.ai_companion.repository.CognitiveMessageRepository;
 import com.example.ai_companion.utils.logger;
-import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
 import org.springframework.beans.factory.annotation.Autowired;
 import com.example.ai_companion.repository.UserRepository;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Service class for handling cognitive interaction logic and AI responses.
+ * Vague and opening requests are answered from the {@link GameBank}; the LLM handles free-form follow-ups.
  */
 @Service
 public class CognitiveAIService {
 
     @Autowired
-    private ChatLanguageModel gemini;
+    private LLMGateway llmGateway;
 
     @Autowired
     private CognitiveMessageRepository cognitiveMessageRepository;
 
+    @Autowired
+    private RecentMessageCache<CognitiveMessage> cognitiveHistoryCache;
+
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Autowired
+    private PromptBudgeter promptBudgeter;
+
+    @Autowired
+    private GameBank gameBank;
+
+    /** The context for a game turn: a game from the bank, or the prompt for the LLM. */
+    private record GameTurn(Game game, String prompt) {}
+
     /**
      * Handles a user query, stores messages, and returns the AI assistant's response.
      *
@@ -35,9 +57,106 @@ public class CognitiveAIService {
      * @return The assistant's generated response.
      */
     public String generateGamePrompt(String userId, String question) {
+        GameTurn turn = pipelineMetrics.time("game_context", () -> prepareTurn(userId, question));
+        if (turn.game() != null) {
+            logger.logToFile(userId, "CognitiveAI Game: " + turn.game().getId());
+            pipelineMetrics.time("game_persist", () -> persistTurn(userId, question, turn.game().getText(), turn.game().getId()));
+            return turn.game().getText();
+        }
+
+        String response = llmGateway.chat(PromptType.COGNITIVE_GAME, turn.prompt());
+        logger.logToFile(userId, "CognitiveAI Prompt: " + turn.prompt());
+        logger.logToFile(userId, "CognitiveAI Response: " + response);
+
+        pipelineMetrics.time("game_persist", () -> persistTurn(userId, question, response, null));
+        return response;
+    }
+
+    /**
+     * Streams the assistant's game response token by token and stores the turn once the stream completes.
+     *
+     * @param userId The user ID.
+     * @param question The user’s input message.
+     * @param handler Receives each partial token, the completed response, or an error.
+     */
+    public void streamGamePrompt(String userId, String question, StreamingChatResponseHandler handler) {
+        GameTurn turn = pipelineMetrics.time("game_context", () -> prepareTurn(userId, question));
+        if (turn.game() != null) {
+            String text = turn.game().getText();
+            logger.logToFile(userId, "CognitiveAI Game: " + turn.game().getId());
+            pipelineMetrics.time("game_persist", () -> persistTurn(userId, question, text, turn.game().getId()));
+            handler.onPartialResponse(text);
+            handler.onCompleteResponse(ChatResponse.builder().aiMessage(AiMessage.from(text)).build());
+            return;
+        }
+        String prompt = turn.prompt();
+        logger.logToFile(userId, "CognitiveAI Prompt: " + prompt);
+
+        llmGateway.stream(PromptType.COGNITIVE_GAME, prompt, new StreamingChatResponseHandler() {
+            @Override
+            public void onPartialResponse(String partialResponse) {
+                handler.onPartialResponse(partialResponse);
+            }
+
+            @Override
+            public void onCompleteResponse(ChatResponse completeResponse) {
+                String response = completeResponse.aiMessage().text();
+                logger.logToFile(userId, "CognitiveAI Response: " + response);
+
+                pipelineMetrics.time("game_persist", () -> persistTurn(userId, question, response, null));
+                handler.onCompleteResponse(completeResponse);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                logger.logToFile(userId, "CognitiveAI stream failed: " + error.getMessage());
+                handler.onError(error);
+            }
+        });
+    }
+
+    /**
+     * Serves the turn from the game bank if it can, otherwise builds the game master prompt
+     * from the user's profile and recent cognitive messages.
+     */
+    private GameTurn prepareTurn(String userId, String question) {
+        User user = userRepository.findById(userId).orElse(null);
+        String coreInfo = (user != null && user.getCoreInformation() != null) ? user.getCoreInformation() : "none";
+        List<CognitiveMessage> recentMessages = cognitiveHistoryCache.recent(userId);
+
+        Optional<Game> game = serveFromBank(userId, coreInfo, question, recentMessages);
+        return game.isPresent()
+                ? new GameTurn(game.get(), null)
+                : new GameTurn(null, budgetedGamePrompt(coreInfo, question, recentMessages));
+    }
+
+    /**
+     * Asks the game bank for a game, treating the message as a session opener if the user has been quiet.
+     */
+    Optional<Game> serveFromBank(String userId, String coreInfo, String question, List<CognitiveMessage> recentMessages) {
+        Instant lastActivity = recentMessages.isEmpty() ? null : recentMessages.get(recentMessages.size() - 1).getTimestamp();
+        return pipelineMetrics.time("game_bank", () -> gameBank.serve(userId, coreInfo, question, lastActivity));
+    }
+
+    /**
+     * Builds the game master prompt with the core information and recent messages fitted to the token budget.
+     */
+    String budgetedGamePrompt(String coreInfo, String question, List<CognitiveMessage> recentMessages) {
+        int fixedTokens = promptBudgeter.countTokens(formatGamePrompt("", question, ""));
+
+        Map<PromptBudgeter.Section, String> sections = new EnumMap<>(PromptBudgeter.Section.class);
+        sections.put(PromptBudgeter.Section.CORE_INFO, coreInfo);
+        sections.put(PromptBudgeter.Section.HISTORY, formatGameHistory(recentMessages));
+        Map<PromptBudgeter.Section, String> fitted = promptBudgeter.fit(PromptType.COGNITIVE_GAME, fixedTokens, sections);
+
+        return formatGamePrompt(fitted.get(PromptBudgeter.Section.CORE_INFO), question,
+                fitted.get(PromptBudgeter.Section.HISTORY));
+    }
 
-        // Fetch recent messages for context
-        List<CognitiveMessage> recentMessages = cognitiveMessageRepository.findTop10ByUserIdOrderByTimestampDesc(userId);
+    /**
+     * Formats recent cognitive messages, oldest first, as "User:" and "Assistant:" lines.
+     */
+    static String formatGameHistory(List<CognitiveMessage> recentMessages) {
         StringBuilder context = new StringBuilder();
         for (CognitiveMessage message : recentMessages) {
             if (message.isFromUser()) {
@@ -46,11 +165,14 @@ public class CognitiveAIService {
                 context.append("Assistant: ").append(message.getText()).append("\n");
             }
         }
+        return context.toString();
+    }
 
-        User user = userRepository.findById(userId).orElse(null);
-        String coreInfo = (user != null && user.getCoreInformation() != null) ? user.getCoreInformation() : "none";
-
-        String prompt = """
+    /**
+     * Formats the game master prompt from the user's core information and formatted recent messages.
+     */
+    static String formatGamePrompt(String coreInfo, String question, String context) {
+        return """
             You are an AI-powered Cognitive Game Master designed to help elderly users stay mentally sharp and emotionally engaged through gentle, interactive games and playful back-and-forth conversation.
         
             Everything should happen in this chat. Do not suggest activities that involve real-world materials, mobile apps, or leaving the conversation. You are the host and guide — respond with only one specific activity at a time.
@@ -78,19 +200,19 @@ public class CognitiveAIService {
             - Repeat the user's input
         
             Just begin the interaction with a friendly and engaging tone. Always assume the user wants to play — unless they say otherwise.
-            """.formatted(coreInfo, question, context.toString());
-
-        String response = gemini.chat(prompt);
-        logger.logToFile(userId, "CognitiveAI Prompt: " + prompt);
-        logger.logToFile(userId, "CognitiveAI Response: " + response);
+            """.formatted(coreInfo, question, context);
+    }
 
+    /**
+     * Stores the user's message and the assistant's reply, with the ID of the game it served, if any.
+     */
+    private void persistTurn(String userId, String question, String response, String gameId) {
         CognitiveMessage userMessage = new CognitiveMessage(userId, question, true, Instant.now());
         CognitiveMessage assistantMessage = new CognitiveMessage(userId, response, false, Instant.now());
+        assistantMessage.setGameId(gameId);
 
-        cognitiveMessageRepository.save(userMessage);
-        cognitiveMessageRepository.save(assistantMessage);
-
-        return response;
+        cognitiveHistoryCache.append(userId, cognitiveMessageRepository.save(userMessage));
+        cognitiveHistoryCache.append(userId, cognitiveMessageRepository.save(assistantMessage));
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,229 @@
+package com.example.ai_companion.service;
+
+import com.example.ai_companion.model.Message;
+import com.example.ai_companion.model.User;
+import com.example.ai_companion.utils.logger;
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Maintains a rolling summary of each user's conversation, persisted on the user.
+ *
+ * The chat prompt carries the summary plus only the messages it does not yet cover. After
+ * each turn, messages that have fallen out of the verbatim window are folded into the
+ * summary in the background, a few turns at a time, so the summary never lags far behind
+ * and the prompt size stays bounded however long the conversation runs.
+ *
+ * The summary's high-water mark ({@code summarizedThrough}) is updated with a conditional
+ * write, so two folds racing for the same user cannot both apply. Deleting a message the
+ * summary already covers resets it, and it is rebuilt from the remaining messages.
+ */
+@Service
+public class ConversationSummarizer {
+
+    @Autowired private LLMGateway llmGateway;
+    @Autowired private MongoTemplate mongoTemplate;
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Value("${companion.summary.enabled:true}")
+    private boolean enabled;
+
+    @Value("${companion.summary.verbatim-messages:4}")
+    private int verbatimMessages;
+
+    @Value("${companion.summary.min-fold-messages:4}")
+    private int minFoldMessages;
+
+    @Value("${companion.summary.max-fold-messages:20}")
+    private int maxFoldMessages;
+
+    @Value("${companion.summary.max-words:200}")
+    private int maxWords;
+
+    @Value("${companion.summary.workers:2}")
+    private int workerCount;
+
+    private final Set<String> scheduled = ConcurrentHashMap.newKeySet();
+    private ExecutorService workers;
+    private Counter foldCounter;
+    private Counter foldedMessageCounter;
+    private Counter conflictCounter;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger counter = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "summary-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        foldCounter = meterRegistry.counter("companion.summary.folds");
+        foldedMessageCounter = meterRegistry.counter("companion.summary.folded.messages");
+        conflictCounter = meterRegistry.counter("companion.summary.conflicts");
+    }
+
+    @PreDestroy
+    void stop() {
+        workers.shutdown();
+        try {
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Picks the messages the prompt should carry verbatim: every recent message the summary
+     * does not cover yet, and never fewer than the verbatim window.
+     *
+     * @param recent            the user's recent messages, oldest first
+     * @param summarizedThrough the timestamp of the newest summarised message, or null
+     * @return the messages to include verbatim, oldest first
+     */
+    public List<Message> unsummarized(List<Message> recent, Instant summarizedThrough) {
+        if (!enabled || summarizedThrough == null) return recent;
+
+        int first = recent.size();
+        while (first > 0 && recent.get(first - 1).getTimestamp().isAfter(summarizedThrough)) {
+            first--;
+        }
+        return recent.subList(Math.min(first, Math.max(0, recent.size() - verbatimMessages)), recent.size());
+    }
+
+    /**
+     * Schedules a background fold for the user. Requests for a user already waiting are coalesced.
+     *
+     * @param userId the user ID
+     */
+    public void requestUpdate(String userId) {
+        if (!enabled || !scheduled.add(userId)) return;
+        try {
+            workers.execute(() -> {
+                scheduled.remove(userId);
+                try {
+                    while (fold(userId)) {
+                        // Keep folding until the user's backlog is below a full batch
+                    }
+                } catch (Exception e) {
+                    System.err.println("Failed to update conversation summary for user " + userId + ": " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            scheduled.remove(userId);
+        }
+    }
+
+    /**
+     * Drops the user's summary if it covers a deleted message, then schedules a rebuild from
+     * the remaining messages. A fold racing with the reset fails its conditional write.
+     *
+     * @param userId           the user ID
+     * @param deletedTimestamp the timestamp of the deleted message
+     */
+    public void forget(String userId, Instant deletedTimestamp) {
+        Criteria covered = Criteria.where("_id").is(userId).and("summarizedThrough").gte(deletedTimestamp);
+        UpdateResult result = mongoTemplate.updateFirst(Query.query(covered),
+                new Update().unset("conversationSummary").unset("summarizedThrough"),
+                User.class);
+        if (result.getModifiedCount() > 0) {
+            logger.logToFile(userId, "Conversation summary reset after a summarised message was deleted");
+            requestUpdate(userId);
+        }
+    }
+
+    /**
+     * Folds the oldest messages that are outside the verbatim window and not yet summarised.
+     *
+     * @return true if a full batch was folded and more may be waiting
+     */
+    private boolean fold(String userId) {
+        Query userQuery = Query.query(Criteria.where("_id").is(userId));
+        userQuery.fields().include("conversationSummary", "summarizedThrough");
+        User user = mongoTemplate.findOne(userQuery, User.class);
+        if (user == null) return false;
+        Instant through = user.getSummarizedThrough();
+
+        // The oldest message of the verbatim window bounds what may be folded
+        Query windowQuery = Query.query(Criteria.where("userId").is(userId))
+                .with(Sort.by(Sort.Direction.DESC, "timestamp"))
+                .skip(verbatimMessages - 1L)
+                .limit(1);
+        windowQuery.fields().include("timestamp");
+        Message windowStart = mongoTemplate.findOne(windowQuery, Message.class);
+        if (windowStart == null) return false;
+
+        Criteria foldable = Criteria.where("userId").is(userId).and("timestamp").lt(windowStart.getTimestamp());
+        if (through != null) {
+            foldable = Criteria.where("userId").is(userId).and("timestamp").gt(through).lt(windowStart.getTimestamp());
+        }
+        Query foldQuery = Query.query(foldable)
+                .with(Sort.by(Sort.Direction.ASC, "timestamp"))
+                .limit(maxFoldMessages);
+        foldQuery.fields().include("text", "fromUser", "timestamp");
+        List<Message> messages = mongoTemplate.find(foldQuery, Message.class);
+        if (messages.size() < minFoldMessages) return false;
+
+        String summary = llmGateway.chat(PromptType.CONVERSATION_SUMMARY,
+                buildSummaryPrompt(user.getConversationSummary(), messages)).trim();
+        Instant newThrough = messages.get(messages.size() - 1).getTimestamp();
+
+        Criteria unchanged = Criteria.where("_id").is(userId).and("summarizedThrough").is(through);
+        UpdateResult result = mongoTemplate.updateFirst(Query.query(unchanged),
+                Update.update("conversationSummary", summary).set("summarizedThrough", newThrough),
+                User.class);
+        if (result.getModifiedCount() == 0) {
+            conflictCounter.increment();
+            return false;
+        }
+
+        foldCounter.increment();
+        foldedMessageCounter.increment(messages.size());
+        logger.logToFile(userId, "Folded " + messages.size() + " message(s) into conversation summary: " + summary);
+        return messages.size() == maxFoldMessages;
+    }
+
+    /** Builds the prompt that folds older messages into the existing summary. */
+    private String buildSummaryPrompt(String existingSummary, List<Message> messages) {
+        List<String> lines = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            lines.add((message.isFromUser() ? "User: " : "Assistant: ") + message.getText());
+        }
+        return """
+            You maintain a running summary of a conversation between an elderly user and their assistant.
+
+            Current summary:
+            %s
+
+            Messages to add, oldest first:
+            %s
+
+            Rewrite the summary so it also covers these messages. Keep what matters for future conversations:
+            topics discussed, things the user shared, questions still open, and anything the assistant promised.
+            Drop greetings, small talk and repetition. Write plain prose in the third person, at most %d words.
+            Reply with the summary only.
+        """.formatted(existingSummary != null && !existingSummary.isBlank() ? existingSummary : "none",
+                String.join("\n", lines), maxWords);
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.ai_companion.service;
+
+import com.example.ai_companion.model.User;
+import com.example.ai_companion.repository.UserRepository;
+import com.example.ai_companion.utils.logger;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Buffers newly extracted core facts per user and merges them into the user's core
+ * information in a single LLM call. A user's buffer is flushed when it reaches the batch
+ * size, when the user has been idle for the idle window, when the oldest fact has waited
+ * for the maximum window, or on shutdown. A failed merge is requeued and not retried until
+ * its backoff has passed.
+ */
+@Service
+public class CoreInformationMerger {
+
+    @Autowired private LLMGateway llmGateway;
+    @Autowired private UserRepository userRepository;
+    @Autowired private MongoTemplate mongoTemplate;
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Value("${companion.core-merge.max-batch:5}")
+    private int maxBatch;
+
+    @Value("${companion.core-merge.idle-ms:60000}")
+    private long idleMs;
+
+    @Value("${companion.core-merge.max-wait-ms:300000}")
+    private long maxWaitMs;
+
+    @Value("${companion.core-merge.initial-backoff-ms:10000}")
+    private long initialBackoffMs;
+
+    @Value("${companion.core-merge.max-backoff-ms:600000}")
+    private long maxBackoffMs;
+
+    private final Map<String, PendingFacts> pending = new ConcurrentHashMap<>();
+    private final Map<String, ReentrantLock> flushLocks = new ConcurrentHashMap<>();
+
+    private Counter mergeCounter;
+    private Counter factCounter;
+
+    /** Facts waiting to be merged for one user. */
+    private static final class PendingFacts {
+        private final List<String> facts = new ArrayList<>();
+        private long firstAt = System.currentTimeMillis();
+        private long lastAt = firstAt;
+        /** Failed merges so far, and the earliest time the next one may run. */
+        private int attempts;
+        private long retryAt;
+    }
+
+    @PostConstruct
+    void init() {
+        mergeCounter = meterRegistry.counter("companion.core.merges");
+        factCounter = meterRegistry.counter("companion.core.facts");
+    }
+
+    /**
+     * Adds a newly discovered core fact to the user's pending buffer. Flushes immediately
+     * on the calling thread once the buffer reaches the batch size.
+     *
+     * @param userId the user ID
+     * @param fact   the extracted core fact
+     */
+    public void append(String userId, String fact) {
+        factCounter.increment();
+        PendingFacts buffer = pending.compute(userId, (id, existing) -> {
+            PendingFacts facts = existing != null ? existing : new PendingFacts();
+            facts.facts.add(fact);
+            facts.lastAt = System.currentTimeMillis();
+            return facts;
+        });
+        if (buffer.facts.size() >= maxBatch && System.currentTimeMillis() >= buffer.retryAt) {
+            flush(userId);
+        }
+    }
+
+    /**
+     * Merges all pending facts for a user into their core information.
+     *
+     * @param userId the user ID
+     */
+    public void flush(String userId) {
+        ReentrantLock lock = lockFor(userId);
+        try {
+            PendingFacts buffer = pending.remove(userId);
+            if (buffer == null || buffer.facts.isEmpty()) return;
+
+            try {
+                merge(userId, buffer.facts);
+            } catch (Exception e) {
+                System.err.println("Failed to merge core information for user " + userId + ": " + e.getMessage());
+                requeue(userId, buffer);
+            }
+        } finally {
+            if (!pending.containsKey(userId)) flushLocks.remove(userId, lock);
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Locks the user's flush lock. A lock is pruned once its user has nothing pending, so a
+     * thread that was waiting on a pruned lock retries with the current one.
+     */
+    private ReentrantLock lockFor(String userId) {
+        while (true) {
+            ReentrantLock lock = flushLocks.computeIfAbsent(userId, id -> new ReentrantLock());
+            lock.lock();
+            if (flushLocks.get(userId) == lock) return lock;
+            lock.unlock();
+        }
+    }
+
+    /** Flushes every buffer that has gone idle or waited for longer than the maximum window, once any backoff has passed. */
+    @Scheduled(fixedDelayString = "${companion.core-merge.check-interval-ms:10000}")
+    public void flushDue() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, PendingFacts> entry : pending.entrySet()) {
+            PendingFacts buffer = entry.getValue();
+            if (now < buffer.retryAt) continue;
+            if (now - buffer.lastAt >= idleMs || now - buffer.firstAt >= maxWaitMs) {
+                flush(entry.getKey());
+            }
+        }
+    }
+
+    /** Flushes all pending facts before shutdown. */
+    @PreDestroy
+    void flushAll() {
+        for (String userId : List.copyOf(pending.keySet())) {
+            flush(userId);
+        }
+    }
+
+    /**
+     * Runs one merge prompt for the given facts and writes only the core information field.
+     */
+    private void merge(String userId, List<String> facts) {
+        User user = userRepository.findById(userId).orElse(null);
+        if (user == null) return;
+
+        String existing = user.getCoreInformation() != null ? user.getCoreInformation() : "";
+        String updatedCore = llmGateway.chat(PromptType.CORE_MERGE, buildMergePrompt(existing, facts)).trim();
+        mergeCounter.increment();
+        logger.logToFile(userId, "Merged " + facts.size() + " core fact(s): " + updatedCore);
+
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(userId)),
+                Update.update("coreInformation", updatedCore),
+                User.class);
+    }
+
+    /**
+     * Puts failed facts back ahead of any that arrived during the merge. The buffer's windows
+     * restart, and it is not flushed again until its backoff has passed.
+     */
+    private void requeue(String userId, PendingFacts failed) {
+        long now = System.currentTimeMillis();
+        failed.attempts++;
+        failed.firstAt = now;
+        failed.retryAt = now + backoffMs(failed.attempts);
+        pending.merge(userId, failed, (newer, older) -> {
+            older.facts.addAll(newer.facts);
+            older.lastAt = newer.lastAt;
+            return older;
+        });
+    }
+
+    private long backoffMs(int attempts) {
+        long exponential = initialBackoffMs << Math.min(attempts - 1, 20);
+        long capped = Math.min(maxBackoffMs, exponential);
+        return capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+    }
+
+    /** Builds the prompt for merging new core facts with existing identity data. */
+    private String buildMergePrompt(String existing, List<String> newFacts) {
+        StringBuilder facts = new StringBuilder();
+        for (String fact : newFacts) {
+            facts.append("- ").append(fact).append("\n");
+        }
+        return """
+            Existing core information:
+            %s
+
+            New core facts to merge (oldest first):
+            %s
+
+            Combine and regenerate a concise updated version of the user's core information.
+            If there is conflicting information, prefer the newest information.
+        """.formatted(existing, facts.toString().trim());
+    }
+}
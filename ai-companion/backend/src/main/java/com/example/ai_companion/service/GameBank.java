@@ -0,0 +1,420 @@
+package com.example.ai_companion.service;
+
+import com.example.ai_companion.model.CognitiveMessage;
+import com.example.ai_companion.model.Game;
+import com.example.ai_companion.model.GameDifficulty;
+import com.example.ai_companion.model.GameType;
+import com.example.ai_companion.repository.GameRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.request.ResponseFormat;
+import dev.langchain4j.model.chat.request.ResponseFormatType;
+import dev.langchain4j.model.chat.request.json.JsonArraySchema;
+import dev.langchain4j.model.chat.request.json.JsonEnumSchema;
+import dev.langchain4j.model.chat.request.json.JsonObjectSchema;
+import dev.langchain4j.model.chat.request.json.JsonSchema;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Serves ready-made cognitive games from memory, so vague and opening requests need no LLM call.
+ *
+ * Games are stored in Mongo and held in memory indexed by type and difficulty. The bank is
+ * seeded from {@code games/seed.json} on first start and topped up in the background by a
+ * single generator thread whenever a slot runs low, in general or for a user who has played
+ * most of it. Each user's played games are recorded on the cognitive messages that served
+ * them, so a game is never offered to the same user twice.
+ *
+ * A pick prefers games themed around the user's interests, which are read from their core
+ * information, and avoids repeating the previous game's type unless one was asked for.
+ */
+@Service
+public class GameBank {
+
+    /** Interests games can be themed around, each with the words that reveal it in core information. */
+    static final Map<String, Pattern> INTERESTS = new LinkedHashMap<>();
+
+    static {
+        INTERESTS.put("gardening", Pattern.compile("\\b(garden\\w*|plant\\w*|flowers?|roses?|vegetables?|allotment)\\b"));
+        INTERESTS.put("animals", Pattern.compile("\\b(dogs?|cats?|pets?|animals?|birds?|horses?|puppy|kitten|retriever|labrador|terrier)\\b"));
+        INTERESTS.put("cooking", Pattern.compile("\\b(cook\\w*|baking|baker|bakes?|recipes?|kitchen|cakes?|scones?)\\b"));
+        INTERESTS.put("crafts", Pattern.compile("\\b(knit\\w*|sew\\w*|crochet\\w*|crafts?|quilt\\w*|embroider\\w*)\\b"));
+        INTERESTS.put("music", Pattern.compile("\\b(music\\w*|sing|singing|singer|songs?|piano|choir|danc\\w*|guitar)\\b"));
+        INTERESTS.put("sport", Pattern.compile("\\b(sports?|rugby|cricket|football|golf|bowls|tennis|netball)\\b"));
+        INTERESTS.put("travel", Pattern.compile("\\b(travel\\w*|holidays?|trips?|abroad|journeys?)\\b"));
+        INTERESTS.put("history", Pattern.compile("\\b(history|historical|war|wartime|navy|army|royals?|royal family)\\b"));
+        INTERESTS.put("nature", Pattern.compile("\\b(nature|beach\\w*|walk\\w*|hik\\w*|tramp\\w*|fishing|mountains?|sea)\\b"));
+        INTERESTS.put("reading", Pattern.compile("\\b(reading|reader|books?|novels?|poetry|poems?|library)\\b"));
+        INTERESTS.put("family", Pattern.compile("\\b(family|grand\\w*|children|sons?|daughters?|husband|wife)\\b"));
+    }
+
+    private static final ResponseFormat GENERATION_FORMAT = ResponseFormat.builder()
+            .type(ResponseFormatType.JSON)
+            .jsonSchema(JsonSchema.builder()
+                    .name("GameBatch")
+                    .rootElement(JsonObjectSchema.builder()
+                            .addProperty("games", JsonArraySchema.builder()
+                                    .items(JsonObjectSchema.builder()
+                                            .addStringProperty("text", "The assistant's opening message for the activity")
+                                            .addProperty("interests", JsonArraySchema.builder()
+                                                    .items(JsonEnumSchema.builder().enumValues(new ArrayList<>(INTERESTS.keySet())).build())
+                                                    .build())
+                                            .required("text", "interests")
+                                            .additionalProperties(false)
+                                            .build())
+                                    .build())
+                            .required("games")
+                            .additionalProperties(false)
+                            .build())
+                    .build())
+            .build();
+
+    @Autowired private GameRepository gameRepository;
+    @Autowired private MongoTemplate mongoTemplate;
+    @Autowired private GameRequestMatcher gameRequestMatcher;
+    @Autowired private LLMGateway llmGateway;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Value("${companion.games.enabled:true}")
+    private boolean enabled;
+
+    @Value("${companion.games.seed-resource:games/seed.json}")
+    private String seedResource;
+
+    @Value("${companion.games.min-per-slot:3}")
+    private int minPerSlot;
+
+    @Value("${companion.games.max-per-slot:100}")
+    private int maxPerSlot;
+
+    @Value("${companion.games.min-unplayed:2}")
+    private int minUnplayed;
+
+    @Value("${companion.games.generation-batch:5}")
+    private int generationBatch;
+
+    @Value("${companion.games.default-difficulty:EASY}")
+    private GameDifficulty defaultDifficulty;
+
+    @Value("${companion.games.session-gap:30m}")
+    private Duration sessionGap;
+
+    @Value("${companion.history.idle-timeout:30m}")
+    private Duration idleTimeout;
+
+    /** A type and difficulty pair; the unit the bank is indexed and refilled by. */
+    private record Slot(GameType type, GameDifficulty difficulty) {}
+
+    /** What the bank knows about one user: games played, the last game's slot, and interests. Guarded by itself. */
+    private static final class Player {
+        private final Set<String> played;
+        private GameType lastType;
+        private GameDifficulty lastDifficulty;
+        private int coreInfoHash;
+        private Set<String> interests = Set.of();
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        private Player(Set<String> played) {
+            this.played = played;
+        }
+    }
+
+    private final Map<Slot, List<Game>> slots = new ConcurrentHashMap<>();
+    private final Map<String, Player> players = new ConcurrentHashMap<>();
+    private final Set<Slot> refillsQueued = ConcurrentHashMap.newKeySet();
+    private ExecutorService generator;
+
+    private Counter generatedCounter;
+
+    /** Loads the bank, seeding it on first start, then queues a refill of any slot that is short. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) return;
+
+        generator = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-bank");
+            thread.setDaemon(true);
+            return thread;
+        });
+        generatedCounter = meterRegistry.counter("companion.games.generated");
+        Gauge.builder("companion.games.bank.size", slots, bank -> bank.values().stream().mapToInt(List::size).sum())
+                .register(meterRegistry);
+
+        List<Game> games = gameRepository.findAll();
+        if (games.isEmpty()) {
+            games = gameRepository.saveAll(loadSeed());
+        }
+        games.forEach(this::index);
+
+        refillShortSlots();
+    }
+
+    /**
+     * Serves a game for a cognitive message if the message is one the bank can answer.
+     * The game is marked as played for the user as soon as it is picked.
+     *
+     * @param userId       the user ID
+     * @param coreInfo     the user's core information, or "none"
+     * @param question     the user's message
+     * @param lastActivity when the user's previous cognitive message was sent, or null for none
+     * @return the game, or empty if the message needs the LLM or the user has played every match
+     */
+    public Optional<Game> serve(String userId, String coreInfo, String question, Instant lastActivity) {
+        if (!enabled || generator == null) return Optional.empty();
+
+        boolean opening = lastActivity == null || lastActivity.isBefore(Instant.now().minus(sessionGap));
+        Optional<GameRequestMatcher.GameRequest> request = gameRequestMatcher.match(question, opening);
+        if (request.isEmpty()) {
+            meterRegistry.counter("companion.games.requests", "outcome", "free_form").increment();
+            return Optional.empty();
+        }
+
+        Optional<Game> game = pick(player(userId), coreInfo, request.get());
+        meterRegistry.counter("companion.games.requests", "outcome", game.isPresent() ? "bank" : "exhausted").increment();
+        return game;
+    }
+
+    /** Picks the best unplayed game for the request, varying the type when none was asked for. */
+    private Optional<Game> pick(Player player, String coreInfo, GameRequestMatcher.GameRequest request) {
+        synchronized (player) {
+            player.lastAccess = System.currentTimeMillis();
+            if (coreInfo.hashCode() != player.coreInfoHash) {
+                player.coreInfoHash = coreInfo.hashCode();
+                player.interests = interestsOf(coreInfo);
+            }
+
+            GameDifficulty difficulty = request.difficulty() != null ? request.difficulty()
+                    : player.lastDifficulty != null ? player.lastDifficulty : defaultDifficulty;
+            List<GameType> types = request.type() != null ? List.of(request.type()) : Arrays.asList(GameType.values());
+
+            Game game = best(player, types, difficulty, request.interest(), request.type() == null ? player.lastType : null);
+            if (game == null && request.type() == null && player.lastType != null) {
+                game = best(player, List.of(player.lastType), difficulty, request.interest(), null);
+            }
+            if (game == null) return Optional.empty();
+
+            player.played.add(game.getId());
+            player.lastType = game.getType();
+            player.lastDifficulty = game.getDifficulty();
+            return Optional.of(game);
+        }
+    }
+
+    /**
+     * Finds the unplayed game sharing the most interests with the user, breaking ties at random.
+     * Queues a refill for any searched slot the user has nearly exhausted.
+     */
+    private Game best(Player player, List<GameType> types, GameDifficulty difficulty, String interest, GameType skipType) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Game best = null;
+        int bestScore = -1;
+        int ties = 0;
+
+        for (GameType type : types) {
+            if (type == skipType) continue;
+            Slot slot = new Slot(type, difficulty);
+            int unplayed = 0;
+            for (Game game : slots.getOrDefault(slot, List.of())) {
+                if (player.played.contains(game.getId())) continue;
+                unplayed++;
+                if (interest != null && !game.getInterests().contains(interest)) continue;
+
+                int score = 0;
+                for (String gameInterest : game.getInterests()) {
+                    if (player.interests.contains(gameInterest)) score++;
+                }
+                if (score > bestScore) {
+                    best = game;
+                    bestScore = score;
+                    ties = 1;
+                } else if (score == bestScore && random.nextInt(++ties) == 0) {
+                    best = game;
+                }
+            }
+            if (unplayed <= minUnplayed) requestRefill(slot);
+        }
+        return best;
+    }
+
+    /** Returns the user's bank state, loading the games they have played on first access. */
+    private Player player(String userId) {
+        return players.computeIfAbsent(userId, id -> {
+            Query query = Query.query(Criteria.where("userId").is(id).and("gameId").exists(true));
+            List<String> played = mongoTemplate.findDistinct(query, "gameId", CognitiveMessage.class, String.class);
+            return new Player(new HashSet<>(played));
+        });
+    }
+
+    /** Drops the state of users who have not played for the idle timeout; it is reloaded on their next game. */
+    @Scheduled(fixedDelayString = "${companion.history.eviction-interval-ms:60000}")
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTimeout.toMillis();
+        players.values().removeIf(player -> player.lastAccess < cutoff);
+    }
+
+    /** Queues a refill of every slot holding fewer than the minimum number of games. */
+    @Scheduled(fixedDelayString = "${companion.games.refill-interval-ms:3600000}",
+            initialDelayString = "${companion.games.refill-interval-ms:3600000}")
+    public void refillShortSlots() {
+        for (GameType type : GameType.values()) {
+            for (GameDifficulty difficulty : GameDifficulty.values()) {
+                Slot slot = new Slot(type, difficulty);
+                if (slots.getOrDefault(slot, List.of()).size() < minPerSlot) requestRefill(slot);
+            }
+        }
+    }
+
+    /** Queues generation for a slot unless it is already queued or full. */
+    private void requestRefill(Slot slot) {
+        if (generator == null || slots.getOrDefault(slot, List.of()).size() >= maxPerSlot || !refillsQueued.add(slot)) return;
+        generator.execute(() -> {
+            try {
+                generate(slot);
+            } catch (Exception e) {
+                System.err.println("Failed to generate games for " + slot + ": " + e.getMessage());
+            } finally {
+                refillsQueued.remove(slot);
+            }
+        });
+    }
+
+    /** Generates a batch of games for a slot, themed around its least covered interest. */
+    private void generate(Slot slot) throws Exception {
+        List<Game> existing = slots.getOrDefault(slot, List.of());
+        Map<String, Integer> coverage = new LinkedHashMap<>();
+        INTERESTS.keySet().forEach(interest -> coverage.put(interest, 0));
+        Set<String> known = new HashSet<>();
+        for (Game game : existing) {
+            game.getInterests().forEach(interest -> coverage.merge(interest, 1, Integer::sum));
+            known.add(normalize(game.getText()));
+        }
+        String focus = Collections.min(coverage.entrySet(), Map.Entry.comparingByValue()).getKey();
+
+        ChatRequest request = ChatRequest.builder()
+                .messages(UserMessage.from(buildGenerationPrompt(slot, focus, existing)))
+                .parameters(ChatRequestParameters.builder().responseFormat(GENERATION_FORMAT).build())
+                .build();
+        String json = llmGateway.chat(PromptType.GAME_GENERATION, request).aiMessage().text();
+
+        List<Game> generated = new ArrayList<>();
+        for (JsonNode node : objectMapper.readTree(json).path("games")) {
+            String text = node.path("text").asText("").trim();
+            if (text.isEmpty() || !known.add(normalize(text))) continue;
+
+            List<String> interests = new ArrayList<>();
+            for (JsonNode interest : node.path("interests")) {
+                if (INTERESTS.containsKey(interest.asText())) interests.add(interest.asText());
+            }
+            generated.add(new Game(slot.type(), slot.difficulty(), interests, text));
+        }
+        if (generated.isEmpty()) return;
+
+        gameRepository.saveAll(generated).forEach(this::index);
+        generatedCounter.increment(generated.size());
+    }
+
+    /** Builds the prompt asking for a batch of new games for a slot. */
+    private String buildGenerationPrompt(Slot slot, String focus, List<Game> existing) {
+        List<String> examples = new ArrayList<>();
+        for (int i = Math.max(0, existing.size() - 5); i < existing.size(); i++) {
+            examples.add("- " + existing.get(i).getText());
+        }
+        return """
+            You write short cognitive activities for an AI companion that keeps elderly users mentally sharp.
+
+            Write %d new %s activities of %s difficulty. Theme most of them around %s.
+            Each activity is the companion's opening message: friendly, warm and simple, one specific activity
+            that can be played entirely in the chat, ending with a question or an invitation to answer.
+            Do not use lists, formatting, or anything that needs real-world materials or another app.
+            Tag each activity with the interests it is themed around, or none for general activities.
+
+            Do not repeat these existing activities:
+            %s
+        """.formatted(generationBatch, slot.type().name().toLowerCase(Locale.ROOT),
+                slot.difficulty().name().toLowerCase(Locale.ROOT), focus,
+                examples.isEmpty() ? "none" : String.join("\n", examples));
+    }
+
+    private void index(Game game) {
+        if (game.getInterests() == null) game.setInterests(List.of());
+        slots.computeIfAbsent(new Slot(game.getType(), game.getDifficulty()), slot -> new CopyOnWriteArrayList<>()).add(game);
+    }
+
+    /** The seed file's shape. */
+    private record SeedFile(List<Game> games) {}
+
+    private List<Game> loadSeed() {
+        try (InputStream in = new ClassPathResource(seedResource).getInputStream()) {
+            return objectMapper.readValue(in, SeedFile.class).games();
+        } catch (Exception e) {
+            System.err.println("Failed to load game bank seed " + seedResource + ": " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    /** Reads the interests mentioned in a user's core information. */
+    static Set<String> interestsOf(String coreInfo) {
+        String text = coreInfo.toLowerCase(Locale.ROOT);
+        Set<String> interests = new HashSet<>();
+        for (Map.Entry<String, Pattern> interest : INTERESTS.entrySet()) {
+            if (interest.getValue().matcher(text).find()) interests.add(interest.getKey());
+        }
+        return interests;
+    }
+
+    /**
+     * Maps a topic word to a bank interest.
+     *
+     * @return the interest, or null if the word matches none
+     */
+    static String interestFor(String word) {
+        if (INTERESTS.containsKey(word)) return word;
+        for (Map.Entry<String, Pattern> interest : INTERESTS.entrySet()) {
+            if (interest.getValue().matcher(word).matches()) return interest.getKey();
+        }
+        return null;
+    }
+
+    private static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", " ").trim();
+    }
+
+    @PreDestroy
+    void stop() {
+        if (generator == null) return;
+        generator.shutdownNow();
+        try {
+            generator.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
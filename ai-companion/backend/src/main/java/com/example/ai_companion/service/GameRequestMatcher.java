@@ -0,0 +1,110 @@
+package com.example.ai_companion.service;
+
+import com.example.ai_companion.model.GameDifficulty;
+import com.example.ai_companion.model.GameType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Recognises cognitive requests that the game bank can answer on its own.
+ *
+ * A message is a bank request when it is short and explicitly asks for a new activity
+ * ("give me something fun", "another one", "let's play a word game"). When it opens a
+ * session, a greeting or a bare activity keyword ("a riddle please") also counts. During a
+ * game, anything about the current one (a hint, the answer, repeating the question) is a
+ * follow-up, as is any message that only mentions games. The game type, difficulty and topic
+ * are read from keywords. A topic must be one of the bank's interests; any other topic, a
+ * negation, or a longer message is left to the LLM.
+ */
+@Service
+public class GameRequestMatcher {
+
+    /** What the user asked for; null fields mean "any". */
+    public record GameRequest(GameType type, GameDifficulty difficulty, String interest) {}
+
+    private static final Pattern NEW_GAME = Pattern.compile(
+            "\\b(?:let'?s|can we|could we|shall we|want to|wanna|like to) (?:play|do)\\b"
+            + "|\\bplay (?:a|an|another|some|me|something)\\b"
+            + "|\\b(?:give|get|find|show|tell) me (?:a|an|another|something|some|one)\\b"
+            + "|\\b(?:another|new|different|next|harder|easier) (?:game|one|puzzle|riddle|quiz|question|activity|challenge|round)\\b"
+            + "|\\bone more\\b|\\bsomething (?:fun|to do|new|different)\\b|\\bi'?m bored\\b"
+            + "|^(?:another|next)(?: please)?$");
+    private static final Pattern GAME_KEYWORD = Pattern.compile("\\b(play|game|games|fun|bored|puzzle|puzzles|quiz|riddle|riddles"
+            + "|challenge|brain|activity|trivia)\\b");
+    private static final Pattern FOLLOW_UP = Pattern.compile(
+            "\\b(hint|hints|clue|clues|answer|answers|repeat|explain|mean|means|meant|solution|guess|stuck|give up)\\b");
+    private static final int MAX_KEYWORD_REQUEST_WORDS = 4;
+    private static final Pattern GREETING = Pattern.compile(
+            "^(hi|hello|hey|good (morning|afternoon|evening)|morning|afternoon|evening)( there)?( again)?$");
+    private static final Pattern NEGATION = Pattern.compile("\\b(no|not|don'?t|stop|enough|quit|tired|later)\\b");
+    private static final Pattern TOPIC = Pattern.compile("\\babout (?:my |the |some )?([a-z]+)");
+
+    private static final Map<GameType, Pattern> TYPE_KEYWORDS = new EnumMap<>(Map.of(
+            GameType.WORD, Pattern.compile("\\b(word|words|spell|spelling|letter|letters|rhyme|rhymes)\\b"),
+            GameType.MEMORY, Pattern.compile("\\b(memory|remember|recall)\\b"),
+            GameType.TRIVIA, Pattern.compile("\\b(trivia|quiz|general knowledge)\\b"),
+            GameType.RIDDLE, Pattern.compile("\\b(riddle|riddles)\\b"),
+            GameType.NUMBER, Pattern.compile("\\b(number|numbers|maths?|sums?|arithmetic|counting)\\b"),
+            GameType.REMINISCENCE, Pattern.compile("\\b(reminisce|old days|story|stories|when i was)\\b")));
+
+    private static final Pattern EASY = Pattern.compile("\\b(easy|easier|simple|simpler|gentle|gentler)\\b");
+    private static final Pattern HARD = Pattern.compile("\\b(hard|harder|tricky|trickier|difficult|challenging)\\b");
+
+    @Value("${companion.games.max-request-words:12}")
+    private int maxRequestWords;
+
+    /**
+     * Matches a cognitive message against the kinds of request the bank can serve.
+     *
+     * @param question the user's message
+     * @param opening  true if the message starts a new session, false if a game may be in progress
+     * @return the request, or empty if the message needs the LLM
+     */
+    public Optional<GameRequest> match(String question, boolean opening) {
+        String normalized = question.toLowerCase(Locale.ROOT)
+                .replaceAll("[^a-z0-9' ]", " ")
+                .replaceAll("\\s+", " ")
+                .trim();
+        if (normalized.isEmpty()) {
+            return opening ? Optional.of(new GameRequest(null, null, null)) : Optional.empty();
+        }
+        int words = normalized.split(" ").length;
+        if (words > maxRequestWords || NEGATION.matcher(normalized).find() || FOLLOW_UP.matcher(normalized).find()) {
+            return Optional.empty();
+        }
+
+        boolean request = NEW_GAME.matcher(normalized).find();
+        if (!request && opening) {
+            request = GREETING.matcher(normalized).matches()
+                    || (words <= MAX_KEYWORD_REQUEST_WORDS && GAME_KEYWORD.matcher(normalized).find());
+        }
+        if (!request) {
+            return Optional.empty();
+        }
+
+        String interest = null;
+        Matcher topic = TOPIC.matcher(normalized);
+        if (topic.find()) {
+            interest = GameBank.interestFor(topic.group(1));
+            if (interest == null) return Optional.empty();
+        }
+
+        GameType type = null;
+        for (Map.Entry<GameType, Pattern> keywords : TYPE_KEYWORDS.entrySet()) {
+            if (keywords.getValue().matcher(normalized).find()) {
+                type = keywords.getKey();
+                break;
+            }
+        }
+
+        GameDifficulty difficulty = null;
+        if (EASY.matcher(normalized).find()) difficulty = GameDifficulty.EASY;
+        else if (HARD.matcher(normalized).find()) difficulty = GameDifficulty.HARD;
+
+        return Optional.of(new GameRequest(type, difficulty, interest));
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.ai_companion.service;
+
+import com.example.ai_companion.model.HistoryPage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keyset pagination over a user's message history.
+ *
+ * Pages walk the {userId, timestamp, _id} index backwards from a cursor holding the timestamp and
+ * ID of the oldest message already seen, so each page costs the same however far back it is
+ * and does not shift when new messages arrive. The message ID breaks ties between messages
+ * with the same timestamp.
+ */
+@Service
+public class HistoryPager {
+
+    public static final int PAGE_SIZE = 30;
+
+    @Autowired private MongoTemplate mongoTemplate;
+
+    /** Position of the oldest message on a page. */
+    private record Cursor(Instant timestamp, String id) {}
+
+    /**
+     * Loads the page of messages just older than the cursor.
+     *
+     * @param type        the message document type
+     * @param userId      the user ID
+     * @param before      cursor from a previous page, or null for the newest messages
+     * @param timestampOf reads a message's timestamp
+     * @param idOf        reads a message's ID
+     * @return up to {@link #PAGE_SIZE} messages, oldest first, with the next cursor
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public <T> HistoryPage<T> before(Class<T> type, String userId, String before,
+                                     Function<T, Instant> timestampOf, Function<T, String> idOf) {
+        Criteria criteria = Criteria.where("userId").is(userId);
+        if (before != null && !before.isBlank()) {
+            Cursor cursor = decode(before);
+            criteria = criteria.orOperator(
+                    Criteria.where("timestamp").lt(cursor.timestamp()),
+                    Criteria.where("timestamp").is(cursor.timestamp()).and("id").lt(cursor.id()));
+        }
+
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "timestamp", "id"))
+                .limit(PAGE_SIZE + 1);
+        query.fields().include("userId", "text", "fromUser", "timestamp");
+
+        List<T> messages = new ArrayList<>(mongoTemplate.find(query, type));
+        boolean hasMore = messages.size() > PAGE_SIZE;
+        if (hasMore) {
+            messages.remove(PAGE_SIZE);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            T oldest = messages.get(messages.size() - 1);
+            nextCursor = encode(new Cursor(timestampOf.apply(oldest), idOf.apply(oldest)));
+        }
+
+        // Return in chronological order (oldest → newest), like the paged endpoints
+        Collections.reverse(messages);
+        return new HistoryPage<>(messages, nextCursor);
+    }
+
+    private static String encode(Cursor cursor) {
+        String raw = cursor.timestamp().toEpochMilli() + ":" + cursor.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new Cursor(Instant.ofEpochMilli(Long.parseLong(raw.substring(0, separator))), raw.substring(separator + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid history cursor", e);
+        }
+    }
+}
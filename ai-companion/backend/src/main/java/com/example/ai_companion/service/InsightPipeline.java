@@ -0,0 +1,248 @@
+package com.example.ai_companion.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Background pipeline that extracts insights from completed chat turns.
+ *
+ * Turns are queued per user: while a user's turns are waiting or being processed, new turns
+ * for that user are coalesced into the same batch rather than queued separately. A fixed pool
+ * of workers drains a bounded queue of users, so a burst of chats cannot exhaust the JVM.
+ * When the queue is full, the turn's facts and memories are dropped and counted, but a turn
+ * that may hold a reminder still has its reminders extracted on a separate, unbounded
+ * reminder queue: a lost memory costs some recall, a lost reminder a missed dose.
+ */
+@Service
+public class InsightPipeline {
+
+    @Autowired private TurnExtractionService turnExtractionService;
+    @Autowired private ReminderService reminderService;
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Value("${companion.insights.workers:4}")
+    private int workerCount;
+
+    @Value("${companion.insights.queue-capacity:500}")
+    private int queueCapacity;
+
+    @Value("${companion.insights.max-turns-per-batch:5}")
+    private int maxTurnsPerBatch;
+
+    @Value("${companion.insights.drain-timeout-seconds:30}")
+    private long drainTimeoutSeconds;
+
+    private final Map<String, PendingTurns> pending = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor workers;
+    private ExecutorService reminderWorker;
+    private volatile boolean accepting = true;
+
+    private Timer lagTimer;
+    private Timer processingTimer;
+    private Counter processedCounter;
+    private Counter failureCounter;
+    private Counter droppedCounter;
+    private Counter coalescedCounter;
+    private Counter reminderRescueCounter;
+
+    /** A single completed turn awaiting extraction. */
+    private record Turn(String question, String answer, Instant enqueuedAt) {}
+
+    /** Turns queued for one user, plus whether a worker task is already scheduled for them. */
+    private static final class PendingTurns {
+        private final List<Turn> turns = new ArrayList<>();
+        private boolean scheduled;
+    }
+
+    @PostConstruct
+    void start() {
+        AtomicInteger counter = new AtomicInteger();
+        workers = new ThreadPoolExecutor(
+                workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "insight-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        // Unbounded on purpose: it only ever holds dropped turns that may contain a reminder
+        reminderWorker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "insight-reminders");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("companion.insights.queue.depth", workers, executor -> executor.getQueue().size())
+                .description("Users waiting for an insight worker")
+                .register(meterRegistry);
+        Gauge.builder("companion.insights.pending.turns", pending,
+                        map -> map.values().stream().mapToInt(p -> p.turns.size()).sum())
+                .description("Turns waiting for insight extraction")
+                .register(meterRegistry);
+        Gauge.builder("companion.insights.active", workers, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+
+        lagTimer = Timer.builder("companion.insights.lag")
+                .description("Time from a turn completing to its extraction starting")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        processingTimer = Timer.builder("companion.insights.processing").register(meterRegistry);
+        processedCounter = meterRegistry.counter("companion.insights.turns", "outcome", "processed");
+        failureCounter = meterRegistry.counter("companion.insights.turns", "outcome", "failed");
+        droppedCounter = meterRegistry.counter("companion.insights.turns", "outcome", "dropped");
+        coalescedCounter = meterRegistry.counter("companion.insights.turns", "outcome", "coalesced");
+        reminderRescueCounter = meterRegistry.counter("companion.insights.turns", "outcome", "reminders_only");
+    }
+
+    /**
+     * Queues a completed turn for insight extraction. Never blocks the caller.
+     *
+     * @param userId   the user ID
+     * @param question the user's message
+     * @param answer   the assistant's reply
+     * @return true if the turn was accepted, false if it was dropped (reminders excepted)
+     */
+    public boolean submit(String userId, String question, String answer) {
+        if (!accepting) {
+            droppedCounter.increment();
+            extractRemindersOnly(userId, List.of(new Turn(question, answer, Instant.now())));
+            return false;
+        }
+
+        boolean[] schedule = {false};
+        pending.compute(userId, (id, batch) -> {
+            if (batch == null) batch = new PendingTurns();
+            if (!batch.turns.isEmpty()) coalescedCounter.increment();
+            batch.turns.add(new Turn(question, answer, Instant.now()));
+            if (!batch.scheduled) {
+                batch.scheduled = true;
+                schedule[0] = true;
+            }
+            return batch;
+        });
+
+        if (schedule[0]) {
+            try {
+                workers.execute(() -> process(userId));
+            } catch (RejectedExecutionException e) {
+                PendingTurns dropped = pending.remove(userId);
+                List<Turn> turns = dropped != null ? dropped.turns : List.of(new Turn(question, answer, Instant.now()));
+                droppedCounter.increment(turns.size());
+                System.err.println("Insight queue full, dropped " + turns.size() + " turn(s) for user " + userId);
+                extractRemindersOnly(userId, turns);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Processes every pending turn for a user in batches. Turns arriving while a batch is
+     * being processed are picked up by the next loop iteration, so a user is only ever
+     * handled by one worker at a time.
+     */
+    private void process(String userId) {
+        while (true) {
+            List<Turn> batch = takeBatch(userId);
+            if (batch.isEmpty()) return;
+
+            Instant now = Instant.now();
+            lagTimer.record(Duration.between(batch.get(0).enqueuedAt(), now));
+
+            String questions = batch.stream().map(Turn::question).collect(Collectors.joining("\n"));
+            String answers = batch.stream().map(Turn::answer).collect(Collectors.joining("\n"));
+
+            boolean stored;
+            try {
+                stored = processingTimer.recordCallable(
+                        () -> turnExtractionService.extractAndStore(userId, questions, answers));
+            } catch (Exception e) {
+                System.err.println("Insight extraction failed for user " + userId + ": " + e.getMessage());
+                stored = false;
+            }
+
+            if (stored) {
+                processedCounter.increment(batch.size());
+            } else {
+                failureCounter.increment(batch.size());
+            }
+        }
+    }
+
+    /**
+     * Extracts just the reminders of dropped turns on the reminder worker, or on the caller once
+     * it has shut down. Turns that cannot hold a reminder are skipped without an LLM call.
+     */
+    private void extractRemindersOnly(String userId, List<Turn> turns) {
+        for (Turn turn : turns) {
+            if (!reminderService.mayContainReminder(turn.question())) continue;
+            reminderRescueCounter.increment();
+            Runnable task = () -> {
+                try {
+                    reminderService.extractReminders(userId, turn.question());
+                } catch (Exception e) {
+                    System.err.println("Reminder extraction failed for user " + userId + ": " + e.getMessage());
+                }
+            };
+            try {
+                reminderWorker.execute(task);
+            } catch (RejectedExecutionException e) {
+                task.run();
+            }
+        }
+    }
+
+    /** Removes up to {@code maxTurnsPerBatch} turns for a user, clearing their entry once none remain. */
+    private List<Turn> takeBatch(String userId) {
+        List<Turn> taken = new ArrayList<>();
+        pending.computeIfPresent(userId, (id, batch) -> {
+            if (batch.turns.isEmpty()) return null;
+            List<Turn> head = batch.turns.subList(0, Math.min(maxTurnsPerBatch, batch.turns.size()));
+            taken.addAll(head);
+            head.clear();
+            return batch;
+        });
+        return taken;
+    }
+
+    /**
+     * Stops accepting new turns and waits for queued work to drain before shutdown.
+     */
+    @PreDestroy
+    void shutdown() {
+        accepting = false;
+        workers.shutdown();
+        reminderWorker.shutdown();
+        try {
+            if (!reminderWorker.awaitTermination(drainTimeoutSeconds, TimeUnit.SECONDS)) {
+                System.err.println("Insight pipeline did not finish its reminder-only extractions in time");
+            }
+            if (!workers.awaitTermination(drainTimeoutSeconds, TimeUnit.SECONDS)) {
+                int remaining = pending.values().stream().mapToInt(p -> p.turns.size()).sum();
+                System.err.println("Insight pipeline did not drain in time, abandoning " + remaining + " turn(s)");
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            reminderWorker.shutdownNow();
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,516 @@
+package com.example.ai_companion.service;
+
+import com.example.ai_companion.utils.TokenBucket;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.request.ResponseFormat;
+import dev.langchain4j.model.chat.request.json.*;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.output.TokenUsage;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * The single way the backend calls an LLM. Every call is sent to its prompt type's
+ * {@link ModelRouter model profile}, after queueing in the prompt type's lane:
+ * - each lane has its own concurrency cap
+ * - each profile has a request bucket and a token bucket sized to its endpoint's rate limits,
+ *   shared by both lanes
+ * - background calls wait while interactive calls to the same profile are queued, and leave
+ *   a reserve of each bucket for them, so extraction never delays a live conversation
+ *
+ * Calls that fail with a rate limit, a server error or a network error are retried with
+ * exponential backoff and jitter, up to the lane's attempt limit. A rate limit also pauses
+ * every call to that profile for the backoff, since its endpoint is refusing all of them;
+ * other profiles carry on. A stream is only retried if it failed before its first token.
+ *
+ * Structured calls sent to a profile without JSON schema support are downgraded to plain
+ * JSON mode, with the schema's shape spelled out in a system message.
+ *
+ * Meters, in addition to the per-call ones recorded by {@link PipelineMetrics}:
+ * - {@code companion.llm.queue{lane}}: time from the call until it was admitted
+ * - {@code companion.llm.waiting{lane}} and {@code companion.llm.in-flight{lane}}: queue depth and calls in progress
+ * - {@code companion.llm.retries{prompt_type, reason}} and {@code companion.llm.rejected{lane}}
+ */
+@Service
+public class LLMGateway {
+
+    private static final long YIELD_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+    private static final long MAX_SLEEP_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    /** The budget of a call whose caller sets none, long enough that only the lane's limits apply. */
+    private static final Duration NO_BUDGET = Duration.ofDays(365);
+
+    private static final Pattern RATE_LIMITED = Pattern.compile("\\b429\\b|rate.?limit|too many requests");
+    private static final Pattern SERVER_ERROR = Pattern.compile(
+            "\\b(500|502|503|504)\\b|overloaded|server error|bad gateway|service unavailable|gateway timeout");
+    private static final Pattern NOT_RETRYABLE = Pattern.compile("insufficient_quota|invalid_api_key|context_length_exceeded");
+
+    /** Why a failed call may or may not be retried. */
+    private enum Failure {
+        RATE_LIMITED, SERVER_ERROR, NETWORK, FATAL;
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    @Autowired private ModelRouter modelRouter;
+    @Autowired private PipelineMetrics pipelineMetrics;
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Value("${companion.llm-gateway.interactive.max-concurrent:16}")
+    private int interactiveMaxConcurrent;
+
+    @Value("${companion.llm-gateway.interactive.max-queue-ms:10000}")
+    private long interactiveMaxQueueMs;
+
+    @Value("${companion.llm-gateway.interactive.max-attempts:3}")
+    private int interactiveMaxAttempts;
+
+    @Value("${companion.llm-gateway.interactive.max-backoff-ms:2000}")
+    private long interactiveMaxBackoffMs;
+
+    @Value("${companion.llm-gateway.background.max-concurrent:4}")
+    private int backgroundMaxConcurrent;
+
+    @Value("${companion.llm-gateway.background.max-queue-ms:120000}")
+    private long backgroundMaxQueueMs;
+
+    @Value("${companion.llm-gateway.background.max-attempts:6}")
+    private int backgroundMaxAttempts;
+
+    @Value("${companion.llm-gateway.background.max-backoff-ms:30000}")
+    private long backgroundMaxBackoffMs;
+
+    @Value("${companion.llm-gateway.initial-backoff-ms:250}")
+    private long initialBackoffMs;
+
+    @Value("${companion.llm-gateway.interactive-reserve:0.2}")
+    private double interactiveReserve;
+
+    @Value("${companion.llm-gateway.expected-output-tokens:400}")
+    private int expectedOutputTokens;
+
+    @Value("${companion.llm-gateway.stream-timeout-ms:120000}")
+    private long streamTimeoutMs;
+
+    /** Admission limits and queue state for one lane. */
+    private static final class LaneState {
+        private final PromptType.Lane lane;
+        private final int maxConcurrent;
+        private final Semaphore permits;
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final long maxQueueNanos;
+        private final int maxAttempts;
+        private final long maxBackoffMs;
+        private Timer queueTimer;
+
+        private LaneState(PromptType.Lane lane, int maxConcurrent, long maxQueueMs, int maxAttempts, long maxBackoffMs) {
+            this.lane = lane;
+            this.maxConcurrent = maxConcurrent;
+            this.permits = new Semaphore(maxConcurrent, true);
+            this.maxQueueNanos = TimeUnit.MILLISECONDS.toNanos(maxQueueMs);
+            this.maxAttempts = maxAttempts;
+            this.maxBackoffMs = maxBackoffMs;
+        }
+    }
+
+    /** Rate limits and rate-limit cooldown for one model profile, shared by both lanes. */
+    private static final class ProfileLimits {
+        private final TokenBucket requestBucket;
+        private final TokenBucket tokenBucket;
+        private final AtomicInteger interactiveWaiting = new AtomicInteger();
+        private long cooldownUntil = System.nanoTime();
+
+        private ProfileLimits(ModelProfile.Settings settings) {
+            this.requestBucket = new TokenBucket(settings.requestsPerMinute(), settings.requestsPerMinute() / 60);
+            this.tokenBucket = new TokenBucket(settings.tokensPerMinute(), settings.tokensPerMinute() / 60);
+        }
+    }
+
+    private final Map<PromptType.Lane, LaneState> lanes = new EnumMap<>(PromptType.Lane.class);
+    private final Map<String, ProfileLimits> limits = new HashMap<>();
+    private ExecutorService streamExecutor;
+
+    @PostConstruct
+    void init() {
+        lanes.put(PromptType.Lane.INTERACTIVE, new LaneState(PromptType.Lane.INTERACTIVE,
+                interactiveMaxConcurrent, interactiveMaxQueueMs, interactiveMaxAttempts, interactiveMaxBackoffMs));
+        lanes.put(PromptType.Lane.BACKGROUND, new LaneState(PromptType.Lane.BACKGROUND,
+                backgroundMaxConcurrent, backgroundMaxQueueMs, backgroundMaxAttempts, backgroundMaxBackoffMs));
+
+        for (ModelProfile profile : modelRouter.profiles().values()) {
+            limits.put(profile.name(), new ProfileLimits(profile.settings()));
+        }
+
+        for (LaneState state : lanes.values()) {
+            state.queueTimer = Timer.builder("companion.llm.queue")
+                    .tag("lane", state.lane.tag())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            Gauge.builder("companion.llm.waiting", state.waiting, AtomicInteger::get)
+                    .tag("lane", state.lane.tag())
+                    .register(meterRegistry);
+            Gauge.builder("companion.llm.in-flight", state, lane -> lane.maxConcurrent - lane.permits.availablePermits())
+                    .tag("lane", state.lane.tag())
+                    .register(meterRegistry);
+        }
+
+        // Streams wait for their completion on a virtual thread, so a slow stream holds no platform thread
+        streamExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("llm-stream-", 0).factory());
+    }
+
+    @PreDestroy
+    void stop() {
+        streamExecutor.shutdownNow();
+    }
+
+    /**
+     * Sends a single-message prompt through the prompt type's lane.
+     *
+     * @return the response text
+     */
+    public String chat(PromptType type, String prompt) {
+        return chat(type, prompt, NO_BUDGET);
+    }
+
+    /**
+     * Sends a single-message prompt through the prompt type's lane within the caller's time budget.
+     *
+     * @return the response text
+     */
+    public String chat(PromptType type, String prompt, Duration budget) {
+        return chat(type, ChatRequest.builder().messages(UserMessage.from(prompt)).build(), budget).aiMessage().text();
+    }
+
+    /**
+     * Sends a chat request through the prompt type's lane, retrying transient failures.
+     *
+     * @throws IllegalStateException if the call could not be admitted within the lane's queue time
+     */
+    public ChatResponse chat(PromptType type, ChatRequest request) {
+        return chat(type, request, NO_BUDGET);
+    }
+
+    /**
+     * Sends a chat request as above, but only while the caller is still waiting: the call is
+     * rejected if it cannot be admitted before the budget runs out, and a failure is not retried
+     * if the backoff would outlast it. A call already sent is not cut short.
+     *
+     * @param budget how long the caller will wait for the response
+     * @throws IllegalStateException if the call could not be admitted in time
+     */
+    public ChatResponse chat(PromptType type, ChatRequest request, Duration budget) {
+        long deadline = System.nanoTime() + budget.toNanos();
+        LaneState lane = lanes.get(type.lane());
+        ModelProfile profile = modelRouter.route(type);
+        ProfileLimits limit = limits.get(profile.name());
+        ChatRequest routed = forProfile(profile, request);
+        int estimate = estimateTokens(routed);
+        for (int attempt = 1; ; attempt++) {
+            admit(lane, limit, estimate, deadline);
+            RuntimeException error;
+            try {
+                ChatResponse response = pipelineMetrics.chat(profile, type, routed);
+                settle(limit, estimate, response);
+                return response;
+            } catch (RuntimeException e) {
+                error = e;
+            } finally {
+                lane.permits.release();
+            }
+            Failure failure = classify(error);
+            if (failure == Failure.FATAL || attempt >= lane.maxAttempts
+                    || !backoff(type, lane, limit, attempt, failure, deadline)) {
+                throw error;
+            }
+        }
+    }
+
+    /**
+     * Streams a single-message prompt through the prompt type's lane. Returns immediately; the
+     * call queues and runs on a virtual thread, and the handler receives the tokens, the complete
+     * response, or the final error once retries are exhausted.
+     */
+    public void stream(PromptType type, String prompt, StreamingChatResponseHandler handler) {
+        stream(type, prompt, NO_BUDGET, handler);
+    }
+
+    /**
+     * Streams a prompt as above within the caller's time budget: the stream is rejected if it
+     * cannot be admitted in time, fails once the budget is spent, and is not retried past it.
+     */
+    public void stream(PromptType type, String prompt, Duration budget, StreamingChatResponseHandler handler) {
+        long deadline = System.nanoTime() + budget.toNanos();
+        ChatRequest request = ChatRequest.builder().messages(UserMessage.from(prompt)).build();
+        try {
+            streamExecutor.execute(() -> runStream(type, request, deadline, handler));
+        } catch (RejectedExecutionException e) {
+            handler.onError(e);
+        }
+    }
+
+    private void runStream(PromptType type, ChatRequest request, long deadline, StreamingChatResponseHandler handler) {
+        LaneState lane = lanes.get(type.lane());
+        ModelProfile profile = modelRouter.route(type);
+        ProfileLimits limit = limits.get(profile.name());
+        int estimate = estimateTokens(request);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                admit(lane, limit, estimate, deadline);
+            } catch (RuntimeException e) {
+                handler.onError(e);
+                return;
+            }
+
+            CompletableFuture<Throwable> finished = new CompletableFuture<>();
+            AtomicBoolean started = new AtomicBoolean();
+            StreamingChatResponseHandler attemptHandler = pipelineMetrics.track(profile, type, new StreamingChatResponseHandler() {
+                @Override
+                public void onPartialResponse(String partialResponse) {
+                    if (finished.isDone()) return;
+                    started.set(true);
+                    handler.onPartialResponse(partialResponse);
+                }
+
+                @Override
+                public void onCompleteResponse(ChatResponse completeResponse) {
+                    if (!finished.complete(null)) return;
+                    settle(limit, estimate, completeResponse);
+                    handler.onCompleteResponse(completeResponse);
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    finished.complete(error);
+                }
+            });
+
+            Throwable error;
+            try {
+                profile.streaming().chat(request, attemptHandler);
+                long timeout = Math.min(TimeUnit.MILLISECONDS.toNanos(streamTimeoutMs), deadline - System.nanoTime());
+                error = finished.get(timeout, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                finished.complete(e);
+                error = e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                finished.complete(e);
+                error = e;
+            } catch (RuntimeException | ExecutionException e) {
+                finished.complete(e);
+                error = e;
+            } finally {
+                lane.permits.release();
+            }
+            if (error == null) return;
+
+            Failure failure = classify(error);
+            if (started.get() || failure == Failure.FATAL || attempt >= lane.maxAttempts) {
+                handler.onError(error);
+                return;
+            }
+            boolean retry;
+            try {
+                retry = backoff(type, lane, limit, attempt, failure, deadline);
+            } catch (RuntimeException e) {
+                retry = false;
+            }
+            if (!retry) {
+                handler.onError(error);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Waits for a lane permit, then for room in both of the profile's buckets, and takes both.
+     *
+     * @param callDeadline the caller's deadline, which cuts the lane's queue time short
+     * @throws IllegalStateException if the queue time or the caller's deadline runs out first
+     */
+    private void admit(LaneState lane, ProfileLimits limit, int estimate, long callDeadline) {
+        long start = System.nanoTime();
+        long deadline = callDeadline - (start + lane.maxQueueNanos) < 0 ? callDeadline : start + lane.maxQueueNanos;
+        boolean interactive = lane.lane == PromptType.Lane.INTERACTIVE;
+        lane.waiting.incrementAndGet();
+        if (interactive) limit.interactiveWaiting.incrementAndGet();
+        boolean acquired = false;
+        try {
+            if (deadline - start <= 0 || !lane.permits.tryAcquire(deadline - start, TimeUnit.NANOSECONDS)) {
+                throw rejected(lane);
+            }
+            acquired = true;
+            long wait;
+            while ((wait = reserve(lane, limit, estimate)) > 0) {
+                if (System.nanoTime() + wait - deadline > 0) {
+                    lane.permits.release();
+                    throw rejected(lane);
+                }
+                TimeUnit.NANOSECONDS.sleep(Math.min(wait, MAX_SLEEP_NANOS));
+            }
+        } catch (InterruptedException e) {
+            // Interrupted while waiting for bucket room: the call never runs, so hand back its lane slot
+            if (acquired) lane.permits.release();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queued for the LLM", e);
+        } finally {
+            lane.waiting.decrementAndGet();
+            if (interactive) limit.interactiveWaiting.decrementAndGet();
+        }
+        lane.queueTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Takes one request and the estimated tokens from the profile's buckets if the lane may have them now.
+     *
+     * @return 0 if taken, otherwise how long to wait before trying again
+     */
+    private long reserve(LaneState lane, ProfileLimits limit, int estimate) {
+        synchronized (limit) {
+            long now = System.nanoTime();
+            if (limit.cooldownUntil - now > 0) return limit.cooldownUntil - now;
+
+            double requestReserve = 0;
+            double tokenReserve = 0;
+            if (lane.lane == PromptType.Lane.BACKGROUND) {
+                // Interactive calls queued for this profile; this call never counts there
+                if (limit.interactiveWaiting.get() > 0) return YIELD_NANOS;
+                requestReserve = limit.requestBucket.capacity() * interactiveReserve;
+                tokenReserve = limit.tokenBucket.capacity() * interactiveReserve;
+            }
+
+            long wait = Math.max(limit.requestBucket.nanosUntil(1, requestReserve),
+                    limit.tokenBucket.nanosUntil(estimate, tokenReserve));
+            if (wait > 0) return wait;
+            limit.requestBucket.take(1);
+            limit.tokenBucket.take(estimate);
+            return 0;
+        }
+    }
+
+    /** Returns the unused part of the token estimate, or takes the overrun, once the real usage is known. */
+    private void settle(ProfileLimits limit, int estimate, ChatResponse response) {
+        TokenUsage usage = response != null ? response.tokenUsage() : null;
+        if (usage == null || usage.totalTokenCount() == null) return;
+        limit.tokenBucket.adjust(estimate - usage.totalTokenCount());
+    }
+
+    /**
+     * Sleeps for an exponential backoff with jitter. A rate limit also pauses every call to
+     * the profile until the backoff ends.
+     *
+     * @return false, without sleeping, if the backoff would outlast the caller's deadline
+     */
+    private boolean backoff(PromptType type, LaneState lane, ProfileLimits limit, int attempt, Failure failure,
+                            long deadline) {
+        long exponential = initialBackoffMs << Math.min(attempt - 1, 20);
+        long capped = Math.min(lane.maxBackoffMs, exponential);
+        long delayMs = capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+        long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs);
+
+        if (failure == Failure.RATE_LIMITED) {
+            synchronized (limit) {
+                if (until - limit.cooldownUntil > 0) limit.cooldownUntil = until;
+            }
+        }
+        if (until - deadline > 0) return false;
+
+        meterRegistry.counter("companion.llm.retries", "prompt_type", type.tag(), "reason", failure.tag()).increment();
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while backing off an LLM call", e);
+        }
+        return true;
+    }
+
+    /** Classifies a failure by walking its cause chain. */
+    private static Failure classify(Throwable error) {
+        Failure result = Failure.FATAL;
+        for (Throwable t = error; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            String message = t.getMessage() != null ? t.getMessage().toLowerCase(Locale.ROOT) : "";
+            if (NOT_RETRYABLE.matcher(message).find()) return Failure.FATAL;
+            if (RATE_LIMITED.matcher(message).find()) return Failure.RATE_LIMITED;
+            if (SERVER_ERROR.matcher(message).find()) result = Failure.SERVER_ERROR;
+            else if (result == Failure.FATAL && (t instanceof IOException || t instanceof TimeoutException)) result = Failure.NETWORK;
+        }
+        return result;
+    }
+
+    /**
+     * Adapts a structured request to a profile without JSON schema support: the call uses
+     * plain JSON mode, and a system message describes the shape the schema asked for.
+     */
+    private static ChatRequest forProfile(ModelProfile profile, ChatRequest request) {
+        ChatRequestParameters parameters = request.parameters();
+        ResponseFormat format = parameters != null ? parameters.responseFormat() : null;
+        if (profile.settings().jsonSchema() || format == null || format.jsonSchema() == null) return request;
+
+        List<ChatMessage> messages = new ArrayList<>();
+        messages.add(SystemMessage.from("Reply with only a JSON object of this shape, with no other text: "
+                + shape(format.jsonSchema().rootElement())));
+        messages.addAll(request.messages());
+        return ChatRequest.builder()
+                .messages(messages)
+                .parameters(parameters.overrideWith(ChatRequestParameters.builder().responseFormat(ResponseFormat.JSON).build()))
+                .build();
+    }
+
+    /** Renders a schema element as a compact JSON-like outline, with field descriptions in parentheses. */
+    private static String shape(JsonSchemaElement element) {
+        if (element instanceof JsonObjectSchema object) {
+            StringJoiner fields = new StringJoiner(", ", "{", "}");
+            object.properties().forEach((name, property) -> fields.add("\"" + name + "\": " + shape(property)));
+            return fields.toString();
+        }
+        if (element instanceof JsonArraySchema array) return "[" + shape(array.items()) + ", ...]";
+        if (element instanceof JsonEnumSchema enumeration) {
+            StringJoiner values = new StringJoiner(" | ");
+            enumeration.enumValues().forEach(value -> values.add("\"" + value + "\""));
+            return values.toString();
+        }
+        if (element instanceof JsonIntegerSchema || element instanceof JsonNumberSchema) return "number";
+        if (element instanceof JsonBooleanSchema) return "boolean";
+        if (element instanceof JsonStringSchema string && string.description() != null) {
+            return "string (" + string.description() + ")";
+        }
+        return "string";
+    }
+
+    /** Roughly estimates a request's tokens at four characters each, plus the expected output. */
+    private int estimateTokens(ChatRequest request) {
+        int chars = 0;
+        for (ChatMessage message : request.messages()) {
+            chars += message instanceof UserMessage user && user.hasSingleText()
+                    ? user.singleText().length()
+                    : message.toString().length();
+        }
+        return chars / 4 + expectedOutputTokens;
+    }
+
+    private IllegalStateException rejected(LaneState lane) {
+        meterRegistry.counter("companion.llm.rejected", "lane", lane.lane.tag()).increment();
+        return new IllegalStateException("LLM " + lane.lane.tag() + " lane queue timed out");
+    }
+}
@@ -1,40 +1,36 @@
 package com.example.ai_companion.service;
 
 import com.example.ai_companion.model.Message;
-import com.example.ai_companion.model.Reminder;
-import com.example.ai_companion.model.User;
 import com.example.ai_companion.repository.MessageRepository;
-import com.example.ai_companion.repository.ReminderRepository;
-import com.example.ai_companion.repository.UserRepository;
 import com.example.ai_companion.utils.logger;
-import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.time.Instant;
 import java.time.LocalDate;
-import java.util.*;
+import java.util.EnumMap;
+import java.util.Map;
 
 /**
  * Service responsible for handling AI interactions with the user, including:
  * - Generating contextual responses using LangChain LLM
- * - Retrieving recent messages, user core info, and reminders
+ * - Retrieving recent messages, the conversation summary, user core info, and reminders
  * - Fetching and embedding relevant memories
  * - Persisting interactions and extracted reminders
  */
 @Service
 public class LLMService {
 
-    @Autowired private ChatLanguageModel chatLanguageModel;
-    @Autowired private UserRepository userRepository;
+    @Autowired private LLMGateway llmGateway;
     @Autowired private MessageRepository messageRepository;
-    @Autowired private MemoryService memoryService;
-    @Autowired private ReminderRepository reminderRepository;
-    @Autowired private ReminderService reminderService;
-
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Autowired private RecentMessageCache<Message> chatHistoryCache;
+    @Autowired private InsightPipeline insightPipeline;
+    @Autowired private ChatContextBuilder chatContextBuilder;
+    @Autowired private PipelineMetrics pipelineMetrics;
+    @Autowired private PromptBudgeter promptBudgeter;
+    @Autowired private ConversationSummarizer conversationSummarizer;
 
     /**
      * Generates a response to the user's query using context-aware memory and reminder information.
@@ -44,118 +40,95 @@ public class LLMService {
      * @return the assistant's response
      */
     public String generateAndTrack(String userId, String query) {
-        User user = userRepository.findById(userId).orElse(null);
-        String coreInfo = (user != null && user.getCoreInformation() != null) ? user.getCoreInformation() : "none";
+        String prompt = preparePrompt(userId, query);
+        String responseText = llmGateway.chat(PromptType.CHAT, prompt);
+        logger.logToFile(userId, "LLM Response " + responseText);
 
-        String chatHistory = buildChatHistory(userId);
-        String reminderBlock = buildUpcomingRemindersBlock(userId);
-        String queryToSearch = generateMemoryQuery(query, chatHistory, coreInfo);
-        String memoryContext = fetchMemoryContext(userId, queryToSearch);
+        pipelineMetrics.time("persist", () -> persistTurn(userId, query, responseText));
+        extractFromTurn(userId, query, responseText);
 
-        String today = LocalDate.now().toString();
-        String prompt = buildLLMPrompt(today, coreInfo, memoryContext, chatHistory, reminderBlock, query);
-        String responseText = chatLanguageModel.chat(prompt);
+        return responseText;
+    }
 
-        logger.logToFile(userId, "New User Question: " + query);
-        logger.logToFile(userId, "LLM refined query: " + queryToSearch);
-        logger.logToFile(userId, "LLM Prompt: " + prompt);
-        logger.logToFile(userId, "LLM Response " + responseText);
+    /**
+     * Streams a response to the user's query token by token. The turn is persisted and
+     * post-turn extraction runs once the stream completes.
+     *
+     * @param userId  the user ID
+     * @param query   the user's message
+     * @param handler receives each partial token, the completed response, or an error
+     */
+    public void streamAndTrack(String userId, String query, StreamingChatResponseHandler handler) {
+        String prompt = preparePrompt(userId, query);
 
-        reminderService.extractReminders(userId, query);
+        llmGateway.stream(PromptType.CHAT, prompt, new StreamingChatResponseHandler() {
+            @Override
+            public void onPartialResponse(String partialResponse) {
+                handler.onPartialResponse(partialResponse);
+            }
 
-        messageRepository.save(new Message(userId, query, true, Instant.now()));
-        messageRepository.save(new Message(userId, responseText, false, Instant.now()));
+            @Override
+            public void onCompleteResponse(ChatResponse completeResponse) {
+                String responseText = completeResponse.aiMessage().text();
+                logger.logToFile(userId, "LLM Response " + responseText);
 
-        new Thread(() -> memoryService.extractAndStoreInsights(userId, query, responseText)).start();
+                pipelineMetrics.time("persist", () -> persistTurn(userId, query, responseText));
+                handler.onCompleteResponse(completeResponse);
+                extractFromTurn(userId, query, responseText);
+            }
 
-        return responseText;
+            @Override
+            public void onError(Throwable error) {
+                logger.logToFile(userId, "LLM stream failed: " + error.getMessage());
+                handler.onError(error);
+            }
+        });
     }
 
-    /** Builds the user's last 10 messages in chronological order. */
-    private String buildChatHistory(String userId) {
-        List<Message> messages = messageRepository.findTop10ByUserIdOrderByTimestampDesc(userId);
-        messages.sort(Comparator.comparing(Message::getTimestamp));
-        StringBuilder sb = new StringBuilder();
-        for (Message m : messages) {
-            sb.append(m.isFromUser() ? "User: " : "Assistant: ")
-              .append(m.getText()).append("\n");
-        }
-        return sb.toString().trim();
+    /** Assembles the context for the query and builds the main chat prompt. */
+    private String preparePrompt(String userId, String query) {
+        ChatContext context = pipelineMetrics.time("context", () -> chatContextBuilder.build(userId, query));
+        return buildPrompt(userId, context, query);
     }
 
-    /** Builds a block summarising the user's next 10 reminders. */
-    private String buildUpcomingRemindersBlock(String userId) {
-        List<Reminder> reminders = reminderRepository.findTop10ByUserIdAndTimestampGreaterThanOrderByTimestampAsc(userId, Instant.now());
-        if (reminders.isEmpty()) return "none";
-
-        StringBuilder sb = new StringBuilder();
-        for (Reminder r : reminders) {
-            sb.append("Title: ").append(r.getMessage()).append("\n")
-              .append("Description: ").append(r.getDescription()).append("\n")
-              .append("Due: ").append(r.getTimestamp()).append("\n\n");
-        }
-        return sb.toString().trim();
+    /** Builds the main chat prompt from an assembled context, fitted to the token budget, and logs it. */
+    String buildPrompt(String userId, ChatContext context, String query) {
+        String today = LocalDate.now().toString();
+        int fixedTokens = promptBudgeter.countTokens(buildLLMPrompt(today, "", "", "", "", "", query));
+
+        Map<PromptBudgeter.Section, String> sections = new EnumMap<>(PromptBudgeter.Section.class);
+        sections.put(PromptBudgeter.Section.CORE_INFO, context.coreInfo());
+        sections.put(PromptBudgeter.Section.SUMMARY, context.summary());
+        sections.put(PromptBudgeter.Section.HISTORY, context.chatHistory());
+        sections.put(PromptBudgeter.Section.MEMORIES, context.memoryContext());
+        sections.put(PromptBudgeter.Section.REMINDERS, context.reminderBlock());
+        Map<PromptBudgeter.Section, String> fitted = promptBudgeter.fit(PromptType.CHAT, fixedTokens, sections);
+
+        String prompt = buildLLMPrompt(today, fitted.get(PromptBudgeter.Section.CORE_INFO),
+                fitted.get(PromptBudgeter.Section.MEMORIES), fitted.get(PromptBudgeter.Section.SUMMARY),
+                fitted.get(PromptBudgeter.Section.HISTORY),
+                fitted.get(PromptBudgeter.Section.REMINDERS), query);
+
+        logger.logToFile(userId, "New User Question: " + query);
+        logger.logToFile(userId, "LLM refined query: " + context.memoryQuery());
+        logger.logToFile(userId, "LLM Prompt: " + prompt);
+        return prompt;
     }
 
-    /** Fetches memory context from the memory embedding service. */
-    private String fetchMemoryContext(String userId, String query) {
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            Map<String, Object> body = new HashMap<>();
-            body.put("user_id", userId);
-            body.put("query", query);
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(body, headers);
-
-            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
-                "http://localhost:8000/recall",
-                HttpMethod.POST,
-                request,
-                new org.springframework.core.ParameterizedTypeReference<>() {}
-            );
-
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                Map<String, Object> responseBody = response.getBody();
-                if (responseBody != null) {
-                    Object memories = responseBody.get("related_memories");
-                    return memories != null ? memories.toString() : "none";
-                }
-                return "none";
-            }
-        } catch (Exception e) {
-            System.err.println("Failed to retrieve memory context: " + e.getMessage());
-        }
-        return "none";
+    /** Saves the user's question and the assistant's reply. */
+    private void persistTurn(String userId, String query, String responseText) {
+        chatHistoryCache.append(userId, messageRepository.save(new Message(userId, query, true, Instant.now())));
+        chatHistoryCache.append(userId, messageRepository.save(new Message(userId, responseText, false, Instant.now())));
     }
 
-        /** Builds a prompt to convert the user's question into a memory search query. */
-        private String generateMemoryQuery(String query, String chatHistory, String coreInfo) {
-            String prompt = """
-                You are a memory assistant. Your job is to convert the user's current message into a memory-style search query.
-    
-                The user's message is:
-                "%s"
-    
-                These are the last 10 messages in the conversation:
-                %s
-    
-                The user's long-term core information is:
-                %s
-    
-                Create a concise sentence that best represents the kind of memory that would be relevant to this message, using the same structure as stored memory sentences.
-    
-                Memory entries typically describe:
-                - Specific past events or experiences
-                - Short-term goals or plans
-                - Emotions or reactions
-    
-                Your output should be a single memory-style sentence. If nothing is relevant, return "none".
-                """.formatted(query, chatHistory, coreInfo);
-            return chatLanguageModel.chat(prompt);
-        }
+    /** Queues reminder and insight extraction for a completed turn, and folds older messages into the summary. */
+    void extractFromTurn(String userId, String query, String responseText) {
+        insightPipeline.submit(userId, query, responseText);
+        conversationSummarizer.requestUpdate(userId);
+    }
 
     /** Builds the final prompt sent to the LLM. */
-    private String buildLLMPrompt(String today, String coreInfo, String memoryContext, String chatHistory, String reminders, String query) {
+    String buildLLMPrompt(String today, String coreInfo, String memoryContext, String summary, String chatHistory, String reminders, String query) {
         return """
             Today is %s.
             You are a personalised virtual assistant designed for elderly care. Your role is to respond supportively and clearly, considering the user's health, personal background, daily context, and emotional needs.
@@ -166,6 +139,9 @@ public class LLMService {
             --- RECENT MEMORIES (Contextual Events) ---
             %s
 
+            --- CONVERSATION SUMMARY (Earlier Conversation) ---
+            %s
+
             --- CHAT HISTORY (Recent Conversation) ---
             %s
 
@@ -181,6 +157,6 @@ public class LLMService {
             • Lighthearted charm
             • No technical jargon
             • Write in warm, engaging, natural-sounding language.
-            """.formatted(today, coreInfo, memoryContext, chatHistory, reminders, query);
+            """.formatted(today, coreInfo, memoryContext, summary, chatHistory, reminders, query);
     }
 }
\ No newline at end of file
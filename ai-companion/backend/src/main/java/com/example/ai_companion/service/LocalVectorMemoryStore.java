@@ -0,0 +1,150 @@
+package com.example.ai_companion.service;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process memory store: embeds with a local model and searches per-user vector segments,
+ * avoiding the HTTP hop to the Python embed service.
+ *
+ * Applies the same rules as the Python service: memories below a cosine similarity of 0.3 are
+ * discarded, the optional start/end timestamps filter the search, and at most 10 memories are
+ * returned, most similar first.
+ */
+@Service
+@ConditionalOnProperty(name = "companion.memory-store", havingValue = "local")
+public class LocalVectorMemoryStore implements MemoryStore {
+
+    private static final String NONE = "none";
+
+    @Autowired private EmbeddingModel embeddingModel;
+
+    @Value("${companion.local-memory.dir:memory-store}")
+    private String directory;
+
+    private final Map<String, VectorSegment> segments = new ConcurrentHashMap<>();
+
+    @Override
+    public String recall(String userId, String query, Instant start, Instant end) {
+        try {
+            VectorSegment segment = segmentFor(userId);
+            if (segment.size() == 0) return NONE;
+
+            float[] queryVector = embed(query);
+            long startMs = start != null ? start.toEpochMilli() : Long.MIN_VALUE;
+            long endMs = end != null ? end.toEpochMilli() : Long.MAX_VALUE;
+            List<VectorSegment.Match> matches = segment.search(queryVector, startMs, endMs, SIMILARITY_THRESHOLD, MAX_RESULTS);
+            if (matches.isEmpty()) return NONE;
+
+            List<Map<String, Object>> related = new ArrayList<>(matches.size());
+            for (VectorSegment.Match match : matches) {
+                Map<String, Object> memory = new LinkedHashMap<>();
+                memory.put("text", match.text());
+                memory.put("timestamp", Instant.ofEpochMilli(match.timestampMillis()).toString());
+                memory.put("similarity", match.similarity());
+                related.add(memory);
+            }
+            return related.toString();
+        } catch (Exception e) {
+            System.err.println("Local memory recall failed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public boolean remember(String userId, String text, Instant timestamp) {
+        try {
+            segmentFor(userId).append(null, embed(text), timestamp.toEpochMilli(), text);
+            return true;
+        } catch (Exception e) {
+            System.err.println("Local memory store failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Embeds the whole batch in one model call, then appends each memory in order. A memory
+     * whose ID is already stored is skipped but counted as stored, so replaying a batch does
+     * not duplicate it.
+     */
+    @Override
+    public int rememberAll(List<Memory> memories) {
+        if (memories.isEmpty()) return 0;
+
+        List<Embedding> embeddings;
+        try {
+            List<TextSegment> texts = new ArrayList<>(memories.size());
+            for (Memory memory : memories) {
+                texts.add(TextSegment.from(memory.text()));
+            }
+            embeddings = embeddingModel.embedAll(texts).content();
+        } catch (Exception e) {
+            System.err.println("Local memory batch embedding failed: " + e.getMessage());
+            return 0;
+        }
+
+        int stored = 0;
+        for (Memory memory : memories) {
+            try {
+                segmentFor(memory.userId()).append(memory.id(), normalize(embeddings.get(stored).vector()),
+                        memory.timestamp().toEpochMilli(), memory.text());
+            } catch (Exception e) {
+                System.err.println("Local memory store failed: " + e.getMessage());
+                break;
+            }
+            stored++;
+        }
+        return stored;
+    }
+
+    /** Embeds the text and scales it to unit length, so cosine similarity is a plain dot product. */
+    private float[] embed(String text) {
+        return normalize(embeddingModel.embed(text).content().vector());
+    }
+
+    static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) norm += v * v;
+        norm = Math.sqrt(norm);
+        if (norm == 0) return vector;
+        float[] unit = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) unit[i] = (float) (vector[i] / norm);
+        return unit;
+    }
+
+    private VectorSegment segmentFor(String userId) {
+        return segments.computeIfAbsent(userId, id -> {
+            try {
+                Path path = Paths.get(directory);
+                return VectorSegment.open(path, id, embeddingModel.dimension());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @PreDestroy
+    void close() {
+        for (VectorSegment segment : segments.values()) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close memory segment: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.ai_companion.service;
+
+import com.example.ai_companion.model.PendingMemory;
+import com.example.ai_companion.repository.PendingMemoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Durable outbox for memory writes. Memories are persisted to Mongo first and written to the
+ * memory store in batches, once enough have queued up or the flush interval has passed.
+ *
+ * Memories the store fails to accept stay in the outbox and are retried with exponential
+ * backoff and jitter, so a memory service outage delays writes instead of losing them.
+ * Anything left over from a previous run is replayed as soon as the application is ready.
+ *
+ * Each memory is sent with its outbox ID, so a batch retried after a partial write or a crash
+ * before the outbox was cleared replaces what was stored rather than duplicating it. Once a
+ * batch has failed, its memories that already failed before are retried one by one, so a
+ * memory the store always rejects cannot hold the rest back; after {@code max-attempts} it is
+ * dead-lettered, kept in the outbox but never sent again.
+ */
+@Service
+public class MemoryOutbox {
+
+    @Autowired private PendingMemoryRepository pendingMemoryRepository;
+    @Autowired private MongoTemplate mongoTemplate;
+    @Autowired private MemoryStore memoryStore;
+    @Autowired private RecallCache recallCache;
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Value("${companion.memory-outbox.batch-size:32}")
+    private int batchSize;
+
+    @Value("${companion.memory-outbox.initial-backoff-ms:1000}")
+    private long initialBackoffMs;
+
+    @Value("${companion.memory-outbox.max-backoff-ms:300000}")
+    private long maxBackoffMs;
+
+    @Value("${companion.memory-outbox.max-attempts:20}")
+    private int maxAttempts;
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicInteger unflushed = new AtomicInteger();
+    private final ExecutorService flusher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "memory-outbox");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Counter storedCounter;
+    private Counter retriedCounter;
+    private Counter deadLetteredCounter;
+
+    @PostConstruct
+    void init() {
+        storedCounter = meterRegistry.counter("companion.memory.outbox.memories", "outcome", "stored");
+        retriedCounter = meterRegistry.counter("companion.memory.outbox.memories", "outcome", "retried");
+        deadLetteredCounter = meterRegistry.counter("companion.memory.outbox.memories", "outcome", "dead_lettered");
+        Gauge.builder("companion.memory.outbox.pending", pendingMemoryRepository, PendingMemoryRepository::countByDeadLetteredAtIsNull)
+                .register(meterRegistry);
+        Gauge.builder("companion.memory.outbox.dead-lettered", pendingMemoryRepository,
+                        PendingMemoryRepository::countByDeadLetteredAtIsNotNull)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Persists a memory to the outbox. Triggers a background flush once a full batch is waiting.
+     *
+     * @param userId    the user ID
+     * @param text      the memory sentence
+     * @param timestamp when the memory happened
+     */
+    public void enqueue(String userId, String text, Instant timestamp) {
+        pendingMemoryRepository.save(new PendingMemory(userId, text, timestamp));
+        if (unflushed.incrementAndGet() >= batchSize) {
+            flusher.execute(this::flush);
+        }
+    }
+
+    /** Flushes on the interval, so a partial batch never waits longer than one period. */
+    @Scheduled(fixedDelayString = "${companion.memory-outbox.flush-interval-ms:2000}")
+    public void flushDue() {
+        flush();
+    }
+
+    /** Makes every memory left over from a previous run, except dead-lettered ones, due immediately and flushes them. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void replay() {
+        mongoTemplate.updateMulti(Query.query(Criteria.where("deadLetteredAt").is(null)),
+                Update.update("nextAttemptAt", Instant.now()), PendingMemory.class);
+        flusher.execute(this::flush);
+    }
+
+    /**
+     * Sends every due memory to the store, one batch at a time. Stops at the first batch the
+     * store does not fully accept, leaving the rest for their next attempt.
+     */
+    void flush() {
+        if (!flushLock.tryLock()) return;
+        try {
+            unflushed.set(0);
+            while (true) {
+                List<PendingMemory> batch = pendingMemoryRepository.findByNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(
+                        Instant.now(), PageRequest.of(0, batchSize));
+                if (batch.isEmpty()) return;
+
+                int stored = send(batch);
+                if (stored < batch.size()) {
+                    List<PendingMemory> failed = batch.subList(stored, batch.size());
+                    if (failed.size() > 1 && failed.stream().anyMatch(pending -> pending.getAttempts() > 0)) {
+                        failed = sendEach(failed);
+                    }
+                    scheduleRetry(failed);
+                    return;
+                }
+                if (batch.size() < batchSize) return;
+            }
+        } catch (Exception e) {
+            System.err.println("Memory outbox flush failed: " + e.getMessage());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /** Writes a batch to the store and removes whatever it accepted from the outbox. */
+    private int send(List<PendingMemory> batch) {
+        List<MemoryStore.Memory> memories = new ArrayList<>(batch.size());
+        for (PendingMemory pending : batch) {
+            memories.add(new MemoryStore.Memory(pending.getId(), pending.getUserId(), pending.getText(), pending.getTimestamp()));
+        }
+
+        int stored = memoryStore.rememberAll(memories);
+        if (stored == 0) return 0;
+
+        List<PendingMemory> accepted = batch.subList(0, stored);
+        pendingMemoryRepository.deleteAll(accepted);
+        storedCounter.increment(stored);
+
+        Set<String> users = new HashSet<>();
+        for (PendingMemory pending : accepted) {
+            users.add(pending.getUserId());
+        }
+        users.forEach(recallCache::invalidate);
+        return stored;
+    }
+
+    /** Sends memories one at a time, so one the store rejects does not fail the others. */
+    private List<PendingMemory> sendEach(List<PendingMemory> memories) {
+        List<PendingMemory> failed = new ArrayList<>();
+        for (PendingMemory pending : memories) {
+            if (send(List.of(pending)) == 0) failed.add(pending);
+        }
+        return failed;
+    }
+
+    /**
+     * Pushes back each failed memory by an exponentially growing, jittered delay, or
+     * dead-letters it once it has used its last attempt.
+     */
+    private void scheduleRetry(List<PendingMemory> failed) {
+        if (failed.isEmpty()) return;
+        Instant now = Instant.now();
+        int deadLettered = 0;
+        for (PendingMemory pending : failed) {
+            pending.setAttempts(pending.getAttempts() + 1);
+            if (pending.getAttempts() >= maxAttempts) {
+                pending.setNextAttemptAt(null);
+                pending.setDeadLetteredAt(now);
+                deadLettered++;
+                System.err.println("Memory outbox gave up on memory " + pending.getId() + " for user "
+                        + pending.getUserId() + " after " + pending.getAttempts() + " attempts");
+            } else {
+                pending.setNextAttemptAt(now.plusMillis(backoffMs(pending.getAttempts())));
+            }
+        }
+        pendingMemoryRepository.saveAll(failed);
+        retriedCounter.increment(failed.size() - deadLettered);
+        deadLetteredCounter.increment(deadLettered);
+    }
+
+    private long backoffMs(int attempts) {
+        long exponential = initialBackoffMs << Math.min(attempts - 1, 20);
+        long capped = Math.min(maxBackoffMs, exponential);
+        return capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+    }
+
+    /** Makes one last attempt to flush before shutdown; anything left is replayed on the next start. */
+    @PreDestroy
+    void close() {
+        flusher.shutdownNow();
+        flush();
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.ai_companion.service;
+
+import com.example.ai_companion.utils.LruCache;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Converts the user's message into a memory-style search query.
+ *
+ * Short or phatic messages ("hello", "thanks", "how are you") are triaged locally and skip
+ * both the rewrite and recall. Rewrites are cached by a hash of the normalized query and
+ * core info, so repeated inputs do not cost another LLM round trip. The history is left out
+ * of the key: its latest lines are the previous exchange, which changes every turn.
+ */
+@Service
+public class MemoryQueryRewriter {
+
+    private static final String NONE = "none";
+
+    /** Words that on their own carry no recall-worthy content. */
+    private static final Set<String> PHATIC_WORDS = Set.of(
+            "hi", "hello", "hey", "hiya", "yo", "morning", "afternoon", "evening", "night", "good", "goodnight",
+            "thanks", "thank", "thankyou", "ta", "cheers", "you", "very", "much", "so", "lot", "a",
+            "ok", "okay", "k", "alright", "sure", "fine", "yes", "yeah", "yep", "no", "nope", "nah",
+            "great", "cool", "nice", "lovely", "wonderful", "awesome", "perfect", "brilliant",
+            "bye", "goodbye", "later", "see", "ya", "take", "care",
+            "lol", "haha", "hehe", "wow", "oh", "ah", "hmm", "um",
+            "how", "are", "r", "u", "doing", "there", "dear", "please", "that", "is", "it", "im", "i", "am");
+
+    @Autowired private LLMGateway llmGateway;
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Value("${companion.query-rewrite.min-chars:4}")
+    private int minChars;
+
+    @Value("${companion.query-rewrite.cache-size:10000}")
+    private int cacheSize;
+
+    @Value("${companion.query-rewrite.cache-ttl-ms:600000}")
+    private long cacheTtlMs;
+
+    private LruCache<String, String> cache;
+    private Counter skipped;
+    private Counter hits;
+    private Counter misses;
+
+    @PostConstruct
+    void init() {
+        cache = new LruCache<>(cacheSize, cacheTtlMs);
+        skipped = meterRegistry.counter("companion.query.rewrite", "outcome", "skipped");
+        hits = meterRegistry.counter("companion.query.rewrite", "outcome", "hit");
+        misses = meterRegistry.counter("companion.query.rewrite", "outcome", "miss");
+        Gauge.builder("companion.query.rewrite.cache.size", cache, LruCache::size).register(meterRegistry);
+    }
+
+    /**
+     * Decides locally whether a message is worth a memory search at all.
+     *
+     * @param query the user's message
+     * @return false for short or purely phatic messages
+     */
+    public boolean needsRecall(String query) {
+        String normalized = normalize(query);
+        if (normalized.length() < minChars) return false;
+
+        for (String word : normalized.split(" ")) {
+            if (!PHATIC_WORDS.contains(word)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the memory search query for a message, or "none" if recall should be skipped.
+     *
+     * @param query       the user's message
+     * @param chatHistory the recent conversation
+     * @param coreInfo    the user's core information
+     * @param budget      how long the caller will wait; a rewrite that cannot start in time is rejected
+     * @return a memory-style sentence, or "none"
+     */
+    public String rewrite(String query, String chatHistory, String coreInfo, Duration budget) {
+        if (!needsRecall(query)) {
+            skipped.increment();
+            return NONE;
+        }
+
+        String key = cacheKey(query, coreInfo);
+        String cached = cache.get(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        misses.increment();
+        String rewritten = llmGateway.chat(PromptType.QUERY_REWRITE, buildPrompt(query, chatHistory, coreInfo), budget).trim();
+        cache.put(key, rewritten);
+        return rewritten;
+    }
+
+    /**
+     * Non-blocking variant of {@link #rewrite}: a cache miss is served by a gateway stream,
+     * so the caller's thread never waits on the LLM.
+     *
+     * @return a future of the memory-style sentence, or "none"
+     */
+    public CompletableFuture<String> rewriteAsync(String query, String chatHistory, String coreInfo, Duration budget) {
+        if (!needsRecall(query)) {
+            skipped.increment();
+            return CompletableFuture.completedFuture(NONE);
+        }
+
+        String key = cacheKey(query, coreInfo);
+        String cached = cache.get(key);
+        if (cached != null) {
+            hits.increment();
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        misses.increment();
+        CompletableFuture<String> result = new CompletableFuture<>();
+        llmGateway.stream(PromptType.QUERY_REWRITE, buildPrompt(query, chatHistory, coreInfo), budget, new StreamingChatResponseHandler() {
+            @Override
+            public void onPartialResponse(String partialResponse) {
+                // Only the complete sentence is useful as a query.
+            }
+
+            @Override
+            public void onCompleteResponse(ChatResponse completeResponse) {
+                String rewritten = completeResponse.aiMessage().text().trim();
+                cache.put(key, rewritten);
+                result.complete(rewritten);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                result.completeExceptionally(error);
+            }
+        });
+        return result;
+    }
+
+    /** Lowercases, strips punctuation and collapses whitespace. */
+    static String normalize(String text) {
+        if (text == null) return "";
+        return text.toLowerCase(Locale.ROOT)
+                .replaceAll("[^\\p{L}\\p{N}\\s]", "")
+                .replaceAll("\\s+", " ")
+                .trim();
+    }
+
+    private String cacheKey(String query, String coreInfo) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(normalize(query).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(String.valueOf(coreInfo).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /** Builds a prompt to convert the user's question into a memory search query. */
+    String buildPrompt(String query, String chatHistory, String coreInfo) {
+        return """
+            You are a memory assistant. Your job is to convert the user's current message into a memory-style search query.
+
+            The user's message is:
+            "%s"
+
+            These are the most recent messages in the conversation:
+            %s
+
+            The user's long-term core information is:
+            %s
+
+            Create a concise sentence that best represents the kind of memory that would be relevant to this message, using the same structure as stored memory sentences.
+
+            Memory entries typically describe:
+            - Specific past events or experiences
+            - Short-term goals or plans
+            - Emotions or reactions
+
+            Your output should be a single memory-style sentence. If nothing is relevant, return "none".
+            """.formatted(query, chatHistory, coreInfo);
+    }
+}
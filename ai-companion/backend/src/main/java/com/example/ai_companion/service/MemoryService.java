@@ -3,15 +3,10 @@ package com.example.ai_companion.service;
 import com.example.ai_companion.model.User;
 import com.example.ai_companion.repository.UserRepository;
 import com.example.ai_companion.utils.logger;
-import dev.langchain4j.model.chat.ChatLanguageModel;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.time.Instant;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * Service responsible for extracting and persisting insights from user interactions.
@@ -21,12 +16,14 @@ import java.util.Map;
 public class MemoryService {
 
     @Autowired private UserRepository userRepository;
-    @Autowired private ChatLanguageModel chatLanguageModel;
-
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Autowired private LLMGateway llmGateway;
+    @Autowired private CoreInformationMerger coreInformationMerger;
+    @Autowired private MemoryOutbox memoryOutbox;
+    @Autowired private PipelineMetrics pipelineMetrics;
 
     /**
      * Extracts both long-term and short-term memory from a conversation and stores them.
+     * Core facts are queued for the next batched merge.
      *
      * @param userId   the user ID
      * @param question the user question
@@ -34,12 +31,29 @@ public class MemoryService {
      * @return true if insights were successfully stored, false otherwise
      */
     public boolean extractAndStoreInsights(String userId, String question, String answer) {
+        return extractAndStore(userId, question, answer, false);
+    }
+
+    /**
+     * Stores a user's introduction like {@link #extractAndStoreInsights}, but merges the core facts
+     * right away, so the very next turn already knows who the user is.
+     *
+     * @param userId    the user ID
+     * @param introText the introduction text
+     * @param answer    the assistant response
+     * @return true if insights were successfully stored, false otherwise
+     */
+    public boolean storeIntroduction(String userId, String introText, String answer) {
+        return extractAndStore(userId, introText, answer, true);
+    }
+
+    private boolean extractAndStore(String userId, String question, String answer, boolean flushCore) {
         User user = userRepository.findById(userId).orElse(null);
         if (user == null) return false;
 
         try {
-            extractAndStoreCoreInformation(user, question, answer);
-            extractAndStoreMemoryEmbedding(user.getId(), question, answer);
+            pipelineMetrics.time("core_extraction", () -> extractAndStoreCoreInformation(user, question, answer, flushCore));
+            pipelineMetrics.time("memory_extraction", () -> extractAndStoreMemoryEmbedding(user.getId(), question, answer));
             return true;
         } catch (Exception e) {
             System.err.println("Failed to store insights: " + e.getMessage());
@@ -52,23 +66,33 @@ public class MemoryService {
      *
      * @param user     the user entity
      * @param question the user's input
-     * @param answer   the assistant's reply
+     * @param answer    the assistant's reply
+     * @param flushCore whether to merge the extracted facts now rather than in the next batch
      */
-    private void extractAndStoreCoreInformation(User user, String question, String answer) {
+    private void extractAndStoreCoreInformation(User user, String question, String answer, boolean flushCore) {
         String corePrompt = buildCorePrompt(question, answer);
-        String extractedCore = chatLanguageModel.chat(corePrompt).trim();
+        String extractedCore = llmGateway.chat(PromptType.CORE_EXTRACTION, corePrompt).trim();
         logger.logToFile(user.getId(), "Extracting core information: " + extractedCore);
 
         if (!"none".equalsIgnoreCase(extractedCore)) {
-            String existing = user.getCoreInformation() != null ? user.getCoreInformation() : "";
-            String mergedPrompt = buildMergePrompt(existing, extractedCore);
-            String updatedCore = chatLanguageModel.chat(mergedPrompt).trim();
-
-            user.setCoreInformation(updatedCore);
-            userRepository.save(user);
+            coreInformationMerger.append(user.getId(), extractedCore);
+            if (flushCore) {
+                coreInformationMerger.flush(user.getId());
+            }
         }
     }
 
+    /**
+     * Queues a newly discovered core fact to be merged into the user's core information.
+     * Facts are merged in batches by {@link CoreInformationMerger}.
+     *
+     * @param user    the user entity
+     * @param newFact the newly extracted core fact
+     */
+    public void mergeCoreInformation(User user, String newFact) {
+        coreInformationMerger.append(user.getId(), newFact);
+    }
+
     /**
      * Extracts and sends short-term memory to the embedding service.
      *
@@ -78,27 +102,24 @@ public class MemoryService {
      */
     private void extractAndStoreMemoryEmbedding(String userId, String question, String answer) {
         String memoryPrompt = buildMemoryPrompt(question, answer);
-        String memoryResult = chatLanguageModel.chat(memoryPrompt).trim();
+        String memoryResult = llmGateway.chat(PromptType.MEMORY_EXTRACTION, memoryPrompt).trim();
         logger.logToFile(userId, "Extracting memory result: " + memoryResult);
 
         if (!"none".equalsIgnoreCase(memoryResult)) {
-            try {
-                HttpHeaders headers = new HttpHeaders();
-                headers.setContentType(MediaType.APPLICATION_JSON);
-
-                Map<String, Object> body = new HashMap<>();
-                body.put("user_id", userId);
-                body.put("text", memoryResult);
-                body.put("timestamp", Instant.now().toString());
-
-                HttpEntity<Map<String, Object>> request = new HttpEntity<>(body, headers);
-                restTemplate.postForEntity("http://localhost:8000/remember", request, Void.class);
-            } catch (Exception e) {
-                System.err.println("Failed to store memory via /remember: " + e.getMessage());
-            }
+            storeMemory(userId, memoryResult);
         }
     }
 
+    /**
+     * Queues a short-term memory in the outbox, to be written to the memory store in the next batch.
+     *
+     * @param userId the user ID
+     * @param memory the memory sentence to store
+     */
+    public void storeMemory(String userId, String memory) {
+        memoryOutbox.enqueue(userId, memory, Instant.now());
+    }
+
     /** Builds the prompt for extracting core identity facts. */
     private String buildCorePrompt(String question, String answer) {
         return """
@@ -123,20 +144,6 @@ public class MemoryService {
         """.formatted(question, answer);
     }
 
-    /** Builds the prompt for merging new core info with existing identity data. */
-    private String buildMergePrompt(String existing, String newFact) {
-        return """
-            Existing core information:
-            %s
-
-            New core fact to merge:
-            %s
-
-            Combine and regenerate a concise updated version of the user's core information.
-            If there is conflicting information, prefer the new information.
-        """.formatted(existing, newFact);
-    }
-
     /** Builds the prompt for extracting short-term or contextual memory. */
     private String buildMemoryPrompt(String question, String answer) {
         return """
@@ -0,0 +1,252 @@
+package com.example.ai_companion.service;
+
+import com.example.ai_companion.utils.CircuitBreaker;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.*;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared client for the memory embedding service's /recall and /remember endpoints.
+ *
+ * Uses a pooled keep-alive connection manager with strict connect and read timeouts.
+ * Recall and remember calls run in separate bulkheads, so a backlog of writes cannot starve
+ * the recall on the chat path. Each operation has its own circuit breaker that fails calls fast
+ * while it is unhealthy, so a failing batch write cannot cut off recall: recall returns null and
+ * remember returns false.
+ */
+@Service
+@ConditionalOnProperty(name = "companion.memory-store", havingValue = "remote", matchIfMissing = true)
+public class MemoryServiceClient implements MemoryStore {
+
+    private static final String NONE = "none";
+
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Value("${companion.memory-service.url:http://localhost:8000}")
+    private String baseUrl;
+
+    @Value("${companion.memory-service.connect-timeout-ms:500}")
+    private long connectTimeoutMs;
+
+    @Value("${companion.memory-service.read-timeout-ms:1500}")
+    private long readTimeoutMs;
+
+    @Value("${companion.memory-service.max-connections:64}")
+    private int maxConnections;
+
+    @Value("${companion.memory-service.recall-concurrency:32}")
+    private int recallConcurrency;
+
+    @Value("${companion.memory-service.remember-concurrency:8}")
+    private int rememberConcurrency;
+
+    @Value("${companion.memory-service.bulkhead-wait-ms:50}")
+    private long bulkheadWaitMs;
+
+    @Value("${companion.memory-service.recall-top-k:10}")
+    private int recallTopK;
+
+    @Value("${companion.memory-service.breaker.failure-threshold:5}")
+    private int breakerFailureThreshold;
+
+    @Value("${companion.memory-service.breaker.open-ms:30000}")
+    private long breakerOpenMs;
+
+    private CloseableHttpClient httpClient;
+    private RestTemplate restTemplate;
+    private final Map<String, CircuitBreaker> breakers = new HashMap<>();
+    private Semaphore recallBulkhead;
+    private Semaphore rememberBulkhead;
+
+    @PostConstruct
+    void init() {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .setTimeToLive(TimeValue.ofMinutes(5))
+                        .build())
+                .build();
+
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .setKeepAliveStrategy((response, context) -> TimeValue.ofSeconds(30))
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(30))
+                .build();
+
+        restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+        for (String operation : List.of("recall", "remember", "remember_batch")) {
+            CircuitBreaker breaker = new CircuitBreaker(breakerFailureThreshold, breakerOpenMs);
+            breakers.put(operation, breaker);
+            Gauge.builder("companion.memory.client.breaker.open", breaker,
+                            b -> b.state() == CircuitBreaker.State.CLOSED ? 0 : 1)
+                    .tag("operation", operation)
+                    .register(meterRegistry);
+        }
+        recallBulkhead = new Semaphore(recallConcurrency);
+        rememberBulkhead = new Semaphore(rememberConcurrency);
+
+        Gauge.builder("companion.memory.client.pool.leased", connectionManager,
+                        manager -> manager.getTotalStats().getLeased())
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        httpClient.close();
+    }
+
+    @Override
+    public String recall(String userId, String query, Instant start, Instant end) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("user_id", userId);
+        body.put("query", query);
+        body.put("top_k", recallTopK);
+        if (start != null) body.put("start_time", start.toString());
+        if (end != null) body.put("end_time", end.toString());
+
+        return call("recall", recallBulkhead, () -> {
+            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
+                    baseUrl + "/recall", HttpMethod.POST, jsonEntity(body),
+                    new ParameterizedTypeReference<>() {});
+            Object memories = response.getBody() != null ? response.getBody().get("related_memories") : null;
+            return memories != null ? memories.toString() : NONE;
+        });
+    }
+
+    @Override
+    public boolean remember(String userId, String text, Instant timestamp) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("user_id", userId);
+        body.put("text", text);
+        body.put("timestamp", timestamp.toString());
+
+        Boolean stored = call("remember", rememberBulkhead, () -> {
+            restTemplate.postForEntity(baseUrl + "/remember", jsonEntity(body), Void.class);
+            return Boolean.TRUE;
+        });
+        return Boolean.TRUE.equals(stored);
+    }
+
+    /**
+     * Stores a batch of memories with one request to /remember_batch, which encodes all texts together.
+     * The write is not atomic: a failed request may have stored some of the batch, so none is counted
+     * and the caller resends all of it. Resending is safe because each memory is upserted by its ID.
+     */
+    @Override
+    public int rememberAll(List<Memory> memories) {
+        if (memories.isEmpty()) return 0;
+
+        List<Map<String, Object>> items = new ArrayList<>(memories.size());
+        for (Memory memory : memories) {
+            Map<String, Object> item = new HashMap<>();
+            if (memory.id() != null) item.put("id", memory.id());
+            item.put("user_id", memory.userId());
+            item.put("text", memory.text());
+            item.put("timestamp", memory.timestamp().toString());
+            items.add(item);
+        }
+        Map<String, Object> body = Map.of("memories", items);
+
+        Boolean stored = call("remember_batch", rememberBulkhead, () -> {
+            restTemplate.postForEntity(baseUrl + "/remember_batch", jsonEntity(body), Void.class);
+            return Boolean.TRUE;
+        });
+        return Boolean.TRUE.equals(stored) ? memories.size() : 0;
+    }
+
+    /** A single remote call guarded by a bulkhead and its operation's circuit breaker. */
+    @FunctionalInterface
+    private interface RemoteCall<T> {
+        T execute();
+    }
+
+    /**
+     * Runs a call inside the given bulkhead and through the operation's circuit breaker, recording its latency.
+     *
+     * @return the call's result, or null if it was rejected or failed
+     */
+    private <T> T call(String operation, Semaphore bulkhead, RemoteCall<T> remoteCall) {
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(bulkheadWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        if (!acquired) {
+            meterRegistry.counter("companion.memory.client.rejected", "operation", operation, "reason", "bulkhead").increment();
+            return null;
+        }
+
+        CircuitBreaker circuitBreaker = breakers.get(operation);
+        try {
+            if (!circuitBreaker.allowRequest()) {
+                meterRegistry.counter("companion.memory.client.rejected", "operation", operation, "reason", "circuit_open").increment();
+                return null;
+            }
+
+            long start = System.nanoTime();
+            String outcome = "success";
+            try {
+                T result = remoteCall.execute();
+                circuitBreaker.recordSuccess();
+                return result;
+            } catch (Exception e) {
+                outcome = "error";
+                circuitBreaker.recordFailure();
+                System.err.println("Memory service " + operation + " failed: " + e.getMessage());
+                return null;
+            } finally {
+                Timer.builder("companion.memory.client.latency")
+                        .tag("operation", operation)
+                        .tag("outcome", outcome)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry)
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private static HttpEntity<Map<String, ?>> jsonEntity(Map<String, ?> body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return new HttpEntity<>(body, headers);
+    }
+}
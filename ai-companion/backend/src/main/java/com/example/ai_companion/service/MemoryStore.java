@@ -0,0 +1,71 @@
+package com.example.ai_companion.service;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Storage and similarity recall for users' short-term memories.
+ *
+ * Selected with {@code companion.memory-store}: {@code remote} (default) uses the Python embed
+ * service over HTTP, {@code local} embeds and searches in-process.
+ */
+public interface MemoryStore {
+
+    /** Minimum cosine similarity for a memory to be considered related. */
+    double SIMILARITY_THRESHOLD = 0.3;
+
+    /** Maximum number of memories returned by a recall. */
+    int MAX_RESULTS = 10;
+
+    /**
+     * A memory to be stored. The ID, when set, makes storing idempotent: a store that supports
+     * it replaces an earlier memory with the same ID instead of adding a duplicate.
+     */
+    record Memory(String id, String userId, String text, Instant timestamp) {}
+
+    /**
+     * Recalls memories related to the query within an optional time window.
+     *
+     * @param userId the user ID
+     * @param query  the memory search query
+     * @param start  earliest memory timestamp to include, or null
+     * @param end    latest memory timestamp to include, or null
+     * @return the related memories, "none" if there are none, or null if the store is unavailable
+     */
+    String recall(String userId, String query, Instant start, Instant end);
+
+    /**
+     * Recalls memories related to the query across all time.
+     *
+     * @see #recall(String, String, Instant, Instant)
+     */
+    default String recall(String userId, String query) {
+        return recall(userId, query, null, null);
+    }
+
+    /**
+     * Stores a memory.
+     *
+     * @param userId    the user ID
+     * @param text      the memory sentence
+     * @param timestamp when the memory happened
+     * @return true if the memory was stored
+     */
+    boolean remember(String userId, String text, Instant timestamp);
+
+    /**
+     * Stores several memories, in order, stopping at the first failure.
+     * Implementations may override this to encode the whole batch at once.
+     *
+     * @param memories the memories to store
+     * @return how many memories from the start of the list were stored
+     */
+    default int rememberAll(List<Memory> memories) {
+        int stored = 0;
+        for (Memory memory : memories) {
+            if (!remember(memory.userId(), memory.text(), memory.timestamp())) break;
+            stored++;
+        }
+        return stored;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.ai_companion.service;
+
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+
+import java.time.Duration;
+
+/**
+ * A named model configuration that prompt types are routed to, with its blocking and streaming models.
+ *
+ * @param name      the profile name, used as the {@code profile} metric tag
+ * @param settings  what the models were built from
+ * @param chat      the blocking model
+ * @param streaming the streaming model
+ */
+public record ModelProfile(String name, Settings settings, ChatLanguageModel chat, StreamingChatLanguageModel streaming) {
+
+    /**
+     * The configuration of a profile, read from {@code companion.models.<name>.*}.
+     *
+     * @param baseUrl           the OpenAI-compatible endpoint, e.g. a local model server
+     * @param apiKey            the endpoint's API key
+     * @param model             the model name
+     * @param temperature       the sampling temperature
+     * @param maxTokens         the most output tokens per call
+     * @param timeout           the HTTP timeout per call
+     * @param inputCostPer1k    the price of 1,000 input tokens, in USD
+     * @param outputCostPer1k   the price of 1,000 output tokens, in USD
+     * @param jsonSchema        whether the endpoint accepts a JSON schema response format; without it,
+     *                          structured calls fall back to plain JSON mode with the schema in the prompt
+     * @param strictJsonSchema  whether the endpoint should enforce the schema strictly
+     * @param requestsPerMinute the endpoint's request rate limit
+     * @param tokensPerMinute   the endpoint's token rate limit
+     */
+    public record Settings(String baseUrl, String apiKey, String model, double temperature, int maxTokens,
+                           Duration timeout, double inputCostPer1k, double outputCostPer1k,
+                           boolean jsonSchema, boolean strictJsonSchema,
+                           double requestsPerMinute, double tokensPerMinute) {}
+
+    /** The cost of a call in USD from its token counts. */
+    public double cost(long inputTokens, long outputTokens) {
+        return (inputTokens * settings.inputCostPer1k() + outputTokens * settings.outputCostPer1k()) / 1000;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.ai_companion.service;
+
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.BiFunction;
+
+/**
+ * Picks the model profile each prompt type is sent to.
+ *
+ * Profiles are listed in {@code companion.models.profiles} and configured under
+ * {@code companion.models.<name>.*}. Prompt types are mapped to profiles with
+ * {@code companion.models.routing.<prompt_type>}; unmapped types use the default profile.
+ * A profile's rate limits default to the gateway's {@code companion.llm-gateway.*-per-minute}.
+ * The models themselves are built by the active configuration: OpenAI-compatible clients
+ * normally, fakes under the load test.
+ */
+public class ModelRouter {
+
+    private static final String PREFIX = "companion.models.";
+
+    private final Map<String, ModelProfile> profiles;
+    private final Map<PromptType, ModelProfile> routes = new EnumMap<>(PromptType.class);
+
+    /**
+     * Reads the profiles and routes from the environment.
+     *
+     * @param environment   the Spring environment
+     * @param defaultApiKey the API key for profiles that do not set their own
+     * @param build         builds a profile's models from its name and settings
+     * @throws IllegalStateException if a route or the default names an unknown profile
+     */
+    public ModelRouter(Environment environment, String defaultApiKey,
+                       BiFunction<String, ModelProfile.Settings, ModelProfile> build) {
+        Map<String, ModelProfile> byName = new LinkedHashMap<>();
+        for (String name : environment.getProperty(PREFIX + "profiles", String[].class, new String[]{"main"})) {
+            String profile = name.trim();
+            byName.put(profile, build.apply(profile, settings(environment, profile, defaultApiKey)));
+        }
+        this.profiles = Collections.unmodifiableMap(byName);
+
+        ModelProfile fallback = profile(environment.getProperty(PREFIX + "default-profile", "main"), "default-profile");
+        for (PromptType type : PromptType.values()) {
+            String name = environment.getProperty(PREFIX + "routing." + type.tag());
+            routes.put(type, name != null ? profile(name.trim(), "routing." + type.tag()) : fallback);
+        }
+    }
+
+    /** The profile a prompt type is sent to. */
+    public ModelProfile route(PromptType type) {
+        return routes.get(type);
+    }
+
+    /** All profiles, by name. */
+    public Map<String, ModelProfile> profiles() {
+        return profiles;
+    }
+
+    private ModelProfile profile(String name, String property) {
+        ModelProfile profile = profiles.get(name);
+        if (profile == null) {
+            throw new IllegalStateException(PREFIX + property + " names unknown model profile '" + name
+                    + "'; known profiles are " + profiles.keySet());
+        }
+        return profile;
+    }
+
+    private static ModelProfile.Settings settings(Environment environment, String name, String defaultApiKey) {
+        String prefix = PREFIX + name + ".";
+        return new ModelProfile.Settings(
+                environment.getProperty(prefix + "base-url", "https://api.openai.com/v1"),
+                environment.getProperty(prefix + "api-key", defaultApiKey),
+                environment.getProperty(prefix + "model", "gpt-4o-mini"),
+                environment.getProperty(prefix + "temperature", Double.class, 0.7),
+                environment.getProperty(prefix + "max-tokens", Integer.class, 1024),
+                environment.getProperty(prefix + "timeout", Duration.class, Duration.ofSeconds(60)),
+                environment.getProperty(prefix + "input-cost-per-1k", Double.class, 0.0),
+                environment.getProperty(prefix + "output-cost-per-1k", Double.class, 0.0),
+                environment.getProperty(prefix + "json-schema", Boolean.class, true),
+                environment.getProperty(prefix + "strict-json-schema", Boolean.class, true),
+                environment.getProperty(prefix + "requests-per-minute", Double.class,
+                        environment.getProperty("companion.llm-gateway.requests-per-minute", Double.class, 500.0)),
+                environment.getProperty(prefix + "tokens-per-minute", Double.class,
+                        environment.getProperty("companion.llm-gateway.tokens-per-minute", Double.class, 200000.0)));
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.ai_companion.service;
+
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.output.TokenUsage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Records how long each stage of a turn takes and what every LLM call costs.
+ *
+ * Meters:
+ * - {@code companion.stage.latency{stage}}: one timer per pipeline stage
+ * - {@code companion.llm.latency{prompt_type, profile, outcome}}: LLM call latency; its count is the number of calls
+ * - {@code companion.llm.first-token{prompt_type, profile}}: time to the first streamed token
+ * - {@code companion.llm.tokens{prompt_type, profile, direction}}: input and output tokens from the response's token usage
+ * - {@code companion.llm.cost{prompt_type, profile}}: USD spent, priced from the token usage by the profile's rates
+ */
+@Service
+public class PipelineMetrics {
+
+    @Autowired private MeterRegistry meterRegistry;
+
+    /**
+     * Sends a single-message prompt and records the call.
+     *
+     * @return the response text
+     */
+    public String chat(ModelProfile profile, PromptType type, String prompt) {
+        return chat(profile, type, ChatRequest.builder().messages(UserMessage.from(prompt)).build()).aiMessage().text();
+    }
+
+    /**
+     * Sends a chat request and records its latency, outcome and token usage.
+     */
+    public ChatResponse chat(ModelProfile profile, PromptType type, ChatRequest request) {
+        long start = System.nanoTime();
+        try {
+            ChatResponse response = profile.chat().chat(request);
+            recordCall(profile, type, "success", System.nanoTime() - start, response);
+            return response;
+        } catch (RuntimeException e) {
+            recordCall(profile, type, "error", System.nanoTime() - start, null);
+            throw e;
+        }
+    }
+
+    /**
+     * Wraps a streaming handler so the call's time to first token, latency, outcome and
+     * token usage are recorded. The clock starts when this method is called.
+     */
+    public StreamingChatResponseHandler track(ModelProfile profile, PromptType type, StreamingChatResponseHandler handler) {
+        long start = System.nanoTime();
+        AtomicBoolean firstToken = new AtomicBoolean(true);
+        return new StreamingChatResponseHandler() {
+            @Override
+            public void onPartialResponse(String partialResponse) {
+                if (firstToken.compareAndSet(true, false)) {
+                    Timer.builder("companion.llm.first-token")
+                            .tag("prompt_type", type.tag())
+                            .tag("profile", profile.name())
+                            .publishPercentileHistogram()
+                            .register(meterRegistry)
+                            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+                handler.onPartialResponse(partialResponse);
+            }
+
+            @Override
+            public void onCompleteResponse(ChatResponse completeResponse) {
+                recordCall(profile, type, "success", System.nanoTime() - start, completeResponse);
+                handler.onCompleteResponse(completeResponse);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                recordCall(profile, type, "error", System.nanoTime() - start, null);
+                handler.onError(error);
+            }
+        };
+    }
+
+    /**
+     * Runs a stage and records its duration, whether or not it succeeds.
+     */
+    public <T> T time(String stage, Supplier<T> task) {
+        long start = System.nanoTime();
+        try {
+            return task.get();
+        } finally {
+            recordStage(stage, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Runs a stage with no result and records its duration.
+     */
+    public void time(String stage, Runnable task) {
+        long start = System.nanoTime();
+        try {
+            task.run();
+        } finally {
+            recordStage(stage, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records the duration of a stage that was timed by the caller, such as an asynchronous one.
+     */
+    public void recordStage(String stage, long nanos) {
+        Timer.builder("companion.stage.latency")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void recordCall(ModelProfile profile, PromptType type, String outcome, long nanos, ChatResponse response) {
+        Timer.builder("companion.llm.latency")
+                .tag("prompt_type", type.tag())
+                .tag("profile", profile.name())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+
+        TokenUsage usage = response != null ? response.tokenUsage() : null;
+        if (usage == null) return;
+        long input = usage.inputTokenCount() != null ? usage.inputTokenCount() : 0;
+        long output = usage.outputTokenCount() != null ? usage.outputTokenCount() : 0;
+        meterRegistry.counter("companion.llm.tokens", "prompt_type", type.tag(), "profile", profile.name(), "direction", "input")
+                .increment(input);
+        meterRegistry.counter("companion.llm.tokens", "prompt_type", type.tag(), "profile", profile.name(), "direction", "output")
+                .increment(output);
+        meterRegistry.counter("companion.llm.cost", "prompt_type", type.tag(), "profile", profile.name())
+                .increment(profile.cost(input, output));
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.ai_companion.service;
+
+import dev.langchain4j.model.Tokenizer;
+import dev.langchain4j.model.openai.OpenAiTokenizer;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the variable sections of a prompt within a token ceiling.
+ *
+ * Tokens are counted locally with the model's tokenizer. The budget left after the fixed
+ * template and the user's message is handed out section by section in priority order, each
+ * section getting at most its own cap. A section over its allowance is cut at its natural
+ * boundaries, keeping the most valuable part:
+ * - core info keeps its leading sentences
+ * - the conversation summary keeps its leading sentences
+ * - history keeps the newest messages
+ * - memories keep the top-ranked entries
+ * - reminders keep the soonest, compacted to one line each if needed
+ * A section with no allowance left is replaced by "none".
+ */
+@Service
+public class PromptBudgeter {
+
+    private static final String NONE = "none";
+    private static final String ELLIPSIS = "…";
+
+    private static final Pattern MESSAGE_START = Pattern.compile("(?m)(?=^(?:User|Assistant): )");
+    private static final Pattern SENTENCE_END = Pattern.compile("(?<=[.!?])\\s+");
+    private static final Pattern BLANK_LINE = Pattern.compile("\\n\\s*\\n");
+
+    /** The budgeted sections of a prompt. */
+    public enum Section {
+        CORE_INFO, SUMMARY, HISTORY, MEMORIES, REMINDERS;
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Value("${companion.prompt-budget.enabled:true}")
+    private boolean enabled;
+
+    @Value("${companion.prompt-budget.tokenizer-model:gpt-4o-mini}")
+    private String tokenizerModel;
+
+    @Value("${companion.prompt-budget.max-prompt-tokens:3000}")
+    private int maxPromptTokens;
+
+    @Value("${companion.prompt-budget.priority:core_info,history,summary,memories,reminders}")
+    private List<String> priority;
+
+    @Value("${companion.prompt-budget.core-info-max-tokens:800}")
+    private int coreInfoMaxTokens;
+
+    @Value("${companion.prompt-budget.summary-max-tokens:400}")
+    private int summaryMaxTokens;
+
+    @Value("${companion.prompt-budget.history-max-tokens:1200}")
+    private int historyMaxTokens;
+
+    @Value("${companion.prompt-budget.memories-max-tokens:500}")
+    private int memoriesMaxTokens;
+
+    @Value("${companion.prompt-budget.reminders-max-tokens:300}")
+    private int remindersMaxTokens;
+
+    private Tokenizer tokenizer;
+    private List<Section> order;
+    private Map<Section, Integer> caps;
+
+    @PostConstruct
+    void init() {
+        tokenizer = new OpenAiTokenizer(tokenizerModel);
+
+        order = new ArrayList<>();
+        for (String name : priority) {
+            order.add(Section.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+        }
+        for (Section section : Section.values()) {
+            if (!order.contains(section)) order.add(section);
+        }
+
+        caps = new EnumMap<>(Section.class);
+        caps.put(Section.CORE_INFO, coreInfoMaxTokens);
+        caps.put(Section.SUMMARY, summaryMaxTokens);
+        caps.put(Section.HISTORY, historyMaxTokens);
+        caps.put(Section.MEMORIES, memoriesMaxTokens);
+        caps.put(Section.REMINDERS, remindersMaxTokens);
+    }
+
+    /**
+     * Counts the tokens in a piece of text.
+     */
+    public int countTokens(String text) {
+        return text == null || text.isEmpty() ? 0 : tokenizer.estimateTokenCountInText(text);
+    }
+
+    /**
+     * Fits the sections of a prompt into the budget left after its fixed part.
+     *
+     * @param type        the prompt being built, used to tag metrics
+     * @param fixedTokens tokens in the template and user's message, which are never cut
+     * @param sections    the prompt's sections; any not present are skipped
+     * @return the sections to use, each within its allowance
+     */
+    public Map<Section, String> fit(PromptType type, int fixedTokens, Map<Section, String> sections) {
+        Map<Section, String> fitted = new EnumMap<>(Section.class);
+        int available = Math.max(0, maxPromptTokens - fixedTokens);
+        int total = fixedTokens;
+
+        for (Section section : order) {
+            if (!sections.containsKey(section)) continue;
+            String text = sections.get(section) != null ? sections.get(section) : NONE;
+            int tokens = isNone(text) ? 0 : countTokens(text);
+
+            String result = text;
+            if (enabled && tokens > Math.min(caps.get(section), available)) {
+                result = shrink(section, text, Math.min(caps.get(section), available));
+                String action = isNone(result) ? "dropped" : "truncated";
+                meterRegistry.counter("companion.prompt.section.trimmed",
+                        "prompt", type.tag(), "section", section.tag(), "action", action).increment();
+                tokens = isNone(result) ? 0 : countTokens(result);
+            }
+
+            fitted.put(section, result);
+            available = Math.max(0, available - tokens);
+            total += tokens;
+            summary("companion.prompt.section.tokens", type).tag("section", section.tag())
+                    .register(meterRegistry).record(tokens);
+        }
+
+        summary("companion.prompt.tokens", type).register(meterRegistry).record(total);
+        return fitted;
+    }
+
+    private static DistributionSummary.Builder summary(String name, PromptType type) {
+        return DistributionSummary.builder(name)
+                .baseUnit("tokens")
+                .tag("prompt", type.tag())
+                .publishPercentileHistogram();
+    }
+
+    /** Cuts a section down to the allowance at its natural boundaries. */
+    private String shrink(Section section, String text, int allowance) {
+        if (allowance <= 0) return NONE;
+
+        return switch (section) {
+            case CORE_INFO, SUMMARY -> keepLeading(Arrays.asList(SENTENCE_END.split(text.trim())), " ", "", "", allowance);
+            case HISTORY -> keepNewestMessages(text, allowance);
+            case MEMORIES -> keepTopMemories(text, allowance);
+            case REMINDERS -> keepSoonestReminders(text, allowance);
+        };
+    }
+
+    /** Keeps the newest whole messages that fit, or the start of the newest message if none does. */
+    private String keepNewestMessages(String text, int allowance) {
+        List<String> messages = new ArrayList<>();
+        for (String message : MESSAGE_START.split(text.trim())) {
+            if (!message.isBlank()) messages.add(message.strip());
+        }
+
+        Deque<String> kept = new ArrayDeque<>();
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            kept.addFirst(messages.get(i));
+            if (countTokens(String.join("\n", kept)) > allowance) {
+                kept.removeFirst();
+                break;
+            }
+        }
+        if (!kept.isEmpty()) return String.join("\n", kept);
+        return messages.isEmpty() ? NONE : clip(messages.get(messages.size() - 1), allowance);
+    }
+
+    /** Keeps the leading entries of a recalled memory list, which the memory store returns best match first. */
+    private String keepTopMemories(String text, int allowance) {
+        String trimmed = text.trim();
+        if (trimmed.startsWith("[") && trimmed.endsWith("]")) {
+            List<String> entries = Arrays.asList(trimmed.substring(1, trimmed.length() - 1).split(", "));
+            return keepLeading(entries, ", ", "[", "]", allowance);
+        }
+        return clip(trimmed, allowance);
+    }
+
+    /** Keeps the soonest whole reminders, falling back to one "title (due)" line per reminder. */
+    private String keepSoonestReminders(String text, int allowance) {
+        List<String> blocks = Arrays.asList(BLANK_LINE.split(text.trim()));
+        if (!blocks.isEmpty() && countTokens(blocks.get(0)) <= allowance) {
+            return keepLeading(blocks, "\n\n", "", "", allowance);
+        }
+
+        List<String> compact = new ArrayList<>();
+        for (String block : blocks) {
+            String title = null;
+            String due = null;
+            for (String line : block.split("\n")) {
+                if (line.startsWith("Title: ")) title = line.substring(7).trim();
+                else if (line.startsWith("Due: ")) due = line.substring(5).trim();
+            }
+            compact.add(title != null ? title + (due != null ? " (" + due + ")" : "") : block.replace('\n', ' '));
+        }
+        return keepLeading(compact, "\n", "", "", allowance);
+    }
+
+    /**
+     * Keeps as many leading items as fit once joined and wrapped, or the clipped first item if none do.
+     */
+    private String keepLeading(List<String> items, String separator, String prefix, String suffix, int allowance) {
+        int count = 0;
+        while (count < items.size()
+                && countTokens(prefix + String.join(separator, items.subList(0, count + 1)) + suffix) <= allowance) {
+            count++;
+        }
+        if (count > 0) return prefix + String.join(separator, items.subList(0, count)) + suffix;
+        return items.isEmpty() ? NONE : clip(items.get(0), allowance);
+    }
+
+    /** Cuts text at a word boundary so that it and a trailing ellipsis fit the allowance. */
+    private String clip(String text, int allowance) {
+        String[] words = text.trim().split("\\s+");
+        int low = 0;
+        int high = words.length;
+        while (low < high) {
+            int mid = (low + high + 1) / 2;
+            String candidate = String.join(" ", Arrays.copyOf(words, mid)) + ELLIPSIS;
+            if (countTokens(candidate) <= allowance) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low == 0 ? NONE : String.join(" ", Arrays.copyOf(words, low)) + ELLIPSIS;
+    }
+
+    private static boolean isNone(String text) {
+        return text == null || text.isBlank() || NONE.equalsIgnoreCase(text.trim());
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.ai_companion.service;
+
+import java.util.Locale;
+
+/**
+ * The kinds of prompt the backend sends to an LLM, used to tag call and token metrics and
+ * to pick the {@link LLMGateway} lane a call queues in.
+ */
+public enum PromptType {
+    CHAT(Lane.INTERACTIVE),
+    QUERY_REWRITE(Lane.INTERACTIVE),
+    TURN_EXTRACTION(Lane.BACKGROUND),
+    REMINDER_EXTRACTION(Lane.BACKGROUND),
+    CORE_EXTRACTION(Lane.BACKGROUND),
+    MEMORY_EXTRACTION(Lane.BACKGROUND),
+    CORE_MERGE(Lane.BACKGROUND),
+    CONVERSATION_SUMMARY(Lane.BACKGROUND),
+    COGNITIVE_GAME(Lane.INTERACTIVE),
+    GAME_GENERATION(Lane.BACKGROUND);
+
+    /** Interactive calls have a user waiting on them; background calls yield to them. */
+    public enum Lane {
+        INTERACTIVE, BACKGROUND;
+
+        /** The metric tag value, e.g. "background". */
+        public String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final Lane lane;
+
+    PromptType(Lane lane) {
+        this.lane = lane;
+    }
+
+    /** The gateway lane this prompt's calls queue in. */
+    public Lane lane() {
+        return lane;
+    }
+
+    /** The metric tag value, e.g. "query_rewrite". */
+    public String tag() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
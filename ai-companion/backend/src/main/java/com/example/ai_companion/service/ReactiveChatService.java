@@ -0,0 +1,194 @@
+package com.example.ai_companion.service;
+
+import com.example.ai_companion.model.Message;
+import com.example.ai_companion.model.User;
+import com.example.ai_companion.repository.reactive.ReactiveMessageRepository;
+import com.example.ai_companion.repository.reactive.ReactiveReminderRepository;
+import com.example.ai_companion.repository.reactive.ReactiveUserRepository;
+import com.example.ai_companion.utils.logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Non-blocking counterpart of {@link LLMService} for the reactive profile.
+ *
+ * Context stages read from reactive repositories and the memory service's WebClient, and
+ * every LLM call goes through the streaming model, so a turn holds no thread while it waits
+ * on Mongo, the memory service or the LLM. Stages keep the same deadlines and "none"
+ * fallbacks as {@link ChatContextBuilder}.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveChatService {
+
+    private static final String NONE = "none";
+
+    @Autowired private LLMGateway llmGateway;
+    @Autowired private ReactiveUserRepository userRepository;
+    @Autowired private ReactiveMessageRepository messageRepository;
+    @Autowired private ReactiveReminderRepository reminderRepository;
+    @Autowired private RecentMessageCache<Message> chatHistoryCache;
+    @Autowired private MemoryQueryRewriter memoryQueryRewriter;
+    @Autowired private RecallCache recallCache;
+    @Autowired private MemoryStore memoryStore;
+    @Autowired(required = false) private ReactiveMemoryClient reactiveMemoryClient;
+    @Autowired private LLMService llmService;
+    @Autowired private PipelineMetrics pipelineMetrics;
+    @Autowired private ConversationSummarizer conversationSummarizer;
+
+    @Value("${companion.history.window-size:10}")
+    private int historyWindow;
+
+    @Value("${companion.context.user-timeout-ms:1000}")
+    private long userTimeoutMs;
+
+    @Value("${companion.context.history-timeout-ms:1000}")
+    private long historyTimeoutMs;
+
+    @Value("${companion.context.reminders-timeout-ms:1000}")
+    private long remindersTimeoutMs;
+
+    @Value("${companion.context.query-timeout-ms:4000}")
+    private long queryTimeoutMs;
+
+    @Value("${companion.context.recall-timeout-ms:2000}")
+    private long recallTimeoutMs;
+
+    /**
+     * Generates a response to the user's query, then persists the turn and queues extraction.
+     *
+     * @param userId the user ID
+     * @param query  the user's message
+     * @return the assistant's response
+     */
+    public Mono<String> generateAndTrack(String userId, String query) {
+        return preparePrompt(userId, query).flatMap(prompt -> ReactiveStreaming.text(llmGateway, PromptType.CHAT, prompt,
+                responseText -> completeTurn(userId, query, responseText),
+                error -> logger.logToFile(userId, "LLM call failed: " + error.getMessage())));
+    }
+
+    /**
+     * Streams a response to the user's query token by token. The turn is persisted once the
+     * stream completes, even if the client has disconnected.
+     *
+     * @param userId the user ID
+     * @param query  the user's message
+     * @return the response tokens
+     */
+    public Flux<String> streamAndTrack(String userId, String query) {
+        return preparePrompt(userId, query).flatMapMany(prompt -> ReactiveStreaming.tokens(llmGateway, PromptType.CHAT, prompt,
+                responseText -> completeTurn(userId, query, responseText),
+                error -> logger.logToFile(userId, "LLM stream failed: " + error.getMessage())));
+    }
+
+    private Mono<String> preparePrompt(String userId, String query) {
+        return ReactiveStreaming.timed(pipelineMetrics, "context", buildContext(userId, query))
+                .map(context -> llmService.buildPrompt(userId, context, query));
+    }
+
+    /** Assembles the same context as {@link ChatContextBuilder#build}, without blocking. */
+    private Mono<ChatContext> buildContext(String userId, String query) {
+        Mono<Optional<User>> user = stage("user lookup", userTimeoutMs,
+                userRepository.findById(userId).map(Optional::of), Optional.<User>empty())
+                .cache();
+        Mono<String> coreInfo = user.map(found -> found
+                .map(u -> u.getCoreInformation() != null ? u.getCoreInformation() : NONE)
+                .orElse(NONE));
+        Mono<String> summary = user.map(found -> found
+                .map(u -> u.getConversationSummary() != null ? u.getConversationSummary() : NONE)
+                .orElse(NONE));
+        Mono<List<Message>> recentMessages = stage("chat history", historyTimeoutMs, messageRepository
+                .findHistoryByUserId(userId, PageRequest.of(0, historyWindow, Sort.by(Sort.Direction.DESC, "timestamp")))
+                .collectList()
+                .map(messages -> {
+                    List<Message> chronological = new ArrayList<>(messages);
+                    Collections.reverse(chronological);
+                    return chronological;
+                }), List.of());
+        Mono<String> chatHistory = Mono.zip(user, recentMessages)
+                .map(parts -> ChatContextBuilder.formatHistory(conversationSummarizer.unsummarized(parts.getT2(),
+                        parts.getT1().map(User::getSummarizedThrough).orElse(null))))
+                .cache();
+        Mono<String> reminderBlock = stage("reminders", remindersTimeoutMs, reminderRepository
+                .findUpcomingSummaries(userId, Instant.now(), PageRequest.of(0, 10))
+                .collectList()
+                .map(ChatContextBuilder::formatReminders));
+
+        Mono<String> memoryQuery = !memoryQueryRewriter.needsRecall(query)
+                ? Mono.just(NONE)
+                : Mono.zip(coreInfo, chatHistory).flatMap(parts -> stage("query rewrite", queryTimeoutMs,
+                        Mono.fromFuture(() -> memoryQueryRewriter.rewriteAsync(query, parts.getT2(), parts.getT1(),
+                                Duration.ofMillis(queryTimeoutMs)))));
+        memoryQuery = memoryQuery.cache();
+
+        Mono<String> memoryContext = memoryQuery.flatMap(search -> NONE.equalsIgnoreCase(search.trim())
+                ? Mono.just(NONE)
+                : stage("recall", recallTimeoutMs, fetchMemoryContext(userId, search)));
+
+        return Mono.zip(coreInfo, summary, chatHistory, reminderBlock, memoryQuery, memoryContext)
+                .map(parts -> new ChatContext(parts.getT1(), parts.getT2(), parts.getT3(), parts.getT4(), parts.getT5(), parts.getT6()));
+    }
+
+    /** Bounds a stage by its own deadline. Failures, timeouts and empty results all resolve to "none". */
+    private Mono<String> stage(String name, long timeoutMs, Mono<String> task) {
+        return stage(name, timeoutMs, task, NONE);
+    }
+
+    /** Bounds a stage as above, resolving failures, timeouts and empty results to the fallback. */
+    private <T> Mono<T> stage(String name, long timeoutMs, Mono<T> task, T fallback) {
+        return ReactiveStreaming.timed(pipelineMetrics, name.replace(' ', '_'), task.defaultIfEmpty(fallback))
+                .timeout(Duration.ofMillis(timeoutMs))
+                .onErrorResume(error -> {
+                    if (error instanceof TimeoutException) {
+                        System.err.println("Context stage '" + name + "' timed out after " + timeoutMs + "ms");
+                    } else {
+                        System.err.println("Context stage '" + name + "' failed: " + error.getMessage());
+                    }
+                    return Mono.just(fallback);
+                });
+    }
+
+    /**
+     * Fetches memory context from the recall cache, otherwise from the memory service's WebClient.
+     * The in-process store is searched on the bounded elastic scheduler.
+     */
+    private Mono<String> fetchMemoryContext(String userId, String query) {
+        long generation = recallCache.generation(userId);
+        String cached = recallCache.get(userId, generation, query);
+        if (cached != null) return Mono.just(cached);
+
+        Mono<String> memories = reactiveMemoryClient != null
+                ? reactiveMemoryClient.recall(userId, query)
+                : Mono.fromCallable(() -> memoryStore.recall(userId, query)).subscribeOn(Schedulers.boundedElastic());
+        return memories.doOnNext(result -> recallCache.put(userId, generation, query, result));
+    }
+
+    /**
+     * Logs the response, saves both messages, then queues extraction for the turn. If a save fails
+     * the turn is not extracted, since its messages never made it into the history.
+     */
+    private Mono<Void> completeTurn(String userId, String query, String responseText) {
+        logger.logToFile(userId, "LLM Response " + responseText);
+        Mono<Message> persist = Mono.defer(() -> messageRepository.save(new Message(userId, query, true, Instant.now())))
+                .doOnNext(saved -> chatHistoryCache.append(userId, saved))
+                .then(Mono.defer(() -> messageRepository.save(new Message(userId, responseText, false, Instant.now()))))
+                .doOnNext(saved -> chatHistoryCache.append(userId, saved));
+        return ReactiveStreaming.timed(pipelineMetrics, "persist", persist)
+                .then(Mono.fromRunnable(() -> llmService.extractFromTurn(userId, query, responseText)));
+    }
+}
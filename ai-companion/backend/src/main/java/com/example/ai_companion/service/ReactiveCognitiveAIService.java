@@ -0,0 +1,114 @@
+package com.example.ai_companion.service;
+
+import com.example.ai_companion.model.CognitiveMessage;
+import com.example.ai_companion.model.Game;
+import com.example.ai_companion.repository.reactive.ReactiveCognitiveMessageRepository;
+import com.example.ai_companion.repository.reactive.ReactiveUserRepository;
+import com.example.ai_companion.utils.logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of {@link CognitiveAIService} for the reactive profile.
+ * Game bank lookups, which may load a user's played games from Mongo, run on the bounded elastic scheduler.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveCognitiveAIService {
+
+    @Autowired private LLMGateway llmGateway;
+    @Autowired private ReactiveCognitiveMessageRepository cognitiveMessageRepository;
+    @Autowired private ReactiveUserRepository userRepository;
+    @Autowired private RecentMessageCache<CognitiveMessage> cognitiveHistoryCache;
+    @Autowired private PipelineMetrics pipelineMetrics;
+    @Autowired private CognitiveAIService cognitiveAIService;
+
+    @Value("${companion.history.window-size:10}")
+    private int historyWindow;
+
+    /** The context for a game turn: a game from the bank, or the prompt for the LLM. */
+    private record GameTurn(Game game, String prompt) {}
+
+    /**
+     * Generates the assistant's game response and stores the turn.
+     *
+     * @param userId   The user ID.
+     * @param question The user's input message.
+     * @return The assistant's generated response.
+     */
+    public Mono<String> generateGamePrompt(String userId, String question) {
+        return prepareTurn(userId, question).flatMap(turn -> turn.game() != null
+                ? persistTurn(userId, question, turn.game().getText(), turn.game().getId()).thenReturn(turn.game().getText())
+                : ReactiveStreaming.text(llmGateway, PromptType.COGNITIVE_GAME, turn.prompt(),
+                        response -> persistTurn(userId, question, response, null),
+                        error -> logger.logToFile(userId, "CognitiveAI call failed: " + error.getMessage())));
+    }
+
+    /**
+     * Streams the assistant's game response token by token and stores the turn once the stream completes.
+     *
+     * @param userId   The user ID.
+     * @param question The user's input message.
+     * @return The response tokens.
+     */
+    public Flux<String> streamGamePrompt(String userId, String question) {
+        return prepareTurn(userId, question).flatMapMany(turn -> turn.game() != null
+                ? persistTurn(userId, question, turn.game().getText(), turn.game().getId()).thenMany(Flux.just(turn.game().getText()))
+                : ReactiveStreaming.tokens(llmGateway, PromptType.COGNITIVE_GAME, turn.prompt(),
+                        response -> persistTurn(userId, question, response, null),
+                        error -> logger.logToFile(userId, "CognitiveAI stream failed: " + error.getMessage())));
+    }
+
+    private Mono<GameTurn> prepareTurn(String userId, String question) {
+        Mono<String> coreInfo = userRepository.findById(userId)
+                .map(user -> user.getCoreInformation() != null ? user.getCoreInformation() : "none")
+                .defaultIfEmpty("none");
+        Mono<List<CognitiveMessage>> recentMessages = cognitiveMessageRepository
+                .findHistoryByUserId(userId, PageRequest.of(0, historyWindow, Sort.by(Sort.Direction.DESC, "timestamp")))
+                .collectList()
+                .map(messages -> {
+                    List<CognitiveMessage> chronological = new ArrayList<>(messages);
+                    Collections.reverse(chronological);
+                    return chronological;
+                });
+
+        return ReactiveStreaming.timed(pipelineMetrics, "game_context", Mono.zip(coreInfo, recentMessages).flatMap(parts ->
+                Mono.fromCallable(() -> cognitiveAIService.serveFromBank(userId, parts.getT1(), question, parts.getT2()))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .map(game -> game.isPresent()
+                                ? new GameTurn(game.get(), null)
+                                : promptTurn(userId, cognitiveAIService.budgetedGamePrompt(parts.getT1(), question, parts.getT2())))));
+    }
+
+    private GameTurn promptTurn(String userId, String prompt) {
+        logger.logToFile(userId, "CognitiveAI Prompt: " + prompt);
+        return new GameTurn(null, prompt);
+    }
+
+    /** Logs the response and saves the user's message and the assistant's reply, with the game it served, if any. */
+    private Mono<Void> persistTurn(String userId, String question, String response, String gameId) {
+        logger.logToFile(userId, "CognitiveAI Response: " + response);
+        return ReactiveStreaming.timed(pipelineMetrics, "game_persist",
+                Mono.defer(() -> cognitiveMessageRepository.save(new CognitiveMessage(userId, question, true, Instant.now())))
+                        .doOnNext(saved -> cognitiveHistoryCache.append(userId, saved))
+                        .then(Mono.defer(() -> {
+                            CognitiveMessage reply = new CognitiveMessage(userId, response, false, Instant.now());
+                            reply.setGameId(gameId);
+                            return cognitiveMessageRepository.save(reply);
+                        }))
+                        .doOnNext(saved -> cognitiveHistoryCache.append(userId, saved)))
+                .then();
+    }
+}
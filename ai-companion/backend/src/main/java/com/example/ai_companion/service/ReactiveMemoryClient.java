@@ -0,0 +1,90 @@
+package com.example.ai_companion.service;
+
+import com.example.ai_companion.utils.CircuitBreaker;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Non-blocking client for the memory embedding service's /recall endpoint, used by the
+ * reactive profile. Writes still go through the {@link MemoryOutbox}.
+ *
+ * Applies the same read timeout and circuit breaker settings as {@link MemoryServiceClient}.
+ * An empty result means the service was unavailable, so it is not cached.
+ */
+@Service
+@Profile("reactive")
+@ConditionalOnProperty(name = "companion.memory-store", havingValue = "remote", matchIfMissing = true)
+public class ReactiveMemoryClient {
+
+    private static final String NONE = "none";
+
+    @Autowired private WebClient.Builder webClientBuilder;
+
+    @Value("${companion.memory-service.url:http://localhost:8000}")
+    private String baseUrl;
+
+    @Value("${companion.memory-service.read-timeout-ms:1500}")
+    private long readTimeoutMs;
+
+    @Value("${companion.memory-service.recall-top-k:10}")
+    private int recallTopK;
+
+    @Value("${companion.memory-service.breaker.failure-threshold:5}")
+    private int breakerFailureThreshold;
+
+    @Value("${companion.memory-service.breaker.open-ms:30000}")
+    private long breakerOpenMs;
+
+    private WebClient webClient;
+    private CircuitBreaker circuitBreaker;
+
+    @PostConstruct
+    void init() {
+        webClient = webClientBuilder.baseUrl(baseUrl).build();
+        circuitBreaker = new CircuitBreaker(breakerFailureThreshold, breakerOpenMs);
+    }
+
+    /**
+     * Recalls memories related to the query.
+     *
+     * @return the related memories or "none", or empty if the service is unavailable
+     */
+    public Mono<String> recall(String userId, String query) {
+        if (!circuitBreaker.allowRequest()) return Mono.empty();
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("user_id", userId);
+        body.put("query", query);
+        body.put("top_k", recallTopK);
+
+        return webClient.post()
+                .uri("/recall")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .retrieve()
+                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
+                .map(response -> {
+                    Object memories = response.get("related_memories");
+                    return memories != null ? memories.toString() : NONE;
+                })
+                .timeout(Duration.ofMillis(readTimeoutMs))
+                .doOnNext(memories -> circuitBreaker.recordSuccess())
+                .onErrorResume(error -> {
+                    circuitBreaker.recordFailure();
+                    System.err.println("Memory service recall failed: " + error.getMessage());
+                    return Mono.empty();
+                });
+    }
+}
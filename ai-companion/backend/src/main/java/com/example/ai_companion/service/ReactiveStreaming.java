@@ -0,0 +1,96 @@
+package com.example.ai_companion.service;
+
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Bridges streaming LLM responses to Reactor types.
+ *
+ * Once the complete response arrives, an after-complete step (typically persisting the turn)
+ * runs before the publisher completes. It runs even if the subscriber has already cancelled,
+ * so a client disconnecting mid-stream does not lose the turn. Every call goes through the
+ * {@link LLMGateway}, which queues, retries and records it under its prompt type.
+ */
+final class ReactiveStreaming {
+
+    private ReactiveStreaming() {
+    }
+
+    /**
+     * Streams the response token by token.
+     *
+     * @param gateway       sends the call
+     * @param type          the kind of prompt
+     * @param prompt        the prompt to send
+     * @param afterComplete runs with the full response text before the stream completes
+     * @param onError       called if the model fails
+     */
+    static Flux<String> tokens(LLMGateway gateway, PromptType type, String prompt,
+                               Function<String, Mono<Void>> afterComplete, Consumer<Throwable> onError) {
+        return Flux.create(sink -> gateway.stream(type, prompt, new StreamingChatResponseHandler() {
+            @Override
+            public void onPartialResponse(String partialResponse) {
+                sink.next(partialResponse);
+            }
+
+            @Override
+            public void onCompleteResponse(ChatResponse completeResponse) {
+                afterComplete.apply(completeResponse.aiMessage().text())
+                        .subscribe(ignored -> {}, sink::error, sink::complete);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                onError.accept(error);
+                sink.error(error);
+            }
+        }));
+    }
+
+    /**
+     * Emits the full response once it has been generated, without holding a thread while waiting.
+     *
+     * @param gateway       sends the call
+     * @param type          the kind of prompt
+     * @param prompt        the prompt to send
+     * @param afterComplete runs with the full response text before it is emitted
+     * @param onError       called if the model fails
+     */
+    static Mono<String> text(LLMGateway gateway, PromptType type, String prompt,
+                             Function<String, Mono<Void>> afterComplete, Consumer<Throwable> onError) {
+        return Mono.create(sink -> gateway.stream(type, prompt, new StreamingChatResponseHandler() {
+            @Override
+            public void onPartialResponse(String partialResponse) {
+                // Only the complete response is emitted.
+            }
+
+            @Override
+            public void onCompleteResponse(ChatResponse completeResponse) {
+                String text = completeResponse.aiMessage().text();
+                afterComplete.apply(text)
+                        .subscribe(ignored -> {}, sink::error, () -> sink.success(text));
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                onError.accept(error);
+                sink.error(error);
+            }
+        }));
+    }
+
+    /**
+     * Records how long a publisher takes from subscription until it terminates or is cancelled.
+     */
+    static <T> Mono<T> timed(PipelineMetrics metrics, String stage, Mono<T> task) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return task.doFinally(signal -> metrics.recordStage(stage, System.nanoTime() - start));
+        });
+    }
+}
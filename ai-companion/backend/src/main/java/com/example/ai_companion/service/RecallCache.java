@@ -0,0 +1,110 @@
+package com.example.ai_companion.service;
+
+import com.example.ai_companion.utils.LruCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches recall results per user and normalized query, bounded by total entries with LRU eviction.
+ *
+ * Each user has a generation number that is part of every key. Storing a new memory moves
+ * the user to a fresh generation, so all of their earlier results stop matching in O(1) and
+ * age out of the LRU. Callers read the generation before recalling and store the result
+ * under it, so a memory stored while a recall is in flight still invalidates that result.
+ * Generations are drawn from one global counter, so a user's can be dropped once all their
+ * entries have expired without an older generation ever matching again.
+ */
+@Service
+public class RecallCache {
+
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Value("${companion.recall-cache.max-entries:20000}")
+    private int maxEntries;
+
+    @Value("${companion.recall-cache.ttl-ms:1800000}")
+    private long ttlMs;
+
+    private final AtomicLong nextGeneration = new AtomicLong();
+    private final Map<String, Generation> generations = new ConcurrentHashMap<>();
+    private LruCache<Key, String> cache;
+    private Counter hits;
+    private Counter misses;
+    private Counter invalidations;
+
+    private record Key(String userId, long generation, String query) {}
+
+    /** A user's current generation and when an entry was last stored or invalidated for them. */
+    private record Generation(long value, long touchedAt) {}
+
+    @PostConstruct
+    void init() {
+        cache = new LruCache<>(maxEntries, ttlMs);
+        hits = meterRegistry.counter("companion.recall.cache", "outcome", "hit");
+        misses = meterRegistry.counter("companion.recall.cache", "outcome", "miss");
+        invalidations = meterRegistry.counter("companion.recall.cache.invalidations");
+        Gauge.builder("companion.recall.cache.size", cache, LruCache::size).register(meterRegistry);
+    }
+
+    /**
+     * @param userId the user ID
+     * @return the user's current generation, to pass to {@link #get} and {@link #put}
+     */
+    public long generation(String userId) {
+        Generation generation = generations.get(userId);
+        return generation != null ? generation.value() : 0;
+    }
+
+    /**
+     * @param userId     the user ID
+     * @param generation the generation read before the lookup
+     * @param query      the memory search query
+     * @return the cached recall result, or null on a miss
+     */
+    public String get(String userId, long generation, String query) {
+        String result = cache.get(new Key(userId, generation, MemoryQueryRewriter.normalize(query)));
+        if (result != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return result;
+    }
+
+    /**
+     * Caches a recall result under the generation read before the recall started. If a memory
+     * was stored meanwhile, the result is filed under the old generation and never served.
+     */
+    public void put(String userId, long generation, String query, String result) {
+        long now = System.currentTimeMillis();
+        generations.computeIfPresent(userId, (id, current) -> new Generation(current.value(), now));
+        cache.put(new Key(userId, generation, MemoryQueryRewriter.normalize(query)), result);
+    }
+
+    /**
+     * Discards every cached result for a user, e.g. after a new memory is stored.
+     *
+     * @param userId the user ID
+     */
+    public void invalidate(String userId) {
+        generations.put(userId, new Generation(nextGeneration.incrementAndGet(), System.currentTimeMillis()));
+        invalidations.increment();
+    }
+
+    /** Drops the generation of users whose cached entries have all expired. */
+    @Scheduled(fixedDelayString = "${companion.history.eviction-interval-ms:60000}")
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - ttlMs;
+        generations.values().removeIf(generation -> generation.touchedAt() < cutoff);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.ai_companion.service;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Write-through cache of each user's most recent messages, kept as a bounded ring per user.
+ *
+ * A user's window is loaded from the database on first access, appended to whenever a new
+ * message is saved, reloaded after a delete, and evicted once the user has been inactive
+ * for the idle timeout. In steady state, building chat history costs no database reads.
+ *
+ * @param <T> the message type
+ */
+public class RecentMessageCache<T> {
+
+    private final int capacity;
+    private final long idleTimeoutMs;
+    private final Function<String, List<T>> loader;
+    private final Comparator<T> chronological;
+    private final Function<T, String> idOf;
+    private final Map<String, Window<T>> windows = new ConcurrentHashMap<>();
+
+    /** The cached messages for one user, oldest first. */
+    private static final class Window<T> {
+        private final ArrayDeque<T> messages;
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        private Window(int capacity) {
+            this.messages = new ArrayDeque<>(capacity);
+        }
+    }
+
+    /**
+     * @param capacity      number of messages kept per user
+     * @param idleTimeoutMs how long an unused window is kept
+     * @param loader        loads up to {@code capacity} of a user's most recent messages, in any order
+     * @param timestampOf   the message timestamp used to order a loaded window
+     * @param idOf          the message ID, used to skip a message the window already holds
+     */
+    public RecentMessageCache(int capacity, long idleTimeoutMs, Function<String, List<T>> loader,
+                              Function<T, Instant> timestampOf, Function<T, String> idOf) {
+        this.capacity = capacity;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.loader = loader;
+        this.chronological = Comparator.comparing(timestampOf);
+        this.idOf = idOf;
+    }
+
+    /**
+     * Returns the user's most recent messages in chronological order, loading them on first access.
+     *
+     * @param userId the user ID
+     * @return a snapshot of up to {@code capacity} messages, oldest first
+     */
+    public List<T> recent(String userId) {
+        Window<T> window = windows.computeIfAbsent(userId, this::load);
+        window.lastAccess = System.currentTimeMillis();
+        synchronized (window) {
+            return new ArrayList<>(window.messages);
+        }
+    }
+
+    /**
+     * Adds a newly saved message to the user's window, dropping the oldest if full.
+     * Does nothing if the user's window is not loaded; it will include the message when it is.
+     * A window loaded after the message was saved already holds it, so a message whose ID is
+     * already in the window is skipped.
+     *
+     * @param userId  the user ID
+     * @param message the saved message
+     */
+    public void append(String userId, T message) {
+        windows.computeIfPresent(userId, (id, window) -> {
+            synchronized (window) {
+                if (contains(window, message)) return window;
+                if (window.messages.size() == capacity) {
+                    window.messages.removeFirst();
+                }
+                window.messages.addLast(message);
+            }
+            window.lastAccess = System.currentTimeMillis();
+            return window;
+        });
+    }
+
+    /**
+     * Drops the user's window so it is reloaded on next access, e.g. after a message is deleted.
+     *
+     * @param userId the user ID
+     */
+    public void invalidate(String userId) {
+        windows.remove(userId);
+    }
+
+    /** Evicts the windows of users who have been inactive for longer than the idle timeout. */
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMs;
+        windows.entrySet().removeIf(entry -> entry.getValue().lastAccess < cutoff);
+    }
+
+    /** Number of users with a cached window. */
+    public int size() {
+        return windows.size();
+    }
+
+    private boolean contains(Window<T> window, T message) {
+        String id = idOf.apply(message);
+        if (id == null) return false;
+        for (T cached : window.messages) {
+            if (Objects.equals(id, idOf.apply(cached))) return true;
+        }
+        return false;
+    }
+
+    private Window<T> load(String userId) {
+        List<T> loaded = new ArrayList<>(loader.apply(userId));
+        loaded.sort(chronological);
+        Window<T> window = new Window<>(capacity);
+        int skip = Math.max(0, loaded.size() - capacity);
+        for (int i = skip; i < loaded.size(); i++) {
+            window.messages.addLast(loaded.get(i));
+        }
+        return window;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.ai_companion.service;
+
+import com.example.ai_companion.model.Reminder;
+
+/**
+ * Receives reminder events from the {@link ReminderScheduler}. Provide a bean of this type
+ * to deliver notifications; by default events are only written to the user's log.
+ */
+public interface ReminderNotifier {
+
+    /** Called when an incomplete reminder reaches its due time. */
+    void onDue(Reminder reminder);
+
+    /** Called after an overdue reminder has been marked as missed. */
+    void onMissed(Reminder reminder);
+}
@@ -0,0 +1,228 @@
+package com.example.ai_companion.service;
+
+import com.example.ai_companion.model.Reminder;
+import com.example.ai_companion.model.ReminderStatus;
+import com.example.ai_companion.utils.TimingWheel;
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fires reminder events from an in-process hierarchical timing wheel.
+ *
+ * Each incomplete reminder holds two timers: one at its due time, which notifies the
+ * {@link ReminderNotifier}, and one at the end of the grace window, which marks the reminder
+ * as MISSED if it is still incomplete. All incomplete reminders are loaded once at startup,
+ * and those that fell due while the application was down but are still within the grace
+ * window are notified straight away; after that, creates, updates and deletes are applied
+ * through {@link #onSaved} and {@link #onDeleted} instead of rescanning the collection.
+ */
+@Service
+public class ReminderScheduler {
+
+    @Autowired private MongoTemplate mongoTemplate;
+    @Autowired private ReminderNotifier reminderNotifier;
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Value("${companion.reminders.tick-ms:100}")
+    private long tickMs;
+
+    @Value("${companion.reminders.wheel-bits:6}")
+    private int wheelBits;
+
+    @Value("${companion.reminders.wheel-levels:4}")
+    private int wheelLevels;
+
+    @Value("${companion.reminders.grace-period:30m}")
+    private Duration gracePeriod;
+
+    /** Which of a reminder's two timers fired. */
+    private enum Phase { DUE, MISSED }
+
+    private record TimerKey(String reminderId, Phase phase) {}
+
+    private record ReminderEvent(Phase phase, Reminder reminder) {}
+
+    private final ReentrantLock wheelLock = new ReentrantLock();
+    private volatile TimingWheel<TimerKey, ReminderEvent> wheel;
+    private ScheduledExecutorService ticker;
+    private ExecutorService dispatcher;
+
+    private Counter dueCounter;
+    private Counter missedCounter;
+
+    /**
+     * Marks reminders that went past their grace window while the application was down, then
+     * loads the rest into the wheel, firing any that are already due on the first tick.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        wheel = new TimingWheel<>(tickMs, wheelBits, wheelLevels, System.currentTimeMillis());
+        dueCounter = meterRegistry.counter("companion.reminders.fired", "event", "due");
+        missedCounter = meterRegistry.counter("companion.reminders.fired", "event", "missed");
+        Gauge.builder("companion.reminders.scheduled", this, scheduler -> scheduler.scheduledCount())
+                .register(meterRegistry);
+
+        Instant missedBefore = Instant.now().minus(gracePeriod);
+        UpdateResult missed = mongoTemplate.updateMulti(
+                Query.query(Criteria.where("status").is(ReminderStatus.INCOMPLETE).and("timestamp").lt(missedBefore)),
+                Update.update("status", ReminderStatus.MISSED),
+                Reminder.class);
+        missedCounter.increment(missed.getModifiedCount());
+
+        Query pending = Query.query(Criteria.where("status").is(ReminderStatus.INCOMPLETE).and("timestamp").gte(missedBefore));
+        try (CloseableIterator<Reminder> reminders = mongoTemplate.stream(pending, Reminder.class)) {
+            while (reminders.hasNext()) {
+                schedule(reminders.next(), true);
+            }
+        }
+
+        dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reminder-dispatch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reminder-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Schedules or reschedules a reminder after it has been created or updated.
+     * Reminders that are no longer incomplete are removed from the wheel.
+     *
+     * @param reminder the saved reminder
+     */
+    public void onSaved(Reminder reminder) {
+        schedule(reminder, false);
+    }
+
+    /**
+     * (Re)places a reminder's timers. Its due timer is only set while the due time is still
+     * ahead, unless {@code fireOverdue} asks for an overdue reminder to be notified on the next tick.
+     */
+    private void schedule(Reminder reminder, boolean fireOverdue) {
+        if (wheel == null || reminder.getId() == null) return;
+
+        wheelLock.lock();
+        try {
+            wheel.cancel(new TimerKey(reminder.getId(), Phase.DUE));
+            wheel.cancel(new TimerKey(reminder.getId(), Phase.MISSED));
+            if (reminder.getStatus() != ReminderStatus.INCOMPLETE || reminder.getTimestamp() == null) return;
+
+            long dueMs = reminder.getTimestamp().toEpochMilli();
+            if (fireOverdue || dueMs > System.currentTimeMillis()) {
+                wheel.schedule(new TimerKey(reminder.getId(), Phase.DUE), new ReminderEvent(Phase.DUE, reminder), dueMs);
+            }
+            wheel.schedule(new TimerKey(reminder.getId(), Phase.MISSED), new ReminderEvent(Phase.MISSED, reminder),
+                    dueMs + gracePeriod.toMillis());
+        } finally {
+            wheelLock.unlock();
+        }
+    }
+
+    /**
+     * Removes a deleted reminder's timers.
+     *
+     * @param reminderId the reminder ID
+     */
+    public void onDeleted(String reminderId) {
+        if (wheel == null) return;
+
+        wheelLock.lock();
+        try {
+            wheel.cancel(new TimerKey(reminderId, Phase.DUE));
+            wheel.cancel(new TimerKey(reminderId, Phase.MISSED));
+        } finally {
+            wheelLock.unlock();
+        }
+    }
+
+    private int scheduledCount() {
+        wheelLock.lock();
+        try {
+            return wheel.size();
+        } finally {
+            wheelLock.unlock();
+        }
+    }
+
+    /** Advances the wheel to now and hands fired events to the dispatcher. */
+    private void tick() {
+        List<ReminderEvent> fired;
+        wheelLock.lock();
+        try {
+            fired = wheel.advanceTo(System.currentTimeMillis());
+        } finally {
+            wheelLock.unlock();
+        }
+        if (fired.isEmpty()) return;
+
+        dispatcher.execute(() -> {
+            for (ReminderEvent event : fired) {
+                try {
+                    dispatch(event);
+                } catch (Exception e) {
+                    System.err.println("Failed to dispatch reminder " + event.reminder().getId() + ": " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    private void dispatch(ReminderEvent event) {
+        Reminder reminder = event.reminder();
+        if (event.phase() == Phase.DUE) {
+            dueCounter.increment();
+            reminderNotifier.onDue(reminder);
+            return;
+        }
+
+        // Only an incomplete reminder becomes missed, in case it was completed since it was scheduled.
+        UpdateResult result = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(reminder.getId()).and("status").is(ReminderStatus.INCOMPLETE)),
+                Update.update("status", ReminderStatus.MISSED),
+                Reminder.class);
+        if (result.getModifiedCount() > 0) {
+            reminder.updateStatus(ReminderStatus.MISSED);
+            missedCounter.increment();
+            reminderNotifier.onMissed(reminder);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (ticker != null) ticker.shutdownNow();
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+            try {
+                dispatcher.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -3,7 +3,7 @@ package com.example.ai_companion.service;
 import com.example.ai_companion.model.Reminder;
 import com.example.ai_companion.repository.ReminderRepository;
 import com.example.ai_companion.utils.logger;
-import dev.langchain4j.model.chat.ChatLanguageModel;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -18,25 +18,75 @@ import java.time.format.DateTimeParseException;
 @Service
 public class ReminderService {
 
-    @Autowired private ChatLanguageModel chatLanguageModel;
+    @Autowired private LLMGateway llmGateway;
     @Autowired private ReminderRepository reminderRepository;
+    @Autowired private ReminderScheduler reminderScheduler;
+    @Autowired private TemporalReminderParser temporalReminderParser;
+    @Autowired private MeterRegistry meterRegistry;
+    @Autowired private PipelineMetrics pipelineMetrics;
 
     /**
      * Extracts reminders from the user's message and stores them in the database.
      * Supports reminders with or without time components.
+     * Messages the rule-based parser resolves, and messages with no time expression and no
+     * mention of a reminder, never reach the LLM.
      *
      * @param userId      the user ID
      * @param userMessage the user's message potentially containing reminder info
      */
     public void extractReminders(String userId, String userMessage) {
+        long start = System.nanoTime();
+        try {
+            extractAndSaveReminders(userId, userMessage);
+        } finally {
+            pipelineMetrics.recordStage("reminder_extraction", System.nanoTime() - start);
+        }
+    }
+
+    private void extractAndSaveReminders(String userId, String userMessage) {
+        TemporalReminderParser.Result fastPath = parseFastPath(userMessage);
+        if (fastPath.outcome() == TemporalReminderParser.Outcome.RESOLVED) {
+            for (TemporalReminderParser.ParsedReminder reminder : fastPath.reminders()) {
+                saveReminder(userId, reminder.task(), reminder.date(), reminder.description(), reminder.tag());
+            }
+            return;
+        }
+        // NONE only means no recognised time expression; a message that mentions a reminder still goes to the LLM
+        if (fastPath.outcome() == TemporalReminderParser.Outcome.NONE && !temporalReminderParser.mentionsReminder(userMessage)) {
+            return;
+        }
+
         String today = LocalDate.now().toString();
         String prompt = buildPrompt(today, userMessage);
-        String response = chatLanguageModel.chat(prompt).trim();
+        String response = llmGateway.chat(PromptType.REMINDER_EXTRACTION, prompt).trim();
         logger.logToFile(userId, "Reminder extraction response: " + response);
 
         if (response.equalsIgnoreCase("none")) return;
 
-        parseAndStoreReminders(response, userId);
+        pipelineMetrics.time("reminder_parse", () -> parseAndStoreReminders(response, userId));
+    }
+
+    /**
+     * Whether a message may hold a reminder: it has a time expression the parser recognises,
+     * or it mentions a reminder. Messages that fail both are never sent to the LLM.
+     */
+    public boolean mayContainReminder(String userMessage) {
+        return temporalReminderParser.parse(userMessage, LocalDateTime.now(ZoneOffset.UTC)).outcome() != TemporalReminderParser.Outcome.NONE
+                || temporalReminderParser.mentionsReminder(userMessage);
+    }
+
+    /**
+     * Runs the rule-based temporal parser on a message and counts its outcome.
+     *
+     * @param userMessage the user's message
+     * @return RESOLVED with the reminder, or NONE or AMBIGUOUS
+     */
+    public TemporalReminderParser.Result parseFastPath(String userMessage) {
+        // Reminder dates are interpreted as UTC by parseDateToInstant
+        TemporalReminderParser.Result result = pipelineMetrics.time("reminder_fast_path",
+                () -> temporalReminderParser.parse(userMessage, LocalDateTime.now(ZoneOffset.UTC)));
+        meterRegistry.counter("companion.reminders.fast-path", "outcome", result.outcome().name().toLowerCase()).increment();
+        return result;
     }
 
     /**
@@ -65,7 +115,7 @@ public class ReminderService {
     /**
      * Parses the LLM response line by line and saves valid reminders.
      */
-    private void parseAndStoreReminders(String response, String userId) {
+    void parseAndStoreReminders(String response, String userId) {
         String[] lines = response.split("\\r?\\n");
 
         String task = null, date = null, description = "", tag = null;
@@ -83,12 +133,7 @@ public class ReminderService {
             }
 
             if (task != null && date != null && tag != null) {
-                Instant timestamp = parseDateToInstant(date, userId);
-                if (timestamp != null) {
-                    Reminder reminder = new Reminder(userId, task, timestamp, description, tag);
-                    reminderRepository.save(reminder);
-                    logger.logToFile(userId, "Saved reminder: " + reminder);
-                }
+                saveReminder(userId, task, date, description, tag);
 
                 // Reset fields for next reminder
                 task = null;
@@ -99,11 +144,31 @@ public class ReminderService {
         }
     }
 
+    /**
+     * Saves a single extracted reminder if its date can be parsed.
+     *
+     * @param userId      the user ID
+     * @param task        the main task or action
+     * @param date        the date in YYYY-MM-DD, YYYY-MM-DD HH:mm or ISO-8601 format
+     * @param description a short optional description
+     * @param tag         one of medication, appointment, event, task, other
+     * @return true if the reminder was saved
+     */
+    public boolean saveReminder(String userId, String task, String date, String description, String tag) {
+        Instant timestamp = parseDateToInstant(date, userId);
+        if (timestamp == null) return false;
+
+        Reminder reminder = new Reminder(userId, task, timestamp, description != null ? description : "", tag);
+        reminderScheduler.onSaved(reminderRepository.save(reminder));
+        logger.logToFile(userId, "Saved reminder: " + reminder);
+        return true;
+    }
+
     /**
      * Parses a date string into an Instant. Handles full ISO, date + time, or just date.
      * Defaults to 12:00 noon UTC if time is not given.
      */
-    private Instant parseDateToInstant(String date, String userId) {
+    Instant parseDateToInstant(String date, String userId) {
         try {
             // Try full ISO-8601 datetime format
             return Instant.parse(date);
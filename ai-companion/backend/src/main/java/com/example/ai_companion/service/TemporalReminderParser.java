@@ -0,0 +1,388 @@
+package com.example.ai_companion.service;
+
+import org.springframework.stereotype.Service;
+
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Rule-based fast path for reminder extraction.
+ *
+ * Recognises common relative and absolute date and time expressions ("tomorrow at 3pm",
+ * "next Thursday", "on March 5th", "in 2 hours", "every morning") and resolves them against
+ * the current time. Each message gets one of three outcomes:
+ * - NONE: no time expression the parser recognises. Callers still ask the LLM when the
+ *   message {@link #mentionsReminder mentions a reminder}, since phrasings like "at quarter
+ *   to five" or "after lunch" are not recognised
+ * - RESOLVED: a single reminder with an explicit intent ("remind me to", "I need to", ...)
+ *   and an unambiguous date, resolved directly
+ * - AMBIGUOUS: anything else, such as several dates, vague times, past references or a
+ *   clock time without am/pm, which is left to the LLM
+ */
+@Service
+public class TemporalReminderParser {
+
+    public enum Outcome { NONE, RESOLVED, AMBIGUOUS }
+
+    /** A resolved reminder, with the date in the format accepted by {@link ReminderService#saveReminder}. */
+    public record ParsedReminder(String task, String date, String description, String tag) {}
+
+    public record Result(Outcome outcome, List<ParsedReminder> reminders) {
+        private static final Result NONE = new Result(Outcome.NONE, List.of());
+        private static final Result AMBIGUOUS = new Result(Outcome.AMBIGUOUS, List.of());
+    }
+
+    private static final String WEEKDAYS = "monday|tuesday|wednesday|thursday|friday|saturday|sunday";
+    private static final String MONTHS = "january|february|march|april|may|june|july|august|september|october|november|december"
+            + "|jan|feb|mar|apr|jun|jul|aug|sept|sep|oct|nov|dec";
+
+    private static final Pattern ISO_DATE = Pattern.compile("\\b(\\d{4})-(\\d{1,2})-(\\d{1,2})\\b");
+    private static final Pattern MONTH_DAY = Pattern.compile("\\b(?:on )?(" + MONTHS + ")\\.? (\\d{1,2})(?:st|nd|rd|th)?\\b");
+    private static final Pattern DAY_MONTH = Pattern.compile("\\b(?:on )?(?:the )?(\\d{1,2})(?:st|nd|rd|th)? (?:of )?(" + MONTHS + ")\\b");
+    private static final Pattern NUMERIC_DATE = Pattern.compile("\\b\\d{1,2}/\\d{1,2}(?:/\\d{2,4})?\\b");
+    private static final Pattern RELATIVE_DAY = Pattern.compile("\\b(?:the )?(day after tomorrow|tomorrow|today|tonight)\\b");
+    private static final Pattern WEEKDAY = Pattern.compile("\\b(?:(next|this|on|coming) )?(" + WEEKDAYS + ")\\b");
+    private static final Pattern OFFSET = Pattern.compile(
+            "\\bin (\\d+|a|an|one|two|three|four|five|six|seven|eight|nine|ten|twelve) (minute|hour|day|week)s?\\b");
+    private static final Pattern RECURRING = Pattern.compile(
+            "\\b(?:every (day|morning|afternoon|evening|night|week|" + WEEKDAYS + ")|(daily|nightly|weekly))\\b");
+
+    private static final Pattern CLOCK_TIME = Pattern.compile("\\b(?:at |by |around )?(\\d{1,2})(?::(\\d{2}))? ?([ap])\\.?m\\.?(?![a-z])");
+    private static final Pattern TWENTY_FOUR_HOUR = Pattern.compile("\\b(?:at |by |around )?([01]?\\d|2[0-3]):([0-5]\\d)\\b");
+    private static final Pattern NAMED_TIME = Pattern.compile("\\b(?:at |by |around )?(noon|midday|midnight)\\b");
+    private static final Pattern PART_OF_DAY = Pattern.compile("\\b(this |in the )?(morning|afternoon|evening|night)\\b");
+    private static final Pattern BARE_HOUR = Pattern.compile("\\b(?:at|by|around) \\d{1,2}\\b(?!:)");
+
+    private static final Pattern VAGUE = Pattern.compile("\\b(soon|later|sometime|some time|one day|this weekend|next weekend|weekend"
+            + "|next week|next month|next year|end of the (?:week|month)|in a (?:few|couple of) (?:minutes|hours|days|weeks))\\b");
+    private static final Pattern PAST = Pattern.compile("\\b(yesterday|ago|last (?:night|week|month|year|" + WEEKDAYS + "))\\b");
+    private static final Pattern INTENT = Pattern.compile("\\b(?:please )?(?:remind me (?:to|about)|remember to"
+            + "|don'?t (?:let me )?forget (?:to|about)|i (?:need|have|plan|ought) to|i'?ve got to|i (?:must|should)"
+            + "|i'?m going to|i'?m gonna|i gotta|i'?ve got an?|i have an?)\\s+");
+    private static final Pattern REMINDER_CUE = Pattern.compile("\\b(remind\\w*|remember|forget|appointments?|booked|scheduled"
+            + "|have to|need to|got to|gotta|must|should|going to|gonna|plan to)\\b");
+    private static final Pattern TRAILING_FILLER = Pattern.compile(
+            "(?:\\s+(?:on|at|by|in|for|the|this|next|around|and|please))+$", Pattern.CASE_INSENSITIVE);
+
+    private static final Map<String, LocalTime> PARTS_OF_DAY = Map.of(
+            "morning", LocalTime.of(9, 0),
+            "afternoon", LocalTime.of(15, 0),
+            "evening", LocalTime.of(18, 0),
+            "night", LocalTime.of(21, 0));
+
+    private static final Map<String, Integer> NUMBER_WORDS = Map.ofEntries(
+            Map.entry("a", 1), Map.entry("an", 1), Map.entry("one", 1), Map.entry("two", 2), Map.entry("three", 3),
+            Map.entry("four", 4), Map.entry("five", 5), Map.entry("six", 6), Map.entry("seven", 7),
+            Map.entry("eight", 8), Map.entry("nine", 9), Map.entry("ten", 10), Map.entry("twelve", 12));
+
+    private static final Pattern MEDICATION = Pattern.compile("\\b(pills?|medication|medicine|meds|tablets?|dose|insulin|inhaler|prescription)\\b");
+    private static final Pattern APPOINTMENT = Pattern.compile("\\b(doctor|dentist|appointment|clinic|hospital|check-?up|gp|physio|therapist|optometrist)\\b");
+    private static final Pattern EVENT = Pattern.compile("\\b(party|birthday|wedding|concert|dinner|lunch|meeting|visit|anniversary|funeral|church)\\b");
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    /** A matched span of the message. */
+    private record Span(int start, int end) {
+        boolean overlaps(Span other) {
+            return start < other.end && other.start < end;
+        }
+    }
+
+    /**
+     * A matched date. {@code rollDays} moves the date forward when the resolved moment has
+     * already passed; zero means a past moment is ambiguous.
+     */
+    private record DateHit(Span span, LocalDate date, LocalTime impliedTime, int rollDays, String recurrence) {}
+
+    private record TimeHit(Span span, LocalTime time, boolean todayOnly) {}
+
+    /** Raised while resolving when an expression cannot be pinned down. */
+    private static final class AmbiguousException extends Exception {
+        private AmbiguousException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Classifies a message and resolves its reminder when it is unambiguous.
+     *
+     * @param message the user's message
+     * @param now     the current time, in the zone reminder dates are interpreted in
+     * @return the outcome, with the resolved reminder when it is RESOLVED
+     */
+    public Result parse(String message, LocalDateTime now) {
+        if (message == null || message.isBlank()) return Result.NONE;
+        String normalized = message.replace('\u2019', '\'').replaceAll("\\s+", " ").trim();
+        String text = normalized.toLowerCase(Locale.ROOT);
+        // Keep the user's casing for the task unless lower-casing changed the length
+        String original = normalized.length() == text.length() ? normalized : text;
+
+        try {
+            List<Span> spans = new ArrayList<>();
+            List<DateHit> dates = findDates(text, now, spans);
+            List<TimeHit> times = findTimes(text, spans);
+
+            boolean vague = VAGUE.matcher(text).find();
+            if (dates.isEmpty() && times.isEmpty()) {
+                return vague || NUMERIC_DATE.matcher(text).find() || BARE_HOUR.matcher(text).find()
+                        ? Result.AMBIGUOUS : Result.NONE;
+            }
+            if (vague || dates.size() > 1 || times.size() > 1 || PAST.matcher(text).find()
+                    || NUMERIC_DATE.matcher(text).find() || unmatched(BARE_HOUR, text, spans)) {
+                return Result.AMBIGUOUS;
+            }
+
+            Matcher intent = INTENT.matcher(text);
+            if (!intent.find()) return Result.AMBIGUOUS;
+            int taskStart = intent.end();
+            if (intent.find()) return Result.AMBIGUOUS;
+
+            DateHit dateHit = dates.isEmpty() ? null : dates.get(0);
+            TimeHit timeHit = times.isEmpty() ? null : times.get(0);
+            String date = resolve(dateHit, timeHit, now);
+
+            String task = extractTask(original, taskStart, spans);
+            if (task.isEmpty() || task.split(" ").length > 12) return Result.AMBIGUOUS;
+
+            String description = dateHit != null && dateHit.recurrence() != null ? "Repeats " + dateHit.recurrence() : "";
+            return new Result(Outcome.RESOLVED, List.of(new ParsedReminder(task, date, description, tagFor(text))));
+        } catch (AmbiguousException e) {
+            return Result.AMBIGUOUS;
+        }
+    }
+
+    /**
+     * True if the message reads like it may contain a reminder, such as "remind me",
+     * "appointment" or "have to", whether or not the parser recognised its time expression.
+     */
+    public boolean mentionsReminder(String message) {
+        if (message == null) return false;
+        return REMINDER_CUE.matcher(message.replace('\u2019', '\'').toLowerCase(Locale.ROOT)).find();
+    }
+
+    /** Combines the date and time hits into a "yyyy-MM-dd" or "yyyy-MM-dd HH:mm" string. */
+    private String resolve(DateHit dateHit, TimeHit timeHit, LocalDateTime now) throws AmbiguousException {
+        LocalDate today = now.toLocalDate();
+        LocalDate date = dateHit != null ? dateHit.date() : today;
+        LocalTime time = timeHit != null ? timeHit.time() : dateHit.impliedTime();
+        int rollDays = dateHit != null ? dateHit.rollDays() : (timeHit.todayOnly() ? 0 : 1);
+
+        if (time == null) {
+            if (date.isBefore(today)) throw new AmbiguousException();
+            return date.toString();
+        }
+
+        LocalDateTime moment = LocalDateTime.of(date, time);
+        if (moment.isBefore(now)) {
+            if (rollDays == 0) throw new AmbiguousException();
+            moment = moment.plusDays(rollDays);
+        }
+        return moment.format(DATE_TIME);
+    }
+
+    private List<DateHit> findDates(String text, LocalDateTime now, List<Span> spans) throws AmbiguousException {
+        LocalDate today = now.toLocalDate();
+        List<DateHit> hits = new ArrayList<>();
+
+        for (Matcher m = RECURRING.matcher(text); m.find(); ) {
+            String unit = m.group(1) != null ? m.group(1) : m.group(2);
+            Span span = claim(m, spans);
+            if (span == null) continue;
+
+            switch (unit) {
+                case "day", "daily" -> hits.add(new DateHit(span, today, null, 1, "every day"));
+                case "week", "weekly" -> hits.add(new DateHit(span, today, null, 7, "every week"));
+                case "nightly" -> hits.add(new DateHit(span, today, PARTS_OF_DAY.get("night"), 1, "every night"));
+                default -> {
+                    if (PARTS_OF_DAY.containsKey(unit)) {
+                        hits.add(new DateHit(span, today, PARTS_OF_DAY.get(unit), 1, "every " + unit));
+                    } else {
+                        DayOfWeek day = DayOfWeek.valueOf(unit.toUpperCase(Locale.ROOT));
+                        hits.add(new DateHit(span, upcoming(today, day, true), null, 7, "every " + unit));
+                    }
+                }
+            }
+        }
+
+        for (Matcher m = ISO_DATE.matcher(text); m.find(); ) {
+            Span span = claim(m, spans);
+            if (span != null) {
+                hits.add(new DateHit(span, date(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)),
+                        Integer.parseInt(m.group(3))), null, 0, null));
+            }
+        }
+
+        for (Matcher m = MONTH_DAY.matcher(text); m.find(); ) {
+            Span span = claim(m, spans);
+            if (span != null) hits.add(new DateHit(span, nextMonthDay(today, month(m.group(1)), Integer.parseInt(m.group(2))), null, 0, null));
+        }
+
+        for (Matcher m = DAY_MONTH.matcher(text); m.find(); ) {
+            Span span = claim(m, spans);
+            if (span != null) hits.add(new DateHit(span, nextMonthDay(today, month(m.group(2)), Integer.parseInt(m.group(1))), null, 0, null));
+        }
+
+        for (Matcher m = RELATIVE_DAY.matcher(text); m.find(); ) {
+            Span span = claim(m, spans);
+            if (span == null) continue;
+            switch (m.group(1)) {
+                case "day after tomorrow" -> hits.add(new DateHit(span, today.plusDays(2), null, 0, null));
+                case "tomorrow" -> hits.add(new DateHit(span, today.plusDays(1), null, 0, null));
+                case "tonight" -> hits.add(new DateHit(span, today, PARTS_OF_DAY.get("night"), 0, null));
+                default -> hits.add(new DateHit(span, today, null, 0, null));
+            }
+        }
+
+        for (Matcher m = WEEKDAY.matcher(text); m.find(); ) {
+            Span span = claim(m, spans);
+            if (span == null) continue;
+            DayOfWeek day = DayOfWeek.valueOf(m.group(2).toUpperCase(Locale.ROOT));
+            String qualifier = m.group(1);
+            if ("next".equals(qualifier)) {
+                // "next Thursday" could mean this week's or next week's when it falls later this week
+                LocalDate date = upcoming(today, day, false);
+                if (date.getDayOfWeek().getValue() > today.getDayOfWeek().getValue()) throw new AmbiguousException();
+                hits.add(new DateHit(span, date, null, 0, null));
+            } else {
+                hits.add(new DateHit(span, upcoming(today, day, "this".equals(qualifier)), null, 0, null));
+            }
+        }
+
+        for (Matcher m = OFFSET.matcher(text); m.find(); ) {
+            Span span = claim(m, spans);
+            if (span == null) continue;
+            String amountText = m.group(1);
+            int amount = NUMBER_WORDS.containsKey(amountText) ? NUMBER_WORDS.get(amountText) : Integer.parseInt(amountText);
+            switch (m.group(2)) {
+                case "minute", "hour" -> {
+                    LocalDateTime at = m.group(2).equals("minute") ? now.plusMinutes(amount) : now.plusHours(amount);
+                    hits.add(new DateHit(span, at.toLocalDate(), at.toLocalTime().withSecond(0).withNano(0), 0, null));
+                }
+                case "day" -> hits.add(new DateHit(span, today.plusDays(amount), null, 0, null));
+                default -> hits.add(new DateHit(span, today.plusWeeks(amount), null, 0, null));
+            }
+        }
+        return hits;
+    }
+
+    private List<TimeHit> findTimes(String text, List<Span> spans) throws AmbiguousException {
+        List<TimeHit> hits = new ArrayList<>();
+
+        for (Matcher m = CLOCK_TIME.matcher(text); m.find(); ) {
+            Span span = claim(m, spans);
+            if (span == null) continue;
+            int hour = Integer.parseInt(m.group(1));
+            int minute = m.group(2) != null ? Integer.parseInt(m.group(2)) : 0;
+            if (hour < 1 || hour > 12 || minute > 59) throw new AmbiguousException();
+            hour = hour % 12 + (m.group(3).equals("p") ? 12 : 0);
+            hits.add(new TimeHit(span, LocalTime.of(hour, minute), false));
+        }
+
+        for (Matcher m = TWENTY_FOUR_HOUR.matcher(text); m.find(); ) {
+            Span span = claim(m, spans);
+            if (span == null) continue;
+            int hour = Integer.parseInt(m.group(1));
+            // "at 3:30" without am/pm could be either; only 13:00 to 23:59 is unambiguously 24-hour
+            if (hour <= 12) throw new AmbiguousException();
+            hits.add(new TimeHit(span, LocalTime.of(hour, Integer.parseInt(m.group(2))), false));
+        }
+
+        for (Matcher m = NAMED_TIME.matcher(text); m.find(); ) {
+            Span span = claim(m, spans);
+            if (span != null) hits.add(new TimeHit(span, m.group(1).equals("midnight") ? LocalTime.MIDNIGHT : LocalTime.NOON, false));
+        }
+
+        for (Matcher m = PART_OF_DAY.matcher(text); m.find(); ) {
+            Span span = claim(m, spans);
+            if (span != null) hits.add(new TimeHit(span, PARTS_OF_DAY.get(m.group(2)), "this ".equals(m.group(1))));
+        }
+        return hits;
+    }
+
+    /** Records the match as a span unless it overlaps one already claimed by an earlier pattern. */
+    private static Span claim(Matcher m, List<Span> spans) {
+        Span span = new Span(m.start(), m.end());
+        for (Span existing : spans) {
+            if (existing.overlaps(span)) return null;
+        }
+        spans.add(span);
+        return span;
+    }
+
+    /** True if the pattern matches somewhere outside every claimed span. */
+    private static boolean unmatched(Pattern pattern, String text, List<Span> spans) {
+        for (Matcher m = pattern.matcher(text); m.find(); ) {
+            Span span = new Span(m.start(), m.end());
+            if (spans.stream().noneMatch(span::overlaps)) return true;
+        }
+        return false;
+    }
+
+    /** The task is the text after the intent phrase, up to the end of its sentence, without the time expressions. */
+    private static String extractTask(String text, int start, List<Span> spans) {
+        int end = text.length();
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int index = i;
+            if (spans.stream().anyMatch(span -> index >= span.start() && index < span.end())) continue;
+            if ((c == '.' || c == '!' || c == '?' || c == ';') && (i + 1 == text.length() || text.charAt(i + 1) == ' ')) {
+                end = i;
+                break;
+            }
+        }
+
+        StringBuilder task = new StringBuilder();
+        for (int i = start; i < end; i++) {
+            int index = i;
+            if (spans.stream().noneMatch(span -> index >= span.start() && index < span.end())) {
+                task.append(text.charAt(i));
+            }
+        }
+
+        String cleaned = task.toString().replaceAll("[,:]", " ").replaceAll("\\s+", " ").trim();
+        cleaned = TRAILING_FILLER.matcher(cleaned).replaceAll("").trim();
+        if (cleaned.isEmpty()) return cleaned;
+        return Character.toUpperCase(cleaned.charAt(0)) + cleaned.substring(1);
+    }
+
+    private static String tagFor(String text) {
+        if (MEDICATION.matcher(text).find()) return "medication";
+        if (APPOINTMENT.matcher(text).find()) return "appointment";
+        if (EVENT.matcher(text).find()) return "event";
+        return "task";
+    }
+
+    /** The next date falling on the given weekday, counting today only when {@code includeToday} is set. */
+    private static LocalDate upcoming(LocalDate today, DayOfWeek day, boolean includeToday) {
+        int days = (day.getValue() - today.getDayOfWeek().getValue() + 7) % 7;
+        if (days == 0 && !includeToday) days = 7;
+        return today.plusDays(days);
+    }
+
+    /** The next occurrence of a month and day, this year or next. */
+    private static LocalDate nextMonthDay(LocalDate today, Month month, int day) throws AmbiguousException {
+        LocalDate date = date(today.getYear(), month.getValue(), day);
+        return date.isBefore(today) ? date(today.getYear() + 1, month.getValue(), day) : date;
+    }
+
+    private static LocalDate date(int year, int month, int day) throws AmbiguousException {
+        try {
+            return LocalDate.of(year, month, day);
+        } catch (DateTimeException e) {
+            throw new AmbiguousException();
+        }
+    }
+
+    private static Month month(String name) {
+        for (Month month : Month.values()) {
+            if (month.name().toLowerCase(Locale.ROOT).startsWith(name.substring(0, 3))) return month;
+        }
+        throw new IllegalArgumentException("Unknown month: " + name);
+    }
+}
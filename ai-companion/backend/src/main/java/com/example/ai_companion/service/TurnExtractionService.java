@@ -0,0 +1,196 @@
+package com.example.ai_companion.service;
+
+import com.example.ai_companion.model.User;
+import com.example.ai_companion.repository.UserRepository;
+import com.example.ai_companion.utils.logger;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.request.ResponseFormat;
+import dev.langchain4j.model.chat.request.ResponseFormatType;
+import dev.langchain4j.model.chat.request.json.JsonArraySchema;
+import dev.langchain4j.model.chat.request.json.JsonObjectSchema;
+import dev.langchain4j.model.chat.request.json.JsonSchema;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Extracts reminders, core facts and a short-term memory from a completed turn with a single
+ * structured-output LLM call, then stores each through the existing reminder and memory flows.
+ * Falls back to the individual per-task prompts if the structured result cannot be used.
+ */
+@Service
+public class TurnExtractionService {
+
+    private static final List<String> REMINDER_TAGS = List.of("medication", "appointment", "event", "task", "other");
+
+    private static final ResponseFormat EXTRACTION_FORMAT = ResponseFormat.builder()
+            .type(ResponseFormatType.JSON)
+            .jsonSchema(JsonSchema.builder()
+                    .name("TurnExtraction")
+                    .rootElement(JsonObjectSchema.builder()
+                            .addProperty("reminders", JsonArraySchema.builder()
+                                    .items(JsonObjectSchema.builder()
+                                            .addStringProperty("task", "The main task or action")
+                                            .addStringProperty("date", "Date in YYYY-MM-DD or YYYY-MM-DD HH:mm")
+                                            .addStringProperty("description", "A short optional description of the task")
+                                            .addEnumProperty("tag", REMINDER_TAGS)
+                                            .required("task", "date", "description", "tag")
+                                            .additionalProperties(false)
+                                            .build())
+                                    .build())
+                            .addStringProperty("coreFacts", "Newly discovered long-term personal facts, or \"none\"")
+                            .addStringProperty("memory", "A short-term or event-specific memory, or \"none\"")
+                            .required("reminders", "coreFacts", "memory")
+                            .additionalProperties(false)
+                            .build())
+                    .build())
+            .build();
+
+    @Autowired private LLMGateway llmGateway;
+    @Autowired private UserRepository userRepository;
+    @Autowired private ReminderService reminderService;
+    @Autowired private MemoryService memoryService;
+    @Autowired private ObjectMapper objectMapper;
+
+    /** Reminder fields as returned by the model. */
+    private record ExtractedReminder(String task, String date, String description, String tag) {}
+
+    /** The parsed structured extraction result. */
+    private record TurnExtraction(List<ExtractedReminder> reminders, String coreFacts, String memory) {}
+
+    /**
+     * Extracts and stores all insights from a turn.
+     *
+     * @param userId   the user ID
+     * @param question the user's message
+     * @param answer   the assistant's reply
+     * @return true if insights were successfully stored, false otherwise
+     */
+    public boolean extractAndStore(String userId, String question, String answer) {
+        User user = userRepository.findById(userId).orElse(null);
+        if (user == null) return false;
+
+        TemporalReminderParser.Result fastPath = reminderService.parseFastPath(question);
+
+        TurnExtraction extraction;
+        try {
+            extraction = extract(userId, question, answer);
+        } catch (Exception e) {
+            logger.logToFile(userId, "Combined extraction failed, falling back to per-task prompts: " + e.getMessage());
+            reminderService.extractReminders(userId, question);
+            return memoryService.extractAndStoreInsights(userId, question, answer);
+        }
+
+        try {
+            if (fastPath.outcome() == TemporalReminderParser.Outcome.RESOLVED) {
+                // The parser resolved the reminder on its own, so its deterministic result wins over the model's
+                for (TemporalReminderParser.ParsedReminder reminder : fastPath.reminders()) {
+                    reminderService.saveReminder(userId, reminder.task(), reminder.date(), reminder.description(), reminder.tag());
+                }
+            } else {
+                // NONE only means no recognised pattern, so the model's reminders are kept
+                for (ExtractedReminder reminder : extraction.reminders()) {
+                    reminderService.saveReminder(userId, reminder.task(), reminder.date(), reminder.description(), reminder.tag());
+                }
+            }
+            if (!isNone(extraction.coreFacts())) {
+                memoryService.mergeCoreInformation(user, extraction.coreFacts());
+            }
+            if (!isNone(extraction.memory())) {
+                memoryService.storeMemory(userId, extraction.memory());
+            }
+            return true;
+        } catch (Exception e) {
+            System.err.println("Failed to store insights: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Runs the combined extraction prompt and parses the structured result.
+     *
+     * @throws IllegalStateException   if the result is missing or malformed
+     * @throws JsonProcessingException if the result is not valid JSON
+     */
+    private TurnExtraction extract(String userId, String question, String answer) throws JsonProcessingException {
+        ChatRequest request = ChatRequest.builder()
+                .messages(UserMessage.from(buildPrompt(LocalDate.now().toString(), question, answer)))
+                .parameters(ChatRequestParameters.builder()
+                        .responseFormat(EXTRACTION_FORMAT)
+                        .temperature(0.0)
+                        .build())
+                .build();
+
+        String json = llmGateway.chat(PromptType.TURN_EXTRACTION, request).aiMessage().text();
+        logger.logToFile(userId, "Combined extraction response: " + json);
+        if (json == null || json.isBlank()) {
+            throw new IllegalStateException("empty extraction result");
+        }
+        return parse(objectMapper.readTree(json));
+    }
+
+    /** Validates and converts the model's JSON into a {@link TurnExtraction}. */
+    private TurnExtraction parse(JsonNode root) {
+        JsonNode remindersNode = root.get("reminders");
+        JsonNode coreNode = root.get("coreFacts");
+        JsonNode memoryNode = root.get("memory");
+        if (remindersNode == null || !remindersNode.isArray() || coreNode == null || !coreNode.isTextual()
+                || memoryNode == null || !memoryNode.isTextual()) {
+            throw new IllegalStateException("malformed extraction result");
+        }
+
+        List<ExtractedReminder> reminders = new ArrayList<>();
+        for (JsonNode node : remindersNode) {
+            String task = node.path("task").asText(null);
+            String date = node.path("date").asText(null);
+            String tag = node.path("tag").asText("other").toLowerCase();
+            if (task == null || task.isBlank() || date == null || date.isBlank()) {
+                throw new IllegalStateException("malformed reminder in extraction result");
+            }
+            reminders.add(new ExtractedReminder(task.trim(), date.trim(), node.path("description").asText("").trim(),
+                    REMINDER_TAGS.contains(tag) ? tag : "other"));
+        }
+        return new TurnExtraction(reminders, coreNode.asText().trim(), memoryNode.asText().trim());
+    }
+
+    private static boolean isNone(String value) {
+        return value == null || value.isBlank() || "none".equalsIgnoreCase(value);
+    }
+
+    /** Builds the single prompt covering reminder, core fact and memory extraction. */
+    private String buildPrompt(String today, String question, String answer) {
+        return """
+            Today is %s.
+
+            The user said: "%s"
+            The assistant replied: "%s"
+
+            Extract the following from this conversation turn.
+
+            reminders:
+            Tasks the user needs to do at a specific date/time, taken from the user's message only.
+            Use today's date to resolve time expressions like "tomorrow" or "next Thursday" into specific calendar dates.
+            Use an empty list if there are none.
+
+            coreFacts:
+            Only long-term personal facts that help define the user's identity, such as relationships,
+            occupation or studies, hobbies or passions, and basic biographical info.
+            Do NOT include daily events, temporary plans or feelings, assignments or tasks, or dates.
+            Return a single natural-language sentence summarising only newly discovered core facts, or "none".
+
+            memory:
+            Short-term or event-specific information that may be useful for future questions, such as
+            specific events, emotions, preferences, experiences, or short-term intentions.
+            Do NOT include facts that belong in coreFacts, vague or generic responses, or anything irrelevant.
+            Return a concise sentence capturing the memory, or "none" if nothing is worth storing.
+        """.formatted(today, question, answer);
+    }
+}
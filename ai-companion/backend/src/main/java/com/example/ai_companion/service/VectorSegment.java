@@ -0,0 +1,321 @@
+package com.example.ai_companion.service;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * One user's memory vectors, held in a contiguous primitive float array for cache- and
+ * SIMD-friendly scanning and persisted to a memory-mapped file.
+ *
+ * The vector file holds a 16-byte header (magic, dimension, committed count) followed by
+ * fixed-size records: an epoch-millis timestamp and the unit-length vector. Texts and memory
+ * IDs are stored length-prefixed in two companion append-only files; an empty ID means the
+ * memory has none. A record only counts once the header count is advanced, so a crash
+ * mid-append leaves the segment consistent. A text or ID write that fails part-way is
+ * truncated back off its file, so later records stay aligned.
+ */
+final class VectorSegment implements Closeable {
+
+    private static final int MAGIC = 0x4D454D31;
+    private static final int HEADER_BYTES = 16;
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** A scored memory returned by {@link #search}. */
+    record Match(String text, long timestampMillis, float similarity) {}
+
+    private final int dimension;
+    private final int recordBytes;
+    private final FileChannel vectorChannel;
+    private FileChannel textChannel;
+    private long textBytes;
+    private FileChannel idChannel;
+    private long idBytes;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private MappedByteBuffer mapped;
+    private int capacity;
+    private int count;
+    private float[] vectors;
+    private long[] timestamps;
+    private final List<String> texts = new ArrayList<>();
+    private final Set<String> ids = new HashSet<>();
+
+    private VectorSegment(int dimension, FileChannel vectorChannel) {
+        this.dimension = dimension;
+        this.recordBytes = Long.BYTES + dimension * Float.BYTES;
+        this.vectorChannel = vectorChannel;
+    }
+
+    /**
+     * Opens a user's segment, creating its files if they do not exist yet.
+     *
+     * @param directory directory holding the segment files
+     * @param userId    the user ID
+     * @param dimension embedding dimension
+     */
+    static VectorSegment open(Path directory, String userId, int dimension) throws IOException {
+        Files.createDirectories(directory);
+        Path vectorPath = directory.resolve("user_" + userId + ".vec");
+        Path textPath = directory.resolve("user_" + userId + ".txt");
+        Path idPath = directory.resolve("user_" + userId + ".ids");
+
+        FileChannel channel = FileChannel.open(vectorPath,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        VectorSegment segment = new VectorSegment(dimension, channel);
+        segment.load(textPath, idPath);
+        segment.textChannel = FileChannel.open(textPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        segment.idChannel = FileChannel.open(idPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        return segment;
+    }
+
+    private void load(Path textPath, Path idPath) throws IOException {
+        boolean fresh = vectorChannel.size() < HEADER_BYTES;
+        int storedCount = 0;
+        if (!fresh) {
+            MappedByteBuffer header = vectorChannel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != dimension) {
+                throw new IOException("Incompatible vector segment for dimension " + dimension);
+            }
+            storedCount = header.getInt(8);
+        }
+
+        capacity = Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(1, storedCount)) << 1);
+        remap();
+        if (fresh) {
+            mapped.putInt(0, MAGIC);
+            mapped.putInt(4, dimension);
+            mapped.putInt(8, 0);
+        }
+
+        vectors = new float[capacity * dimension];
+        timestamps = new long[capacity];
+        for (int i = 0; i < storedCount; i++) {
+            int offset = HEADER_BYTES + i * recordBytes;
+            timestamps[i] = mapped.getLong(offset);
+            for (int d = 0; d < dimension; d++) {
+                vectors[i * dimension + d] = mapped.getFloat(offset + Long.BYTES + d * Float.BYTES);
+            }
+        }
+
+        if (!Files.exists(textPath) && storedCount > 0) {
+            throw new IOException("Missing text file for a non-empty vector segment");
+        }
+        textBytes = readStrings(textPath, storedCount, texts);
+
+        if (!Files.exists(idPath) && storedCount > 0) {
+            // Segments written before IDs were stored: their memories have none.
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(idPath)))) {
+                for (int i = 0; i < storedCount; i++) out.writeInt(0);
+            }
+        }
+        List<String> storedIds = new ArrayList<>(storedCount);
+        idBytes = readStrings(idPath, storedCount, storedIds);
+        for (String id : storedIds) {
+            if (!id.isEmpty()) ids.add(id);
+        }
+        count = storedCount;
+    }
+
+    /**
+     * Reads the first {@code count} length-prefixed strings of a companion file and drops
+     * anything after them, written by an append that crashed before committing its vector.
+     *
+     * @return the committed length of the file in bytes
+     */
+    private static long readStrings(Path path, int count, List<String> into) throws IOException {
+        if (!Files.exists(path)) return 0;
+
+        long committedBytes = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            for (int i = 0; i < count; i++) {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                into.add(new String(bytes, StandardCharsets.UTF_8));
+                committedBytes += Integer.BYTES + bytes.length;
+            }
+        } catch (EOFException e) {
+            throw new IOException(path.getFileName() + " is shorter than the committed vector count", e);
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(committedBytes);
+        }
+        return committedBytes;
+    }
+
+    private void remap() throws IOException {
+        mapped = vectorChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) capacity * recordBytes);
+    }
+
+    /**
+     * Appends a memory and persists it, unless a memory with the same ID is already stored.
+     *
+     * @param id              the memory ID, or null if it has none
+     * @param vector          unit-length embedding of the text
+     * @param timestampMillis when the memory happened
+     * @param text            the memory sentence
+     * @return false if the ID was already stored and nothing was appended
+     */
+    boolean append(String id, float[] vector, long timestampMillis, String text) throws IOException {
+        String storedId = id != null ? id : "";
+        lock.writeLock().lock();
+        try {
+            if (!storedId.isEmpty() && ids.contains(storedId)) return false;
+
+            if (count == capacity) {
+                capacity *= 2;
+                remap();
+                vectors = Arrays.copyOf(vectors, capacity * dimension);
+                timestamps = Arrays.copyOf(timestamps, capacity);
+            }
+
+            long idEnd = idBytes + writeString(idChannel, idBytes, storedId);
+            long textEnd;
+            try {
+                textEnd = textBytes + writeString(textChannel, textBytes, text);
+            } catch (IOException e) {
+                truncate(idChannel, idBytes, e);
+                throw e;
+            }
+            idBytes = idEnd;
+            textBytes = textEnd;
+
+            int offset = HEADER_BYTES + count * recordBytes;
+            mapped.putLong(offset, timestampMillis);
+            for (int d = 0; d < dimension; d++) {
+                mapped.putFloat(offset + Long.BYTES + d * Float.BYTES, vector[d]);
+            }
+
+            System.arraycopy(vector, 0, vectors, count * dimension, dimension);
+            timestamps[count] = timestampMillis;
+            texts.add(text);
+            if (!storedId.isEmpty()) ids.add(storedId);
+            count++;
+            mapped.putInt(8, count);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes a length-prefixed string at the end of a companion file's committed bytes. If the
+     * write fails, the partial bytes are truncated away; if even that fails, the next append
+     * truncates them.
+     *
+     * @return the number of bytes written
+     */
+    private static int writeString(FileChannel channel, long committedBytes, String value) throws IOException {
+        if (channel.size() != committedBytes) {
+            channel.truncate(committedBytes);
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + bytes.length).putInt(bytes.length).put(bytes).flip();
+        try {
+            long position = committedBytes;
+            while (record.hasRemaining()) {
+                position += channel.write(record, position);
+            }
+        } catch (IOException e) {
+            truncate(channel, committedBytes, e);
+            throw e;
+        }
+        return record.limit();
+    }
+
+    private static void truncate(FileChannel channel, long committedBytes, IOException cause) {
+        try {
+            channel.truncate(committedBytes);
+        } catch (IOException suppressed) {
+            cause.addSuppressed(suppressed);
+        }
+    }
+
+    /**
+     * Scores every memory in the time window against the query by cosine similarity.
+     *
+     * @param query     unit-length query embedding
+     * @param startMs   earliest timestamp to include (inclusive)
+     * @param endMs     latest timestamp to include (inclusive)
+     * @param threshold minimum similarity to include
+     * @param limit     maximum number of matches
+     * @return matches ordered by descending similarity
+     */
+    List<Match> search(float[] query, long startMs, long endMs, double threshold, int limit) {
+        PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, (a, b) -> Float.compare(a.similarity(), b.similarity()));
+
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < count; i++) {
+                long timestamp = timestamps[i];
+                if (timestamp < startMs || timestamp > endMs) continue;
+
+                float similarity = dot(query, vectors, i * dimension, dimension);
+                if (similarity < threshold) continue;
+
+                if (best.size() < limit) {
+                    best.add(new Match(texts.get(i), timestamp, similarity));
+                } else if (similarity > best.peek().similarity()) {
+                    best.poll();
+                    best.add(new Match(texts.get(i), timestamp, similarity));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Match> ordered = new ArrayList<>(best);
+        ordered.sort((a, b) -> Float.compare(b.similarity(), a.similarity()));
+        return ordered;
+    }
+
+    int size() {
+        return count;
+    }
+
+    /**
+     * Dot product of the query with one stored vector. Uses four independent accumulators
+     * so the JIT can pipeline the multiply-adds.
+     */
+    static float dot(float[] query, float[] data, int offset, int dimension) {
+        float s0 = 0f, s1 = 0f, s2 = 0f, s3 = 0f;
+        int d = 0;
+        for (; d + 3 < dimension; d += 4) {
+            s0 += query[d] * data[offset + d];
+            s1 += query[d + 1] * data[offset + d + 1];
+            s2 += query[d + 2] * data[offset + d + 2];
+            s3 += query[d + 3] * data[offset + d + 3];
+        }
+        for (; d < dimension; d++) {
+            s0 += query[d] * data[offset + d];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            mapped.force();
+            textChannel.close();
+            idChannel.close();
+            vectorChannel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
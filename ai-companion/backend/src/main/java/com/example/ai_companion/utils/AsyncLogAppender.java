@@ -0,0 +1,324 @@
+package com.example.ai_companion.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Asynchronous per-user log appender.
+ *
+ * Callers only enqueue into a lock-free ring buffer; a single writer thread drains it and
+ * appends to per-user files. Open file channels are cached with LRU eviction, files are
+ * rolled by size and at each local-time boundary of the roll interval (midnight, for 24h),
+ * and rolled files are gzip-compressed in the background.
+ *
+ * A file's period is taken from its last-modified time when it is reopened. Every write
+ * checks the boundary, so a file only ever holds one period's entries and its last write
+ * dates it; the creation time is not used, as most Linux file systems do not report it.
+ * When the buffer is full, entries are either dropped (and counted) or the caller waits
+ * for space, depending on the configured {@link OverflowPolicy}.
+ */
+public class AsyncLogAppender implements AutoCloseable {
+
+    /** What to do when the ring buffer is full. */
+    public enum OverflowPolicy { DROP, BLOCK }
+
+    private static final DateTimeFormatter ROLL_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    private static final int MAX_BATCH = 512;
+
+    private final Path baseDir;
+    private final OverflowPolicy overflowPolicy;
+    private final int maxOpenFiles;
+    private final long maxFileBytes;
+    private final long rollIntervalMs;
+
+    private final LogRingBuffer<Entry> buffer;
+    private final Map<String, OpenLog> openLogs;
+    private final ExecutorService compressor;
+    private final Thread writer;
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile boolean running = true;
+    private volatile boolean writerParked = false;
+
+    /** A single log record captured on the caller's thread. */
+    private record Entry(String userId, LocalDateTime time, String content) {}
+
+    /** An open per-user log file. */
+    private static final class OpenLog {
+        private final Path path;
+        private final FileChannel channel;
+        /** Roll period the file's entries belong to. */
+        private final long period;
+        private long size;
+        /** Set when rolling this file failed, so it is appended to until it is next reopened. */
+        private boolean rollFailed;
+
+        private OpenLog(Path path, FileChannel channel, long period, long size) {
+            this.path = path;
+            this.channel = channel;
+            this.period = period;
+            this.size = size;
+        }
+    }
+
+    /**
+     * @param baseDir        directory that holds the per-user log files
+     * @param bufferCapacity number of entries the ring buffer can hold
+     * @param overflowPolicy what to do when the buffer is full
+     * @param maxOpenFiles   maximum number of file handles kept open
+     * @param maxFileBytes   size at which a user's log file is rolled
+     * @param rollIntervalMs length of the periods, aligned to local midnight, at whose boundaries files are rolled
+     */
+    public AsyncLogAppender(String baseDir, int bufferCapacity, OverflowPolicy overflowPolicy,
+                            int maxOpenFiles, long maxFileBytes, long rollIntervalMs) {
+        this.baseDir = Paths.get(baseDir);
+        this.overflowPolicy = overflowPolicy;
+        this.maxOpenFiles = maxOpenFiles;
+        this.maxFileBytes = maxFileBytes;
+        this.rollIntervalMs = rollIntervalMs;
+        this.buffer = new LogRingBuffer<>(bufferCapacity);
+        this.openLogs = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, OpenLog> eldest) {
+                if (size() > AsyncLogAppender.this.maxOpenFiles) {
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.compressor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "log-compressor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.writer = new Thread(this::runWriter, "log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues a log entry. Never touches the disk.
+     *
+     * @param userId  the user the entry belongs to
+     * @param content the text to log
+     */
+    public void append(String userId, String content) {
+        Entry entry = new Entry(userId, LocalDateTime.now(), content);
+        if (!running) {
+            dropped.incrementAndGet();
+            return;
+        }
+        while (!buffer.offer(entry)) {
+            if (overflowPolicy == OverflowPolicy.DROP || !running) {
+                dropped.incrementAndGet();
+                return;
+            }
+            wakeWriter();
+            LockSupport.parkNanos(50_000);
+        }
+        if (writerParked) {
+            wakeWriter();
+        }
+    }
+
+    /** Number of entries dropped because the buffer was full or the appender was closed. */
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    /** Approximate number of entries waiting to be written. */
+    public int pendingCount() {
+        return buffer.size();
+    }
+
+    /**
+     * Stops accepting entries, writes everything already queued and closes all files.
+     */
+    @Override
+    public void close() {
+        running = false;
+        wakeWriter();
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        compressor.shutdown();
+        try {
+            compressor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void wakeWriter() {
+        LockSupport.unpark(writer);
+    }
+
+    /** Writer loop: drains the buffer in batches and parks briefly when it is empty. */
+    private void runWriter() {
+        List<Entry> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            Entry entry;
+            while (batch.size() < MAX_BATCH && (entry = buffer.poll()) != null) {
+                batch.add(entry);
+            }
+
+            if (!batch.isEmpty()) {
+                try {
+                    writeBatch(batch);
+                } catch (Throwable t) {
+                    // Losing one batch is better than losing the writer thread, and with it all later logging
+                    dropped.addAndGet(batch.size());
+                    System.err.println("Logging failed, dropped " + batch.size() + " entries: " + t);
+                }
+                batch.clear();
+                continue;
+            }
+
+            if (!running) break;
+            writerParked = true;
+            if (buffer.size() == 0 && running) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+            }
+            writerParked = false;
+        }
+
+        for (OpenLog log : openLogs.values()) {
+            closeQuietly(log);
+        }
+        openLogs.clear();
+    }
+
+    /** Writes a batch, grouping consecutive entries for the same user into one channel write. */
+    private void writeBatch(List<Entry> batch) {
+        Map<String, StringBuilder> byUser = new LinkedHashMap<>();
+        for (Entry entry : batch) {
+            byUser.computeIfAbsent(entry.userId(), id -> new StringBuilder())
+                    .append("==== [").append(entry.time()).append("] ====\n")
+                    .append(entry.content())
+                    .append("\n\n");
+        }
+
+        for (Map.Entry<String, StringBuilder> userEntries : byUser.entrySet()) {
+            byte[] bytes = userEntries.getValue().toString().getBytes(StandardCharsets.UTF_8);
+            try {
+                OpenLog log = openFor(userEntries.getKey(), bytes.length);
+                ByteBuffer data = ByteBuffer.wrap(bytes);
+                while (data.hasRemaining()) {
+                    log.channel.write(data);
+                }
+                log.size += bytes.length;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Logging failed: " + e.getMessage());
+                closeQuietly(openLogs.remove(userEntries.getKey()));
+            }
+        }
+    }
+
+    /**
+     * Returns the open log for a user, rolling it first if the next write would exceed the size limit
+     * or the file belongs to an earlier period.
+     * Rolls at most once per call; if the roll fails, the write is appended to the current file.
+     */
+    private OpenLog openFor(String userId, int nextWriteBytes) throws IOException {
+        long now = System.currentTimeMillis();
+        OpenLog log = openLogs.get(userId);
+        if (log == null) {
+            log = open(userId, now);
+        }
+
+        if (!log.rollFailed && log.size > 0 && (log.size + nextWriteBytes > maxFileBytes || periodOf(now) != log.period)) {
+            openLogs.remove(userId);
+            closeQuietly(log);
+            boolean rolled = roll(log.path);
+            log = open(userId, now);
+            log.rollFailed = !rolled;
+        }
+        return log;
+    }
+
+    /** Opens a user's log file for appending and caches the channel. */
+    private OpenLog open(String userId, long now) throws IOException {
+        Files.createDirectories(baseDir);
+        Path path = baseDir.resolve("user_" + userId + "_log.txt");
+        long lastWrite = now;
+        if (Files.exists(path)) {
+            lastWrite = Files.getLastModifiedTime(path).toMillis();
+        }
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        OpenLog log = new OpenLog(path, channel, periodOf(lastWrite), channel.size());
+        openLogs.put(userId, log);
+        return log;
+    }
+
+    /** Index of the roll period holding the given time, counted in local time so 24h periods start at midnight. */
+    private long periodOf(long epochMillis) {
+        if (rollIntervalMs <= 0) return 0;
+        long localMillis = epochMillis + TimeZone.getDefault().getOffset(epochMillis);
+        return Math.floorDiv(localMillis, rollIntervalMs);
+    }
+
+    /**
+     * Renames a full log file aside and compresses it in the background.
+     *
+     * @return false if the file could not be renamed
+     */
+    private boolean roll(Path path) {
+        String name = path.getFileName().toString().replace(".txt", "");
+        Path rolled = path.resolveSibling(name + "." + LocalDateTime.now().format(ROLL_SUFFIX) + ".txt");
+        try {
+            Files.move(path, rolled, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Log roll failed: " + e.getMessage());
+            return false;
+        }
+        compressor.execute(() -> compress(rolled));
+        return true;
+    }
+
+    private static void compress(Path rolled) {
+        Path gzipped = rolled.resolveSibling(rolled.getFileName() + ".gz");
+        try (InputStream in = Files.newInputStream(rolled);
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzipped))) {
+            in.transferTo(out);
+        } catch (IOException e) {
+            System.err.println("Log compression failed: " + e.getMessage());
+            return;
+        }
+        try {
+            Files.delete(rolled);
+        } catch (IOException e) {
+            System.err.println("Failed to remove rolled log: " + e.getMessage());
+        }
+    }
+
+    private static void closeQuietly(OpenLog log) {
+        if (log == null) return;
+        try {
+            log.channel.close();
+        } catch (IOException ignored) {
+            // Nothing useful to do if close fails.
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.ai_companion.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Small thread-safe LRU cache with an optional time-to-live per entry.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class LruCache<K, V> {
+
+    private final long ttlMs;
+    private final LinkedHashMap<K, Timestamped<V>> entries;
+
+    private record Timestamped<V>(V value, long storedAt) {}
+
+    /**
+     * @param maxEntries maximum number of entries before the least recently used is evicted
+     * @param ttlMs      how long an entry stays valid, or 0 for no expiry
+     */
+    public LruCache(int maxEntries, long ttlMs) {
+        this.ttlMs = ttlMs;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Timestamped<V>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return the cached value, or null if absent or expired
+     */
+    public synchronized V get(K key) {
+        Timestamped<V> entry = entries.get(key);
+        if (entry == null) return null;
+        if (ttlMs > 0 && System.currentTimeMillis() - entry.storedAt() > ttlMs) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value();
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, new Timestamped<>(value, System.currentTimeMillis()));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.ai_companion.utils;
+
+import java.util.*;
+
+/**
+ * Hierarchical timing wheel for keyed timers.
+ *
+ * Level 0 has one slot per tick; each level above covers a whole turn of the level below in
+ * each of its slots. Scheduling and cancelling are O(1). Advancing costs one slot visit per
+ * tick, plus re-placing a slot's timers one level down whenever a lower level wraps around.
+ * Timers beyond the top level wait in an overflow set that is re-checked whenever the top
+ * level cascades.
+ *
+ * Not thread-safe; callers must serialise access.
+ */
+public final class TimingWheel<K, V> {
+
+    private final long tickMs;
+    private final int bits;
+    private final int mask;
+    private final int levels;
+    private final List<List<Set<Timer<K, V>>>> wheels;
+    private final Set<Timer<K, V>> overflow = new LinkedHashSet<>();
+    private final Map<K, Timer<K, V>> timers = new HashMap<>();
+
+    private long currentTick;
+
+    /** A scheduled timer and the slot that currently holds it. */
+    private static final class Timer<K, V> {
+        private final K key;
+        private final V value;
+        private final long deadlineTick;
+        private Set<Timer<K, V>> slot;
+
+        private Timer(K key, V value, long deadlineTick) {
+            this.key = key;
+            this.value = value;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+
+    /**
+     * @param tickMs    resolution of the wheel in milliseconds
+     * @param wheelBits log2 of the number of slots per level
+     * @param levels    number of levels
+     * @param startMs   the current time in epoch milliseconds
+     */
+    public TimingWheel(long tickMs, int wheelBits, int levels, long startMs) {
+        if (wheelBits * levels >= 62) {
+            throw new IllegalArgumentException("Timing wheel span is too large");
+        }
+        this.tickMs = tickMs;
+        this.bits = wheelBits;
+        this.mask = (1 << wheelBits) - 1;
+        this.levels = levels;
+        this.currentTick = startMs / tickMs;
+        this.wheels = new ArrayList<>(levels);
+        for (int level = 0; level < levels; level++) {
+            List<Set<Timer<K, V>>> slots = new ArrayList<>(mask + 1);
+            for (int slot = 0; slot <= mask; slot++) {
+                slots.add(new LinkedHashSet<>());
+            }
+            wheels.add(slots);
+        }
+    }
+
+    /**
+     * Schedules a timer, replacing any existing timer with the same key.
+     * A deadline that has already passed fires on the next tick.
+     *
+     * @param key        identifies the timer for cancellation
+     * @param value      returned when the timer fires
+     * @param deadlineMs when the timer should fire, in epoch milliseconds
+     */
+    public void schedule(K key, V value, long deadlineMs) {
+        cancel(key);
+        Timer<K, V> timer = new Timer<>(key, value, Math.max(ceilDiv(deadlineMs, tickMs), currentTick + 1));
+        timers.put(key, timer);
+        place(timer);
+    }
+
+    /**
+     * Cancels a timer.
+     *
+     * @return true if a timer with the key was scheduled
+     */
+    public boolean cancel(K key) {
+        Timer<K, V> timer = timers.remove(key);
+        if (timer == null) return false;
+        timer.slot.remove(timer);
+        return true;
+    }
+
+    /** Number of scheduled timers. */
+    public int size() {
+        return timers.size();
+    }
+
+    /**
+     * Advances the wheel tick by tick up to the given time.
+     *
+     * @param nowMs the current time in epoch milliseconds
+     * @return the values of every timer that fired, in deadline order
+     */
+    public List<V> advanceTo(long nowMs) {
+        long targetTick = nowMs / tickMs;
+        List<V> expired = new ArrayList<>();
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+
+            Set<Timer<K, V>> slot = wheels.get(0).get((int) (currentTick & mask));
+            for (Timer<K, V> timer : slot) {
+                timers.remove(timer.key);
+                expired.add(timer.value);
+            }
+            slot.clear();
+        }
+        return expired;
+    }
+
+    /**
+     * When the current tick starts a new turn of one or more lower levels, moves the
+     * matching slots of the levels above down, highest level first.
+     */
+    private void cascade() {
+        int topLevel = 0;
+        while (topLevel + 1 < levels && (currentTick & ((1L << (bits * (topLevel + 1))) - 1)) == 0) {
+            topLevel++;
+        }
+        if (topLevel == levels - 1 && !overflow.isEmpty()) {
+            List<Timer<K, V>> waiting = new ArrayList<>(overflow);
+            overflow.clear();
+            waiting.forEach(this::place);
+        }
+        for (int level = topLevel; level >= 1; level--) {
+            Set<Timer<K, V>> slot = wheels.get(level).get((int) ((currentTick >> (bits * level)) & mask));
+            if (slot.isEmpty()) continue;
+            List<Timer<K, V>> moving = new ArrayList<>(slot);
+            slot.clear();
+            moving.forEach(this::place);
+        }
+    }
+
+    /** Puts a timer in the lowest level whose span covers its remaining delay. */
+    private void place(Timer<K, V> timer) {
+        long delay = timer.deadlineTick - currentTick;
+        for (int level = 0; level < levels; level++) {
+            if (delay < (1L << (bits * (level + 1)))) {
+                Set<Timer<K, V>> slot = wheels.get(level).get((int) ((timer.deadlineTick >> (bits * level)) & mask));
+                slot.add(timer);
+                timer.slot = slot;
+                return;
+            }
+        }
+        overflow.add(timer);
+        timer.slot = overflow;
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return -Math.floorDiv(-value, divisor);
+    }
+}
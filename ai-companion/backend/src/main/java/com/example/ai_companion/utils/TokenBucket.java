@@ -0,0 +1,69 @@
+package com.example.ai_companion.utils;
+
+/**
+ * Token bucket rate limiter that refills continuously up to its capacity.
+ *
+ * Callers ask how long they would have to wait for an amount, optionally leaving a reserve
+ * untouched, and take it once the wait is zero. Amounts larger than the capacity are
+ * clamped so they can still be admitted once the bucket is full. The level may go
+ * negative when a caller settles a cost that turned out higher than it took up front.
+ */
+public final class TokenBucket {
+
+    private final double capacity;
+    private final double refillPerNano;
+    private double level;
+    private long lastRefill;
+
+    /**
+     * @param capacity        the most the bucket holds, and the largest burst it allows
+     * @param refillPerSecond how much is added back each second
+     */
+    public TokenBucket(double capacity, double refillPerSecond) {
+        this.capacity = capacity;
+        this.refillPerNano = refillPerSecond / 1_000_000_000d;
+        this.level = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Returns how long until the amount can be taken with the reserve still left over.
+     *
+     * @param amount  the amount wanted
+     * @param reserve how much must remain in the bucket afterwards
+     * @return 0 if the amount can be taken now, otherwise the wait in nanoseconds
+     */
+    public synchronized long nanosUntil(double amount, double reserve) {
+        refill();
+        double needed = Math.min(amount, capacity - reserve) + reserve - level;
+        return needed <= 0 ? 0 : (long) Math.ceil(needed / refillPerNano);
+    }
+
+    /** Takes an amount, clamped to the capacity. */
+    public synchronized void take(double amount) {
+        refill();
+        level -= Math.min(amount, capacity);
+    }
+
+    /** Returns an amount to the bucket, or takes more if negative, without exceeding the capacity. */
+    public synchronized void adjust(double amount) {
+        refill();
+        level = Math.min(capacity, level + amount);
+    }
+
+    /** The amount currently in the bucket. */
+    public synchronized double level() {
+        refill();
+        return level;
+    }
+
+    public double capacity() {
+        return capacity;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        level = Math.min(capacity, level + (now - lastRefill) * refillPerNano);
+        lastRefill = now;
+    }
+}
@@ -1,30 +1,45 @@
 package com.example.ai_companion.utils;
 
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.time.LocalDateTime;
-
+/**
+ * Per-user file logging. Entries are handed to an {@link AsyncLogAppender}, so callers never touch the disk.
+ */
 public class logger {
 
     private static final String BASE_PATH = "logs/";
 
+    private static volatile AsyncLogAppender appender;
+
     public static void logToFile(String userId, String logContent) {
-        try {
-            File dir = new File(BASE_PATH);
-            if (!dir.exists()) {
-                dir.mkdirs(); // Create the logs/ directory if it doesn't exist
-            }
+        appender().append(userId, logContent);
+    }
 
-            String filename = BASE_PATH + "user_" + userId + "_log.txt";
-            try (FileWriter writer = new FileWriter(filename, true)) {
-                writer.write("==== [" + LocalDateTime.now() + "] ====\n");
-                writer.write(logContent);
-                writer.write("\n\n");
-            }
+    /**
+     * Replaces the active appender, draining and closing the previous one.
+     *
+     * @param newAppender the appender to write through from now on
+     */
+    public static synchronized void install(AsyncLogAppender newAppender) {
+        AsyncLogAppender previous = appender;
+        appender = newAppender;
+        if (previous != null && previous != newAppender) {
+            previous.close();
+        }
+    }
 
-        } catch (IOException e) {
-            System.err.println("Logging failed: " + e.getMessage());
+    /**
+     * Returns the active appender, creating one with default settings if none has been installed.
+     */
+    public static AsyncLogAppender appender() {
+        AsyncLogAppender current = appender;
+        if (current == null) {
+            synchronized (logger.class) {
+                if (appender == null) {
+                    appender = new AsyncLogAppender(BASE_PATH, 8192, AsyncLogAppender.OverflowPolicy.DROP,
+                            64, 10 * 1024 * 1024, 24 * 60 * 60 * 1000L);
+                }
+                current = appender;
+            }
         }
+        return current;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,70 @@
+package com.example.ai_companion.service;
+
+import com.example.ai_companion.model.GameDifficulty;
+import com.example.ai_companion.model.GameType;
+import com.example.ai_companion.service.GameRequestMatcher.GameRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+class GameRequestMatcherTest {
+
+    private final GameRequestMatcher matcher = new GameRequestMatcher();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(matcher, "maxRequestWords", 12);
+    }
+
+    static Stream<Arguments> newGameRequests() {
+        return Stream.of(
+                arguments("Give me something fun", null, null, null),
+                arguments("another one", null, null, null),
+                arguments("Next please", null, null, null),
+                arguments("Let's play a word game", GameType.WORD, null, null),
+                arguments("Can we do an easy riddle?", GameType.RIDDLE, GameDifficulty.EASY, null),
+                arguments("I'm bored, give me a harder quiz", GameType.TRIVIA, GameDifficulty.HARD, null),
+                arguments("Tell me a riddle about my garden", GameType.RIDDLE, null, "gardening"));
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void newGameRequests(String message, GameType type, GameDifficulty difficulty, String interest) {
+        Optional<GameRequest> expected = Optional.of(new GameRequest(type, difficulty, interest));
+
+        assertEquals(expected, matcher.match(message, false));
+        assertEquals(expected, matcher.match(message, true));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"Good morning", "hello there", "a riddle please", "word game", ""})
+    void openingOnlyRequests(String message) {
+        assertEquals(Optional.empty(), matcher.match(message, false));
+        assertEquals(true, matcher.match(message, true).isPresent());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "give me another hint",
+            "can you repeat the question?",
+            "what's the answer to the riddle?",
+            "I remember playing that game as a child",
+            "is it a horse?",
+            "again",
+            "no more games please",
+            "Tell me a riddle about quantum physics",
+            "Let's play a game where you describe every county in England and I guess which one it is"})
+    void followUpsGoToTheLlm(String message) {
+        assertEquals(Optional.empty(), matcher.match(message, false));
+        assertEquals(Optional.empty(), matcher.match(message, true));
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.ai_companion.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the client against an embedded stand-in for the embed service, as the load test's
+ * StubMemoryService does.
+ */
+class MemoryServiceClientTest {
+
+    private static final byte[] RECALL_BODY = "{\"related_memories\": [\"Walked Bella in the park.\"]}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] OK_BODY = "{\"status\": \"ok\"}".getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private final AtomicInteger recalls = new AtomicInteger();
+    private volatile int recallStatus = 200;
+    private volatile long recallDelayMs;
+    private volatile CountDownLatch recallGate = new CountDownLatch(0);
+    private volatile CountDownLatch rememberGate = new CountDownLatch(0);
+    private final CountDownLatch rememberArrived = new CountDownLatch(2);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private MemoryServiceClient client;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        serverExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(serverExecutor);
+        server.createContext("/recall", exchange -> {
+            recalls.incrementAndGet();
+            await(recallGate);
+            pause(recallDelayMs);
+            respond(exchange, recallStatus, RECALL_BODY);
+        });
+        server.createContext("/remember", exchange -> {
+            rememberArrived.countDown();
+            await(rememberGate);
+            respond(exchange, 200, OK_BODY);
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() throws IOException {
+        recallGate.countDown();
+        rememberGate.countDown();
+        if (client != null) client.close();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void recallReturnsTheRelatedMemories() {
+        startClient(1_000, 4, 4, 3, 30_000);
+
+        assertEquals("[Walked Bella in the park.]", client.recall("u1", "walks"));
+    }
+
+    @Test
+    void readTimeoutReturnsNullSoTheCallerFallsBackToNone() {
+        startClient(100, 4, 4, 3, 30_000);
+        recallDelayMs = 1_000;
+
+        long start = System.nanoTime();
+        assertNull(client.recall("u1", "walks"));
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(900), "waited past the read timeout");
+    }
+
+    @Test
+    void breakerOpensAfterTheThresholdAndHalfOpensAfterOpenMs() throws InterruptedException {
+        startClient(1_000, 4, 4, 3, 300);
+        recallStatus = 500;
+
+        for (int i = 0; i < 3; i++) {
+            assertNull(client.recall("u1", "walks"));
+        }
+        assertEquals(1, breakerOpen("recall"));
+        assertEquals(0, breakerOpen("remember"));
+
+        // Open: failed fast without reaching the server.
+        assertNull(client.recall("u1", "walks"));
+        assertEquals(3, recalls.get());
+        assertEquals(1, rejected("recall", "circuit_open"));
+
+        // Half-open after open-ms: one trial call goes through and closes the circuit.
+        recallStatus = 200;
+        Thread.sleep(350);
+        assertEquals("[Walked Bella in the park.]", client.recall("u1", "walks"));
+        assertEquals(4, recalls.get());
+        assertEquals(0, breakerOpen("recall"));
+    }
+
+    @Test
+    void saturatedRememberBulkheadRejectsWritesButNotRecalls() throws Exception {
+        startClient(5_000, 4, 2, 3, 30_000);
+        rememberGate = new CountDownLatch(1);
+
+        CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() -> client.remember("u1", "a", Instant.now()));
+        CompletableFuture<Boolean> second = CompletableFuture.supplyAsync(() -> client.remember("u1", "b", Instant.now()));
+        assertTrue(rememberArrived.await(5, TimeUnit.SECONDS));
+
+        assertFalse(client.remember("u1", "c", Instant.now()));
+        assertEquals(1, rejected("remember", "bulkhead"));
+        assertEquals("[Walked Bella in the park.]", client.recall("u1", "walks"));
+
+        rememberGate.countDown();
+        assertTrue(first.get(5, TimeUnit.SECONDS));
+        assertTrue(second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void saturatedRecallBulkheadRejectsFurtherRecalls() throws Exception {
+        startClient(5_000, 1, 4, 3, 30_000);
+        recallGate = new CountDownLatch(1);
+
+        CompletableFuture<String> inFlight = CompletableFuture.supplyAsync(() -> client.recall("u1", "walks"));
+        while (recalls.get() == 0) Thread.sleep(5);
+
+        assertNull(client.recall("u1", "walks"));
+        assertEquals(1, rejected("recall", "bulkhead"));
+
+        recallGate.countDown();
+        assertEquals("[Walked Bella in the park.]", inFlight.get(5, TimeUnit.SECONDS));
+    }
+
+    private void startClient(long readTimeoutMs, int recallConcurrency, int rememberConcurrency,
+                             int failureThreshold, long openMs) {
+        client = new MemoryServiceClient();
+        ReflectionTestUtils.setField(client, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(client, "baseUrl", "http://127.0.0.1:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(client, "connectTimeoutMs", 500L);
+        ReflectionTestUtils.setField(client, "readTimeoutMs", readTimeoutMs);
+        ReflectionTestUtils.setField(client, "maxConnections", 16);
+        ReflectionTestUtils.setField(client, "recallConcurrency", recallConcurrency);
+        ReflectionTestUtils.setField(client, "rememberConcurrency", rememberConcurrency);
+        ReflectionTestUtils.setField(client, "bulkheadWaitMs", 50L);
+        ReflectionTestUtils.setField(client, "recallTopK", 10);
+        ReflectionTestUtils.setField(client, "breakerFailureThreshold", failureThreshold);
+        ReflectionTestUtils.setField(client, "breakerOpenMs", openMs);
+        client.init();
+    }
+
+    private double breakerOpen(String operation) {
+        return meterRegistry.get("companion.memory.client.breaker.open").tag("operation", operation).gauge().value();
+    }
+
+    private double rejected(String operation, String reason) {
+        return meterRegistry.get("companion.memory.client.rejected")
+                .tag("operation", operation).tag("reason", reason).counter().count();
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        try (InputStream request = exchange.getRequestBody(); OutputStream response = exchange.getResponseBody()) {
+            request.readAllBytes();
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            response.write(body);
+        }
+    }
+
+    private static void await(CountDownLatch gate) {
+        try {
+            gate.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.ai_companion.service;
+
+import com.example.ai_companion.service.TemporalReminderParser.Outcome;
+import com.example.ai_companion.service.TemporalReminderParser.ParsedReminder;
+import com.example.ai_companion.service.TemporalReminderParser.Result;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+class TemporalReminderParserTest {
+
+    /** Wednesday 12 March 2025, 10:00. */
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 12, 10, 0);
+
+    private final TemporalReminderParser parser = new TemporalReminderParser();
+
+    static Stream<Arguments> resolved() {
+        return Stream.of(
+                // ISO_DATE
+                arguments("remind me to renew my passport on 2025-04-01", "Renew my passport", "2025-04-01", "", "task"),
+                // MONTH_DAY
+                arguments("remind me to call the bank on March 20th", "Call the bank", "2025-03-20", "", "task"),
+                // DAY_MONTH
+                arguments("remind me to book tickets on the 5th of April", "Book tickets", "2025-04-05", "", "task"),
+                // RELATIVE_DAY + CLOCK_TIME
+                arguments("remind me to take my pills tomorrow at 8am", "Take my pills", "2025-03-13 08:00", "", "medication"),
+                // CLOCK_TIME alone rolls to tomorrow once it has passed
+                arguments("remind me to take my pills at 8am", "Take my pills", "2025-03-13 08:00", "", "medication"),
+                // WEEKDAY
+                arguments("I need to see the dentist on Friday", "See the dentist", "2025-03-14", "", "appointment"),
+                arguments("remind me to call the plumber next Monday", "Call the plumber", "2025-03-17", "", "task"),
+                // OFFSET
+                arguments("remind me to check the oven in 20 minutes", "Check the oven", "2025-03-12 10:20", "", "task"),
+                // RECURRING
+                arguments("remind me to water the plants every morning", "Water the plants", "2025-03-13 09:00",
+                        "Repeats every morning", "task"),
+                // NAMED_TIME
+                arguments("remind me to have lunch with Ann tomorrow at noon", "Have lunch with Ann", "2025-03-13 12:00", "", "event"),
+                // TWENTY_FOUR_HOUR past noon
+                arguments("remind me to call Mum tomorrow at 15:30", "Call Mum", "2025-03-13 15:30", "", "task"),
+                // PART_OF_DAY
+                arguments("remind me to phone the pharmacy this afternoon", "Phone the pharmacy", "2025-03-12 15:00", "", "task"));
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void resolved(String message, String task, String date, String description, String tag) {
+        Result result = parser.parse(message, NOW);
+
+        assertEquals(Outcome.RESOLVED, result.outcome());
+        assertEquals(List.of(new ParsedReminder(task, date, description, tag)), result.reminders());
+    }
+
+    static Stream<String> ambiguous() {
+        return Stream.of(
+                // TWENTY_FOUR_HOUR without am/pm at or before 12
+                "remind me to call Mum tomorrow at 3:30",
+                "remind me to call Mum tomorrow at 12:15",
+                // BARE_HOUR
+                "remind me to call Mum tomorrow at 3",
+                // VAGUE
+                "remind me to clean the garage next week",
+                // PAST
+                "remind me I took my pills yesterday at 9pm",
+                // NUMERIC_DATE
+                "remind me to pay the rent on 4/5",
+                // several dates
+                "remind me to call Ann on Monday and on Friday",
+                // no intent
+                "the concert is tomorrow at 7pm",
+                // "next Thursday" when Thursday is later this week
+                "remind me to call the plumber next Thursday",
+                // a moment today that has already passed
+                "remind me to take my pills today at 8am");
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void ambiguous(String message) {
+        Result result = parser.parse(message, NOW);
+
+        assertEquals(Outcome.AMBIGUOUS, result.outcome());
+        assertEquals(List.of(), result.reminders());
+    }
+
+    static Stream<Arguments> none() {
+        return Stream.of(
+                arguments("I had a lovely chat with my daughter", false),
+                arguments("", false),
+                // Unrecognised time expressions still mention a reminder, so callers ask the LLM
+                arguments("my appointment is at quarter to five", true),
+                arguments("I have to ring the council after lunch", true),
+                arguments("don't let me forget the cake on Christmas Day", true));
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void none(String message, boolean mentionsReminder) {
+        Result result = parser.parse(message, NOW);
+
+        assertEquals(Outcome.NONE, result.outcome());
+        assertEquals(mentionsReminder, parser.mentionsReminder(message));
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.ai_companion.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AsyncLogAppenderTest {
+
+    private static final long NO_AGE_ROLL = Long.MAX_VALUE;
+    private static final long LARGE_FILE = 1L << 30;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void blockPolicyWritesEveryEntryThroughATinyBuffer() throws Exception {
+        AsyncLogAppender appender = new AsyncLogAppender(dir.toString(), 4, AsyncLogAppender.OverflowPolicy.BLOCK,
+                4, LARGE_FILE, NO_AGE_ROLL);
+        int total = burst(appender, 4, 5_000);
+        appender.close();
+
+        assertEquals(0, appender.droppedCount());
+        assertEquals(total, writtenEntries("u"));
+    }
+
+    @Test
+    void dropPolicyCountsEveryEntryItDoesNotWrite() throws Exception {
+        AsyncLogAppender appender = new AsyncLogAppender(dir.toString(), 4, AsyncLogAppender.OverflowPolicy.DROP,
+                4, LARGE_FILE, NO_AGE_ROLL);
+        int total = burst(appender, 4, 5_000);
+        appender.close();
+
+        assertEquals(total, writtenEntries("u") + appender.droppedCount());
+    }
+
+    @Test
+    void dropsEntriesAppendedAfterClose() throws IOException {
+        AsyncLogAppender appender = new AsyncLogAppender(dir.toString(), 4, AsyncLogAppender.OverflowPolicy.BLOCK,
+                4, LARGE_FILE, NO_AGE_ROLL);
+        appender.close();
+        appender.append("u", "late");
+
+        assertEquals(1, appender.droppedCount());
+        assertEquals(0, writtenEntries("u"));
+    }
+
+    @Test
+    void rollsAFileLastWrittenInAnEarlierPeriodOnReopen() throws IOException {
+        Path existing = dir.resolve("user_u_log.txt");
+        Files.writeString(existing, "==== [yesterday] ====\nold\n\n");
+        long interval = TimeUnit.HOURS.toMillis(1);
+        Files.setLastModifiedTime(existing, FileTime.fromMillis(System.currentTimeMillis() - 2 * interval));
+
+        AsyncLogAppender appender = new AsyncLogAppender(dir.toString(), 16, AsyncLogAppender.OverflowPolicy.BLOCK,
+                4, LARGE_FILE, interval);
+        appender.append("u", "new");
+        appender.close();
+
+        assertEquals(1, writtenEntries("u"));
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(1, files.filter(path -> path.getFileName().toString().endsWith(".txt.gz")).count());
+        }
+    }
+
+    @Test
+    void keepsAppendingToAFileWrittenInTheCurrentPeriod() throws IOException {
+        Path existing = dir.resolve("user_u_log.txt");
+        Files.writeString(existing, "==== [earlier] ====\nold\n\n");
+
+        AsyncLogAppender appender = new AsyncLogAppender(dir.toString(), 16, AsyncLogAppender.OverflowPolicy.BLOCK,
+                4, LARGE_FILE, TimeUnit.DAYS.toMillis(365_000));
+        appender.append("u", "new");
+        appender.close();
+
+        assertEquals(2, writtenEntries("u"));
+    }
+
+    /** Appends from several threads at once and returns how many entries were appended. */
+    private static int burst(AsyncLogAppender appender, int threads, int perThread) throws InterruptedException {
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    appender.append("u", "entry " + i);
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        return threads * perThread;
+    }
+
+    private long writtenEntries(String userId) throws IOException {
+        Path log = dir.resolve("user_" + userId + "_log.txt");
+        if (!Files.exists(log)) return 0;
+        try (Stream<String> lines = Files.lines(log, StandardCharsets.UTF_8)) {
+            return lines.filter(line -> line.startsWith("==== [")).count();
+        }
+    }
+}
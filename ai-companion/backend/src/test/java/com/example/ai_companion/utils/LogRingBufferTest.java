@@ -0,0 +1,112 @@
+package com.example.ai_companion.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LogRingBufferTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            // requested, actual
+            "1, 4",
+            "4, 4",
+            "5, 8",
+            "8, 8",
+            "9, 16",
+            "1000, 1024"})
+    void roundsTheCapacityUpToAPowerOfTwo(int requested, int capacity) {
+        assertEquals(capacity, new LogRingBuffer<String>(requested).capacity());
+    }
+
+    @Test
+    void rejectsOffersWhenFullUntilTheConsumerPolls() {
+        LogRingBuffer<Integer> buffer = new LogRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(true, buffer.offer(i));
+        }
+
+        assertEquals(false, buffer.offer(4));
+        assertEquals(4, buffer.size());
+        assertEquals(0, buffer.poll());
+        assertEquals(true, buffer.offer(4));
+        assertEquals(false, buffer.offer(5));
+    }
+
+    @Test
+    void keepsFifoOrderAcrossManyWrapArounds() {
+        LogRingBuffer<Integer> buffer = new LogRingBuffer<>(4);
+        int next = 0;
+        int expected = 0;
+        // One item stays queued, so the head and tail wrap at different slots
+        assertEquals(true, buffer.offer(next++));
+        for (int round = 0; round < 100; round++) {
+            int batch = 1 + round % 3;
+            for (int i = 0; i < batch; i++) {
+                assertEquals(true, buffer.offer(next++));
+            }
+            for (int i = 0; i < batch; i++) {
+                assertEquals(expected++, buffer.poll());
+            }
+        }
+        assertEquals(expected, buffer.poll());
+        assertNull(buffer.poll());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void deliversEveryItemFromConcurrentProducersInPerProducerOrder() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 20_000;
+        LogRingBuffer<long[]> buffer = new LogRingBuffer<>(64);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            long producer = p;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (long i = 0; i < perProducer; i++) {
+                    long[] item = {producer, i};
+                    while (!buffer.offer(item)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        long[] nextExpected = new long[producers];
+        int received = 0;
+        start.countDown();
+        while (received < producers * perProducer) {
+            long[] item = buffer.poll();
+            if (item == null) {
+                Thread.yield();
+                continue;
+            }
+            assertEquals(nextExpected[(int) item[0]]++, item[1]);
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertNull(buffer.poll());
+        for (long count : nextExpected) {
+            assertEquals(perProducer, count);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.ai_companion.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TimingWheelTest {
+
+    private static final long TICK_MS = 10;
+    private static final long START_MS = 1_000;
+
+    /** Four slots per level over two levels, so 16 ticks before a timer waits in the overflow. */
+    private final TimingWheel<String, String> wheel = new TimingWheel<>(TICK_MS, 2, 2, START_MS);
+
+    @ParameterizedTest
+    @ValueSource(longs = {1, 3, 4, 5, 15, 16, 17, 63, 64, 65, 300})
+    void firesOnItsDeadlineTickAcrossLevelsAndOverflow(long ticks) {
+        long deadlineMs = START_MS + ticks * TICK_MS;
+        wheel.schedule("timer", "fired", deadlineMs);
+
+        assertEquals(List.of(), wheel.advanceTo(deadlineMs - 1));
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("fired"), wheel.advanceTo(deadlineMs));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void roundsDeadlinesUpToTheNextTick() {
+        wheel.schedule("timer", "fired", START_MS + 25);
+
+        assertEquals(List.of(), wheel.advanceTo(START_MS + 29));
+        assertEquals(List.of("fired"), wheel.advanceTo(START_MS + 30));
+    }
+
+    @Test
+    void pastDeadlinesFireOnTheNextTick() {
+        wheel.schedule("timer", "fired", START_MS - 60_000);
+
+        assertEquals(List.of("fired"), wheel.advanceTo(START_MS + TICK_MS));
+    }
+
+    @Test
+    void firesInDeadlineOrderWhenAdvancedInOneStep() {
+        wheel.schedule("c", "c", START_MS + 200 * TICK_MS);
+        wheel.schedule("a", "a", START_MS + 2 * TICK_MS);
+        wheel.schedule("b", "b", START_MS + 20 * TICK_MS);
+
+        assertEquals(List.of("a", "b", "c"), wheel.advanceTo(START_MS + 500 * TICK_MS));
+    }
+
+    @Test
+    void cancelledTimersNeverFire() {
+        wheel.schedule("kept", "kept", START_MS + 40 * TICK_MS);
+        wheel.schedule("cancelled", "cancelled", START_MS + 40 * TICK_MS);
+
+        assertEquals(true, wheel.cancel("cancelled"));
+        assertEquals(false, wheel.cancel("cancelled"));
+        assertEquals(List.of("kept"), wheel.advanceTo(START_MS + 100 * TICK_MS));
+    }
+
+    @Test
+    void reschedulingReplacesTheTimer() {
+        wheel.schedule("timer", "early", START_MS + 5 * TICK_MS);
+        wheel.schedule("timer", "late", START_MS + 50 * TICK_MS);
+
+        assertEquals(1, wheel.size());
+        assertEquals(List.of(), wheel.advanceTo(START_MS + 49 * TICK_MS));
+        assertEquals(List.of("late"), wheel.advanceTo(START_MS + 50 * TICK_MS));
+    }
+
+    @Test
+    void firesEveryTimerExactlyOnceWhenTickedOneAtATime() {
+        List<String> expected = new ArrayList<>();
+        for (int ticks = 1; ticks <= 100; ticks += 7) {
+            wheel.schedule("t" + ticks, "t" + ticks, START_MS + ticks * TICK_MS);
+            expected.add("t" + ticks);
+        }
+
+        List<String> fired = new ArrayList<>();
+        for (int ticks = 1; ticks <= 100; ticks++) {
+            for (String value : wheel.advanceTo(START_MS + ticks * TICK_MS)) {
+                assertEquals("t" + ticks, value);
+                fired.add(value);
+            }
+        }
+        assertEquals(expected, fired);
+        assertEquals(0, wheel.size());
+    }
+}
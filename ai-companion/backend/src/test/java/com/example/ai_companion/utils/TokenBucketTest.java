@@ -0,0 +1,97 @@
+package com.example.ai_companion.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    /** Refills so slowly that nothing measurable comes back while a test runs. */
+    private static final double NO_REFILL = 0.000_001;
+
+    @ParameterizedTest
+    @CsvSource({
+            // amount, reserve, admitted from a bucket of 100 holding 90
+            "90, 0, true",
+            "91, 0, false",
+            "70, 20, true",
+            "71, 20, false",
+            "500, 0, false",
+            "500, 20, false"})
+    void admitsWhatFitsAboveTheReserve(double amount, double reserve, boolean admitted) {
+        TokenBucket bucket = new TokenBucket(100, NO_REFILL);
+        bucket.take(10);
+
+        assertEquals(admitted, bucket.nanosUntil(amount, reserve) == 0);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"100, 0", "500, 0", "81, 20", "500, 20"})
+    void fullBucketAdmitsAmountsClampedBelowTheReserve(double amount, double reserve) {
+        TokenBucket bucket = new TokenBucket(100, NO_REFILL);
+
+        assertEquals(0, bucket.nanosUntil(amount, reserve));
+    }
+
+    @Test
+    void reserveIsLeftForOtherCallers() {
+        TokenBucket bucket = new TokenBucket(100, NO_REFILL);
+        bucket.take(80);
+
+        assertTrue(bucket.nanosUntil(1, 20) > 0);
+        assertEquals(0, bucket.nanosUntil(20, 0));
+    }
+
+    @Test
+    void takeIsClampedToTheCapacity() {
+        TokenBucket bucket = new TokenBucket(100, NO_REFILL);
+        bucket.take(500);
+
+        assertEquals(0, bucket.level(), 0.001);
+    }
+
+    @Test
+    void adjustCanDriveTheLevelNegative() {
+        TokenBucket bucket = new TokenBucket(100, NO_REFILL);
+        bucket.take(100);
+        bucket.adjust(-50);
+
+        assertEquals(-50, bucket.level(), 0.001);
+        assertTrue(bucket.nanosUntil(1, 0) > 0);
+    }
+
+    @Test
+    void adjustNeverFillsPastTheCapacity() {
+        TokenBucket bucket = new TokenBucket(100, NO_REFILL);
+        bucket.take(30);
+        bucket.adjust(1_000);
+
+        assertEquals(100, bucket.level(), 0.001);
+    }
+
+    @Test
+    void waitCoversTheDebtAsWellAsTheAmount() {
+        TokenBucket bucket = new TokenBucket(100, 10);
+        bucket.take(100);
+        bucket.adjust(-50);
+
+        // 50 owed plus 1 wanted, at 10 per second
+        long wait = bucket.nanosUntil(1, 0);
+        assertTrue(wait > TimeUnit.MILLISECONDS.toNanos(5_000) && wait <= TimeUnit.MILLISECONDS.toNanos(5_100), "wait " + wait);
+    }
+
+    @Test
+    void waitIncludesTheReserve() {
+        TokenBucket bucket = new TokenBucket(100, 10);
+        bucket.take(100);
+
+        // 20 reserved plus 10 wanted, at 10 per second
+        long wait = bucket.nanosUntil(10, 20);
+        assertTrue(wait > TimeUnit.MILLISECONDS.toNanos(2_900) && wait <= TimeUnit.MILLISECONDS.toNanos(3_000), "wait " + wait);
+    }
+}
@@ -3,7 +3,7 @@ from pydantic import BaseModel, Field
 from sentence_transformers import SentenceTransformer
 import chromadb
 from uuid import uuid4
-from typing import Optional
+from typing import List, Optional
 from datetime import datetime, timedelta, timezone
 
 # Persistent ChromaDB
@@ -22,20 +22,22 @@ class MemoryInput(BaseModel):
     user_id: str
     text: str
     timestamp: datetime = Field(default_factory=lambda: datetime.now(timezone.utc))
+    # Caller-assigned ID; storing the same ID again replaces the memory instead of duplicating it
+    id: Optional[str] = None
 
 @app.post("/remember")
 def remember(data: MemoryInput):
     print("calling remember")
     collection = client.get_or_create_collection(name=f"user_{data.user_id}")
     embedding = model.encode(data.text).tolist()
-    collection.add(
+    collection.upsert(
         documents=[data.text],
         embeddings=[embedding],
         metadatas=[{
             "user_id": data.user_id,
             "timestamp": data.timestamp.isoformat()
         }],
-        ids=[str(uuid4())]
+        ids=[data.id or str(uuid4())]
     )
     return {"status": "stored"}
 
@@ -88,4 +90,31 @@ def recall(data: RecallInput):
 
     top_10 = sorted(combined, key=lambda x: -x["similarity"])[:10]
 
-    return {"related_memories": top_10 if top_10 else "none"}
\ No newline at end of file
+    return {"related_memories": top_10 if top_10 else "none"}
+
+class MemoryBatchInput(BaseModel):
+    memories: List[MemoryInput]
+
+@app.post("/remember_batch")
+def remember_batch(data: MemoryBatchInput):
+    print(f"calling remember_batch ({len(data.memories)} memories)")
+    if not data.memories:
+        return {"status": "stored", "count": 0}
+
+    # Encode every text in one model call, then upsert each user's memories together. Users are
+    # written one at a time, so a failure can leave earlier users stored; with caller IDs the
+    # retried batch overwrites them rather than adding duplicates.
+    embeddings = model.encode([m.text for m in data.memories]).tolist()
+    by_user = {}
+    for memory, embedding in zip(data.memories, embeddings):
+        by_user.setdefault(memory.user_id, []).append((memory, embedding))
+
+    for user_id, items in by_user.items():
+        collection = client.get_or_create_collection(name=f"user_{user_id}")
+        collection.upsert(
+            documents=[m.text for m, _ in items],
+            embeddings=[e for _, e in items],
+            metadatas=[{"user_id": user_id, "timestamp": m.timestamp.isoformat()} for m, _ in items],
+            ids=[m.id or str(uuid4()) for m, _ in items]
+        )
+    return {"status": "stored", "count": len(data.memories)}